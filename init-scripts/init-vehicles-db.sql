@@ -28,6 +28,21 @@ CREATE TABLE IF NOT EXISTS vehicles (
     longitude FLOAT,
     description TEXT,
     
+    -- IoT state
+    iot_device_id VARCHAR(255),
+    is_locked BOOLEAN DEFAULT FALSE,
+    fall_detected BOOLEAN DEFAULT FALSE,
+    panic_active BOOLEAN DEFAULT FALSE,
+    speed_kmh FLOAT,
+    last_iot_update TIMESTAMP(6) NULL,
+    
+    -- Geofence (a circle, or a polygon encoded as "lat,lng;lat,lng;...")
+    geofence_center_lat FLOAT,
+    geofence_center_lng FLOAT,
+    geofence_radius_m INT,
+    geofence_polygon VARCHAR(4000),
+    geofence_breached BOOLEAN DEFAULT FALSE,
+    
     -- Audit fields
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -39,6 +54,49 @@ CREATE TABLE IF NOT EXISTS vehicles (
     INDEX idx_vehicles_location (latitude, longitude)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Create trips table (rides aggregated from the telemetry stream)
+CREATE TABLE IF NOT EXISTS trips (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    vehicle_id BIGINT NOT NULL,
+    owner_id BIGINT,
+    started_at TIMESTAMP(6) NOT NULL,
+    ended_at TIMESTAMP(6) NOT NULL,
+    distance_km DOUBLE NOT NULL,
+    max_speed_kmh FLOAT NOT NULL,
+    point_count INT NOT NULL,
+    start_lat FLOAT,
+    start_lng FLOAT,
+    end_lat FLOAT,
+    end_lng FLOAT,
+    
+    -- Audit fields
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    
+    -- Keyset pagination of a vehicle's trips
+    INDEX idx_trips_vehicle (vehicle_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create vehicle_alerts table (fall, panic and geofence transitions)
+CREATE TABLE IF NOT EXISTS vehicle_alerts (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    vehicle_id BIGINT NOT NULL,
+    owner_id BIGINT,
+    device_id VARCHAR(255),
+    type VARCHAR(32) NOT NULL,
+    lat FLOAT,
+    lng FLOAT,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    
+    -- Audit fields
+    created_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    
+    -- Keyset pagination of the owner and vehicle alert feeds
+    INDEX idx_vehicle_alerts_owner (owner_id, id),
+    INDEX idx_vehicle_alerts_vehicle (vehicle_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Insert sample vehicles for testing
 INSERT INTO vehicles (owner_id, type, name, year, review_value, price_rent, price_sell, is_available, image_url, latitude, longitude, description) VALUES 
     (1, 'sedan', 'Toyota Camry 2022', 2022, 5, 45.00, 28000.00, TRUE, 'https://example.com/camry.jpg', -12.0464, -77.0428, 'Comfortable sedan perfect for city and highway driving'),
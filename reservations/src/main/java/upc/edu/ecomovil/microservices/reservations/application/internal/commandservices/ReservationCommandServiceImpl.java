@@ -49,6 +49,7 @@ public class ReservationCommandServiceImpl implements ReservationCommandService
 
             var reservation = new Reservation(command);
             var savedReservation = reservationRepository.save(reservation);
+            externalVehicleService.notifyVehicleReserved(savedReservation.getVehicleId(), savedReservation.getId());
 
             log.info("Reservation created successfully with ID: {}", savedReservation.getId());
             return Optional.of(savedReservation);
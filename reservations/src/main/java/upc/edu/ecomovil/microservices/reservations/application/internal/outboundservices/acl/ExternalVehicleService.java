@@ -6,27 +6,56 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ExternalVehicleService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExternalVehicleService.class);
 
+    private static final int NOTIFY_QUEUE_CAPACITY = 1000;
+
     @Value("${external.vehicles.service.url}")
     private String vehiclesServiceUrl;
 
+    @Value("${external.vehicles.service.key:}")
+    private String serviceKey;
+
     private final RestTemplate restTemplate;
+    private final RestTemplate notifyRestTemplate;
+    private final ExecutorService notifier;
 
-    public ExternalVehicleService() {
+    public ExternalVehicleService(
+            @Value("${external.vehicles.service.notify-connect-timeout:PT1S}") Duration notifyConnectTimeout,
+            @Value("${external.vehicles.service.notify-read-timeout:PT2S}") Duration notifyReadTimeout) {
         this.restTemplate = new RestTemplate();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(notifyConnectTimeout);
+        requestFactory.setReadTimeout(notifyReadTimeout);
+        this.notifyRestTemplate = new RestTemplate(requestFactory);
+        this.notifier = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(NOTIFY_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "vehicle-reservation-notifier");
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
     /**
@@ -77,6 +106,48 @@ public class ExternalVehicleService {
         }
     }
 
+    /**
+     * Tell the Vehicles microservice that a vehicle was reserved, for its
+     * demand heatmap. Returns at once: the call is made on a background
+     * thread with short connect/read timeouts and authenticated with the
+     * shared X-Service-Key. Best effort: a failure, or a full queue when the
+     * Vehicles service is slow, is logged and never fails the reservation.
+     * 
+     * @param vehicleId     the reserved vehicle ID
+     * @param reservationId the saved reservation ID, so the Vehicles service
+     *                      counts a repeated call only once
+     */
+    public void notifyVehicleReserved(Long vehicleId, Long reservationId) {
+        try {
+            notifier.execute(() -> postReservation(vehicleId, reservationId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Notification queue full, reservation {} of vehicle {} not reported to vehicles service",
+                    reservationId, vehicleId);
+        }
+    }
+
+    private void postReservation(Long vehicleId, Long reservationId) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Service-Key", serviceKey);
+
+            String url = vehiclesServiceUrl + "/api/v1/vehicles/" + vehicleId + "/reservations";
+            notifyRestTemplate.exchange(url, HttpMethod.POST,
+                    new HttpEntity<>(Map.of("reservationId", reservationId), headers), Void.class);
+            logger.debug("Notified vehicles service of reservation {} of vehicle {}", reservationId, vehicleId);
+
+        } catch (Exception e) {
+            logger.warn("Could not notify vehicles service of reservation {} of vehicle {}: {}",
+                    reservationId, vehicleId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdown();
+    }
+
     /**
      * Extract JWT token from current HTTP request.
      * 
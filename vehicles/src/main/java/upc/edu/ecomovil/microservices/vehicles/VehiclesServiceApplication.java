@@ -3,6 +3,7 @@ package upc.edu.ecomovil.microservices.vehicles;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Vehicles Service Application
@@ -17,6 +18,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
  */
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableScheduling
 public class VehiclesServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(VehiclesServiceApplication.class, args);
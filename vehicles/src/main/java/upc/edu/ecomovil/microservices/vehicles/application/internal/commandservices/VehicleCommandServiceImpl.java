@@ -2,12 +2,15 @@ package upc.edu.ecomovil.microservices.vehicles.application.internal.commandserv
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import upc.edu.ecomovil.microservices.vehicles.application.internal.outboundservices.acl.ExternalUserService;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.CreateVehicleCommand;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.UpdateVehicleCommand;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.DeleteVehicleCommand;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
 import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleCommandService;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
 
@@ -20,10 +23,13 @@ public class VehicleCommandServiceImpl implements VehicleCommandService {
 
     private final VehicleRepository vehicleRepository;
     private final ExternalUserService externalUserService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public VehicleCommandServiceImpl(VehicleRepository vehicleRepository, ExternalUserService externalUserService) {
+    public VehicleCommandServiceImpl(VehicleRepository vehicleRepository, ExternalUserService externalUserService,
+            ApplicationEventPublisher eventPublisher) {
         this.vehicleRepository = vehicleRepository;
         this.externalUserService = externalUserService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -63,6 +69,7 @@ public class VehicleCommandServiceImpl implements VehicleCommandService {
         try {
             var vehicle = new Vehicle(command);
             var savedVehicle = vehicleRepository.save(vehicle);
+            eventPublisher.publishEvent(new VehicleSavedEvent(savedVehicle));
             logger.info("Vehicle created successfully with ID: {}", savedVehicle.getId());
             return Optional.of(savedVehicle);
         } catch (Exception e) {
@@ -114,6 +121,7 @@ public class VehicleCommandServiceImpl implements VehicleCommandService {
             }
 
             var savedVehicle = vehicleRepository.save(vehicle);
+            eventPublisher.publishEvent(new VehicleSavedEvent(savedVehicle));
             logger.info("Vehicle updated successfully with ID: {}", savedVehicle.getId());
             return Optional.of(savedVehicle);
 
@@ -135,6 +143,7 @@ public class VehicleCommandServiceImpl implements VehicleCommandService {
             }
 
             vehicleRepository.delete(vehicleOptional.get());
+            eventPublisher.publishEvent(new VehicleDeletedEvent(command.vehicleId()));
             logger.info("Vehicle with ID {} deleted successfully", command.vehicleId());
             return true;
 
@@ -0,0 +1,52 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.eventhandlers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.IoTCommandFailedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+/**
+ * Rolls back the lock state lock/unlock saved before its command was
+ * delivered, once the command is known never to have reached the device.
+ * <p>
+ * The flag is only put back while it still holds what the command asked
+ * for; a reading from the device, or a newer lock/unlock, already replaced
+ * it otherwise. Alerts an unlock cleared stay cleared: the device reports
+ * them again with its next reading.
+ * </p>
+ */
+@Service
+@Slf4j
+public class IoTCommandFailedEventHandler {
+
+    private final VehicleRepository vehicleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public IoTCommandFailedEventHandler(VehicleRepository vehicleRepository,
+            ApplicationEventPublisher eventPublisher) {
+        this.vehicleRepository = vehicleRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener
+    public void on(IoTCommandFailedEvent event) {
+        boolean lock = "LOCK".equals(event.command());
+        if (event.vehicleId() == null || !lock && !"UNLOCK".equals(event.command())) {
+            log.warn("{} command never reached device {}", event.command(), event.deviceId());
+            return;
+        }
+        var vehicleOptional = vehicleRepository.findById(event.vehicleId());
+        if (vehicleOptional.isEmpty()) return;
+
+        var vehicle = vehicleOptional.get();
+        if (Boolean.TRUE.equals(vehicle.getIsLocked()) != lock) return;
+        vehicle.restoreLockState(!lock);
+        var saved = vehicleRepository.save(vehicle);
+        eventPublisher.publishEvent(new VehicleSavedEvent(saved, VehicleSavedEvent.IoTChange.LOCK_STATE));
+        log.warn("{} never reached device {}; vehicle {} is shown {} again", event.command(), event.deviceId(),
+                event.vehicleId(), lock ? "unlocked" : "locked");
+    }
+}
@@ -0,0 +1,36 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.queryservices;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetCurrentTripQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetTripsByVehicleIdQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.services.TripQueryService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.TripRepository;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TripTracker;
+
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class TripQueryServiceImpl implements TripQueryService {
+
+    private final TripRepository tripRepository;
+    private final TripTracker tripTracker;
+
+    public TripQueryServiceImpl(TripRepository tripRepository, TripTracker tripTracker) {
+        this.tripRepository = tripRepository;
+        this.tripTracker = tripTracker;
+    }
+
+    @Override
+    public List<Trip> handle(GetTripsByVehicleIdQuery query) {
+        long beforeId = query.beforeId() != null ? query.beforeId() : Long.MAX_VALUE;
+        return tripRepository.findPageBeforeId(query.vehicleId(), beforeId, PageRequest.ofSize(query.size()));
+    }
+
+    @Override
+    public Optional<Trip> handle(GetCurrentTripQuery query) {
+        return tripTracker.current(query.vehicleId());
+    }
+}
@@ -0,0 +1,57 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.queryservices;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAlertsQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleAlertQueryService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleAlertRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads the alert log for the feed.
+ * <p>
+ * Alert ids come from an auto-increment column, so a transaction holding a
+ * lower id can commit after one holding a higher id. A page that returned
+ * the higher id first would move the client's cursor past the lower one for
+ * good. Alerts younger than {@code vehicles.alerts.feed-lag} are therefore
+ * left out of every page: by then every alert with a lower id has committed.
+ * The live SSE stream still delivers them at once.
+ * </p>
+ */
+@Service
+public class VehicleAlertQueryServiceImpl implements VehicleAlertQueryService {
+
+    private final VehicleAlertRepository vehicleAlertRepository;
+    private final Duration feedLag;
+
+    public VehicleAlertQueryServiceImpl(VehicleAlertRepository vehicleAlertRepository,
+            @Value("${vehicles.alerts.feed-lag:PT2S}") Duration feedLag) {
+        this.vehicleAlertRepository = vehicleAlertRepository;
+        this.feedLag = feedLag;
+    }
+
+    @Override
+    public List<VehicleAlert> handle(GetAlertsQuery query) {
+        var page = PageRequest.ofSize(query.size());
+        var settledBefore = Date.from(Instant.now().minus(feedLag));
+        if (query.afterId() != null) {
+            return query.ownerId() != null
+                    ? vehicleAlertRepository.findOwnerPageAfterId(query.ownerId(), query.afterId(), settledBefore,
+                            page)
+                    : vehicleAlertRepository.findPageAfterId(query.afterId(), settledBefore, page);
+        }
+        var latest = new ArrayList<>(query.ownerId() != null
+                ? vehicleAlertRepository.findOwnerLatest(query.ownerId(), settledBefore, page)
+                : vehicleAlertRepository.findLatest(settledBefore, page));
+        Collections.reverse(latest);
+        return latest;
+    }
+}
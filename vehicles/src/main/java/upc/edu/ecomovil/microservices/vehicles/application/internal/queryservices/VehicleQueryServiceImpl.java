@@ -1,34 +1,44 @@
 package upc.edu.ecomovil.microservices.vehicles.application.internal.queryservices;
 
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesByTypeQuery;
-import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetNearbyVehiclesQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehicleByIdQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesByOwnerIdQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesPageQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.StreamAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.NearbyVehicle;
 import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleQueryService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.cache.VehicleCache;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class VehicleQueryServiceImpl implements VehicleQueryService {
 
     private final VehicleRepository vehicleRepository;
+    private final EntityManager entityManager;
+    private final VehicleCache vehicleCache;
 
-    public VehicleQueryServiceImpl(VehicleRepository vehicleRepository) {
+    public VehicleQueryServiceImpl(VehicleRepository vehicleRepository, EntityManager entityManager,
+            VehicleCache vehicleCache) {
         this.vehicleRepository = vehicleRepository;
-    }
-
-    @Override
-    public List<Vehicle> handle(GetAllVehiclesQuery query) {
-        return vehicleRepository.findAll();
+        this.entityManager = entityManager;
+        this.vehicleCache = vehicleCache;
     }
 
     @Override
     public Optional<Vehicle> handle(GetVehicleByIdQuery query) {
-        return vehicleRepository.findById(query.vehicleId());
+        return vehicleCache.get(query.vehicleId(), vehicleRepository::findById);
     }
 
     @Override
@@ -40,4 +50,46 @@ public class VehicleQueryServiceImpl implements VehicleQueryService {
     public List<Vehicle> handle(GetVehiclesByOwnerIdQuery query) {
         return vehicleRepository.findAllByOwnerId(query.ownerId());
     }
+
+    @Override
+    public List<Vehicle> handle(GetVehiclesPageQuery query) {
+        long afterId = query.afterId() != null ? query.afterId() : 0L;
+        return vehicleRepository.findPageAfterId(afterId, query.type(), query.isAvailable(),
+                query.minPrice(), query.maxPrice(), PageRequest.ofSize(query.size()));
+    }
+
+    @Override
+    public List<NearbyVehicle> handle(GetNearbyVehiclesQuery query) {
+        // Box around the circle; longitude degrees shrink with cos(latitude), so the
+        // half-width is taken at the box edge farthest from the equator.
+        double dLat = query.radiusKm() / Haversine.KM_PER_DEGREE;
+        double dLng = query.radiusKm() / (Haversine.KM_PER_DEGREE
+                * Math.max(Math.cos(Math.toRadians(Math.abs(query.lat()) + dLat)), 0.01));
+        var candidates = vehicleRepository.findAvailableInBoundingBox(
+                (float) (query.lat() - dLat), (float) (query.lat() + dLat),
+                (float) (query.lng() - dLng), (float) (query.lng() + dLng),
+                query.type(), query.maxRentPrice());
+
+        // Exact distance only for the handful of rows inside the box.
+        return candidates.stream()
+                .map(v -> new NearbyVehicle(v, Haversine.distanceKm(query.lat(), query.lng(), v.getLat(), v.getLng())))
+                .filter(r -> r.distanceKm() <= query.radiusKm())
+                .sorted(Comparator.comparingDouble(NearbyVehicle::distanceKm))
+                .limit(query.limit())
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void handle(StreamAllVehiclesQuery query, Consumer<Vehicle> sink) {
+        try (var vehicles = vehicleRepository.streamAllByFilter(query.type(), query.isAvailable(),
+                query.minPrice(), query.maxPrice())) {
+            // Detach as we go, otherwise the persistence context keeps every
+            // row alive until the transaction ends.
+            vehicles.forEach(vehicle -> {
+                entityManager.detach(vehicle);
+                sink.accept(vehicle);
+            });
+        }
+    }
 }
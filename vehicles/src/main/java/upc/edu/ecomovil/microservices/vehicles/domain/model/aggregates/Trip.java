@@ -0,0 +1,78 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.model.aggregates.AuditableAbstractAggregateRoot;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Summary of one ride: from the first unlocked telemetry reading to the
+ * lock (or the device going silent) that ended it.
+ */
+@Entity
+@Table(name = "trips", indexes = @Index(name = "idx_trips_vehicle", columnList = "vehicle_id, id"))
+@Getter
+@NoArgsConstructor
+public class Trip extends AuditableAbstractAggregateRoot<Trip> {
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "ended_at", nullable = false)
+    private Instant endedAt;
+
+    @Column(name = "distance_km", nullable = false)
+    private Double distanceKm;
+
+    @Column(name = "max_speed_kmh", nullable = false)
+    private Float maxSpeedKmh;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "start_lat")
+    private Float startLat;
+
+    @Column(name = "start_lng")
+    private Float startLng;
+
+    @Column(name = "end_lat")
+    private Float endLat;
+
+    @Column(name = "end_lng")
+    private Float endLng;
+
+    public Trip(Long vehicleId, Long ownerId, Instant startedAt, Instant endedAt, double distanceKm,
+            float maxSpeedKmh, int pointCount, Float startLat, Float startLng, Float endLat, Float endLng) {
+        this.vehicleId = vehicleId;
+        this.ownerId = ownerId;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.distanceKm = distanceKm;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.pointCount = pointCount;
+        this.startLat = startLat;
+        this.startLng = startLng;
+        this.endLat = endLat;
+        this.endLng = endLng;
+    }
+
+    public long getDurationSeconds() {
+        return Duration.between(startedAt, endedAt).toSeconds();
+    }
+
+    /** Distance over elapsed time, stops included. */
+    public double getAvgSpeedKmh() {
+        long seconds = getDurationSeconds();
+        return seconds > 0 ? distanceKm / (seconds / 3600.0) : 0.0;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.CreateVehicleCommand;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Details;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Geofence;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Prices;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Review;
 import upc.edu.ecomovil.microservices.vehicles.shared.domain.model.aggregates.AuditableAbstractAggregateRoot;
@@ -73,9 +74,17 @@ public class Vehicle extends AuditableAbstractAggregateRoot<Vehicle> {
     @Column(name = "geofence_radius_m")
     private Integer geofenceRadiusM;
 
+    /** Polygon fence as {@code lat,lng;lat,lng;...}; when set it replaces the circle. */
+    @Column(name = "geofence_polygon", length = 4000)
+    private String geofencePolygon;
+
     @Column(name = "geofence_breached")
     private Boolean geofenceBreached = false;
 
+    // Parsed fence, rebuilt lazily after load or after the fence changes.
+    @Transient
+    private Geofence geofence;
+
     public Vehicle(String type, String name, Integer year, Integer review, Double priceRent, Double priceSell,
             Boolean isAvailable, String imageUrl, Float lat, Float lng, String description, Long ownerId) {
         this.details = new Details(type, name, year);
@@ -151,6 +160,19 @@ public class Vehicle extends AuditableAbstractAggregateRoot<Vehicle> {
         this.geofenceCenterLat = centerLat;
         this.geofenceCenterLng = centerLng;
         this.geofenceRadiusM   = radiusM;
+        this.geofencePolygon   = null;
+        this.geofence          = null;
+        if (this.lat != null && this.lng != null) {
+            this.geofenceBreached = computeGeofenceBreach(this.lat, this.lng);
+        }
+    }
+
+    public void setGeofence(Geofence.Polygon polygon) {
+        this.geofenceCenterLat = null;
+        this.geofenceCenterLng = null;
+        this.geofenceRadiusM   = null;
+        this.geofencePolygon   = polygon.encode();
+        this.geofence          = polygon;
         if (this.lat != null && this.lng != null) {
             this.geofenceBreached = computeGeofenceBreach(this.lat, this.lng);
         }
@@ -168,16 +190,24 @@ public class Vehicle extends AuditableAbstractAggregateRoot<Vehicle> {
         this.lastIotUpdate = Instant.now();
     }
 
+    /**
+     * Puts back the lock state a command that never reached the device had
+     * replaced; alerts and the IoT timestamp are left alone.
+     */
+    public void restoreLockState(Boolean locked) {
+        this.isLocked = locked;
+    }
+
     private boolean computeGeofenceBreach(float lat, float lng) {
-        if (geofenceCenterLat == null || geofenceCenterLng == null || geofenceRadiusM == null) return false;
-        double R = 6371000.0;
-        double dLat = Math.toRadians(lat - geofenceCenterLat);
-        double dLng = Math.toRadians(lng - geofenceCenterLng);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                 + Math.cos(Math.toRadians(geofenceCenterLat)) * Math.cos(Math.toRadians(lat))
-                   * Math.sin(dLng / 2) * Math.sin(dLng / 2);
-        double dist = R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return dist > geofenceRadiusM;
+        Geofence geofence = getGeofence();
+        return geofence != null && geofence.isBreachedBy(lat, lng);
+    }
+
+    public Geofence getGeofence() {
+        if (geofence == null) {
+            geofence = Geofence.of(geofenceCenterLat, geofenceCenterLng, geofenceRadiusM, geofencePolygon);
+        }
+        return geofence;
     }
 
     // Getters for embedded value objects
@@ -0,0 +1,53 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.model.aggregates.AuditableAbstractAggregateRoot;
+
+import java.time.Instant;
+
+/**
+ * One entry of the append-only alert log: a fall, panic or geofence
+ * transition of a vehicle. The id orders the log and is the feed cursor.
+ */
+@Entity
+@Table(name = "vehicle_alerts", indexes = {
+        @Index(name = "idx_vehicle_alerts_owner", columnList = "owner_id, id"),
+        @Index(name = "idx_vehicle_alerts_vehicle", columnList = "vehicle_id, id") })
+@Getter
+@NoArgsConstructor
+public class VehicleAlert extends AuditableAbstractAggregateRoot<VehicleAlert> {
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "device_id")
+    private String deviceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private AlertType type;
+
+    private Float lat;
+
+    private Float lng;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public VehicleAlert(Long vehicleId, Long ownerId, String deviceId, AlertType type, Float lat, Float lng,
+            Instant occurredAt) {
+        this.vehicleId = vehicleId;
+        this.ownerId = ownerId;
+        this.deviceId = deviceId;
+        this.type = type;
+        this.lat = lat;
+        this.lng = lng;
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,27 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.commands;
+
+import java.time.Instant;
+
+/**
+ * One reading reported by a vehicle's IoT device.
+ *
+ * @param recordedAt when the producer took the reading, the same timestamp it
+ *                   stores in DynamoDB; null if it did not send one, in which
+ *                   case the time of arrival is used
+ */
+public record RecordTelemetryCommand(
+        Long vehicleId,
+        String deviceId,
+        Float lat,
+        Float lng,
+        boolean fallDetected,
+        boolean isLocked,
+        Float speedKmh,
+        boolean panicActive,
+        Instant recordedAt) {
+
+    public RecordTelemetryCommand(Long vehicleId, String deviceId, Float lat, Float lng, boolean fallDetected,
+            boolean isLocked, Float speedKmh, boolean panicActive) {
+        this(vehicleId, deviceId, lat, lng, fallDetected, isLocked, speedKmh, panicActive, null);
+    }
+}
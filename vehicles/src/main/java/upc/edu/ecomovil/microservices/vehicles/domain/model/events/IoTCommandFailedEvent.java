@@ -0,0 +1,12 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import java.time.Instant;
+
+/**
+ * Published when a device command (LOCK, UNLOCK, GEOFENCE) is dropped after
+ * exhausting its retries without a newer one replacing it: the device never
+ * got it. {@code vehicleId} is set when the command's lock state had already
+ * been saved on that vehicle, null otherwise.
+ */
+public record IoTCommandFailedEvent(Long vehicleId, String deviceId, String command, Instant failedAt) {
+}
@@ -0,0 +1,20 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+
+import java.time.Instant;
+
+/**
+ * Published after an alert has been appended to the alert log; {@code id} is
+ * its position in the log.
+ */
+public record VehicleAlertRecordedEvent(
+        Long id,
+        Long vehicleId,
+        Long ownerId,
+        String deviceId,
+        AlertType type,
+        Float lat,
+        Float lng,
+        Instant occurredAt) {
+}
@@ -0,0 +1,20 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+
+import java.time.Instant;
+
+/**
+ * Published when a vehicle's fall, panic or geofence state changes, see
+ * {@link AlertType}. Not yet in the alert log, see
+ * {@link VehicleAlertRecordedEvent}.
+ */
+public record VehicleAlertTransitionEvent(
+        Long vehicleId,
+        Long ownerId,
+        String deviceId,
+        AlertType type,
+        Float lat,
+        Float lng,
+        Instant occurredAt) {
+}
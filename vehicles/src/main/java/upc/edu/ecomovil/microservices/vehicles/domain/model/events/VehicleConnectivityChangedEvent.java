@@ -0,0 +1,15 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import java.time.Instant;
+
+/**
+ * Published when a vehicle's IoT device stops reporting for longer than the
+ * offline timeout ({@code online == false}) and when it reports again.
+ */
+public record VehicleConnectivityChangedEvent(
+        Long vehicleId,
+        Long ownerId,
+        String deviceId,
+        boolean online,
+        Instant lastSeen) {
+}
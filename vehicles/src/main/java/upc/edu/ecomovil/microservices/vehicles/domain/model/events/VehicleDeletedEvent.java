@@ -0,0 +1,7 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+/**
+ * Published after a vehicle has been deleted.
+ */
+public record VehicleDeletedEvent(Long vehicleId) {
+}
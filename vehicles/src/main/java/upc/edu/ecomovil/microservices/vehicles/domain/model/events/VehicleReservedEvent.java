@@ -0,0 +1,10 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import java.time.Instant;
+
+/**
+ * Published when the reservations service reports a reservation of the
+ * vehicle. The same {@code reservationId} may be reported more than once.
+ */
+public record VehicleReservedEvent(Long vehicleId, Long reservationId, Instant reservedAt) {
+}
@@ -0,0 +1,37 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+
+import java.util.Set;
+
+/**
+ * Published after a vehicle has been created or any of its columns has been
+ * written, so in-memory views of the fleet can refresh that one vehicle.
+ * <p>
+ * {@code iotChanges} names the IoT columns the save set on purpose. The
+ * other IoT columns of {@code vehicle} may be older than the live telemetry
+ * state and must not overwrite it.
+ * </p>
+ */
+public record VehicleSavedEvent(Vehicle vehicle, Set<IoTChange> iotChanges) {
+
+    /**
+     * IoT columns a save can change.
+     */
+    public enum IoTChange {
+        /** isLocked */
+        LOCK_STATE,
+        /** Fall, panic and geofence breach cleared, as an unlock does */
+        ALERTS_RESET,
+        /** The geofence and, with it, the breach flag */
+        GEOFENCE
+    }
+
+    public VehicleSavedEvent(Vehicle vehicle) {
+        this(vehicle, Set.of());
+    }
+
+    public VehicleSavedEvent(Vehicle vehicle, IoTChange... iotChanges) {
+        this(vehicle, Set.of(iotChanges));
+    }
+}
@@ -0,0 +1,10 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import java.util.List;
+
+/**
+ * Published after buffered telemetry for these vehicles has been written to
+ * MySQL.
+ */
+public record VehicleTelemetryFlushedEvent(List<Long> vehicleIds) {
+}
@@ -0,0 +1,23 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.events;
+
+import java.time.Instant;
+
+/**
+ * Published for every accepted telemetry reading with the vehicle's live IoT
+ * state after applying it. The reading may not be in MySQL yet, see
+ * {@link VehicleTelemetryFlushedEvent}.
+ */
+public record VehicleTelemetryRecordedEvent(
+        Long vehicleId,
+        Long ownerId,
+        String deviceId,
+        Float lat,
+        Float lng,
+        boolean isAvailable,
+        boolean isLocked,
+        boolean fallDetected,
+        boolean panicActive,
+        float speedKmh,
+        boolean geofenceBreached,
+        Instant recordedAt) {
+}
@@ -0,0 +1,9 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
+
+/**
+ * Keyset page of the alert log, oldest first: alerts with id greater than
+ * {@code afterId}, or the latest {@code size} alerts when it is null. Only
+ * alerts of {@code ownerId}'s vehicles, or of every vehicle when null.
+ */
+public record GetAlertsQuery(Long ownerId, Long afterId, int size) {
+}
@@ -1,4 +1,4 @@
 package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
 
-public record GetAllVehiclesQuery() {
+public record GetCurrentTripQuery(Long vehicleId) {
 }
@@ -0,0 +1,14 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
+
+/**
+ * Available vehicles within {@code radiusKm} of a point, nearest first.
+ * Null filters are ignored.
+ */
+public record GetNearbyVehiclesQuery(
+        double lat,
+        double lng,
+        double radiusKm,
+        String type,
+        Double maxRentPrice,
+        int limit) {
+}
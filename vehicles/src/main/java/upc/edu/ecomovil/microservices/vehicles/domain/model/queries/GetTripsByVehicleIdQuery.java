@@ -0,0 +1,8 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
+
+/**
+ * Keyset page of a vehicle's completed trips, newest first: trips with id
+ * lower than {@code beforeId} (all of them when null).
+ */
+public record GetTripsByVehicleIdQuery(Long vehicleId, Long beforeId, int size) {
+}
@@ -0,0 +1,15 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
+
+/**
+ * Keyset page of the vehicle catalog: vehicles with id greater than
+ * {@code afterId}, ordered by id. Null filters are ignored; the price range
+ * applies to the sale price.
+ */
+public record GetVehiclesPageQuery(
+        Long afterId,
+        int size,
+        String type,
+        Boolean isAvailable,
+        Double minPrice,
+        Double maxPrice) {
+}
@@ -0,0 +1,13 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.queries;
+
+/**
+ * Whole filtered vehicle catalog, consumed row by row instead of loaded
+ * into a list. Null filters are ignored; the price range applies to the
+ * sale price.
+ */
+public record StreamAllVehiclesQuery(
+        String type,
+        Boolean isAvailable,
+        Double minPrice,
+        Double maxPrice) {
+}
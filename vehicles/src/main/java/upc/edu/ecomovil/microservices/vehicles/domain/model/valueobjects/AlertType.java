@@ -0,0 +1,17 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+/**
+ * Safety alert transitions recorded in the alert log.
+ */
+public enum AlertType {
+    /** The device reported a fall. */
+    FALL_DETECTED,
+    /** The panic button was pressed; stays active until the alerts are reset. */
+    PANIC_RAISED,
+    /** The vehicle left its geofence. */
+    GEOFENCE_BREACHED,
+    /** The vehicle is back inside its geofence. */
+    GEOFENCE_RETURNED,
+    /** Fall, panic and geofence flags were cleared by an unlock. */
+    ALERTS_RESET
+}
@@ -0,0 +1,187 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Owner-defined area a vehicle is expected to stay inside: either a circle or
+ * a polygon. Instances precompute everything that does not depend on the
+ * vehicle position, so {@link #isBreachedBy} stays cheap on the telemetry
+ * hot path.
+ */
+public sealed interface Geofence permits Geofence.Circle, Geofence.Polygon {
+
+    boolean isBreachedBy(double lat, double lng);
+
+    /**
+     * The circle configured by the three nullable geofence columns, or null
+     * when any of them is missing.
+     */
+    static Geofence of(Float centerLat, Float centerLng, Integer radiusM) {
+        if (centerLat == null || centerLng == null || radiusM == null) return null;
+        return new Circle(centerLat, centerLng, radiusM);
+    }
+
+    /**
+     * The fence stored in the geofence columns. A polygon, when present, wins
+     * over the circle columns.
+     */
+    static Geofence of(Float centerLat, Float centerLng, Integer radiusM, String polygon) {
+        if (polygon != null && !polygon.isBlank()) return Polygon.parse(polygon);
+        return of(centerLat, centerLng, radiusM);
+    }
+
+    /**
+     * Circular fence. Positions are first compared on a local equirectangular
+     * projection around the centre; only points within a thin band around the
+     * radius, where that approximation could be wrong, pay for a Haversine.
+     */
+    record Circle(double centerLat, double centerLng, int radiusM,
+            double cosCenterLat, double innerDeg2, double outerDeg2, boolean approximate) implements Geofence {
+
+        // Beyond these the projection error band gets too wide to be useful.
+        private static final double MAX_APPROXIMATE_RADIUS_M = 200_000;
+        private static final double MAX_APPROXIMATE_LAT = 80;
+
+        public Circle(double centerLat, double centerLng, int radiusM) {
+            this(centerLat, centerLng, radiusM, Math.cos(Math.toRadians(centerLat)),
+                    band(centerLat, radiusM, -1), band(centerLat, radiusM, 1),
+                    radiusM <= MAX_APPROXIMATE_RADIUS_M && Math.abs(centerLat) <= MAX_APPROXIMATE_LAT);
+        }
+
+        /**
+         * Squared radius in degrees of latitude, shrunk (sign -1) or grown
+         * (sign 1) by the worst-case error of the projection inside the fence:
+         * the change of cos(lat) across the circle plus a small constant for
+         * the curvature terms.
+         */
+        private static double band(double centerLat, int radiusM, int sign) {
+            double radiusDeg = radiusM / (Haversine.KM_PER_DEGREE * 1000);
+            double farthestLat = Math.min(Math.abs(centerLat) + 2 * radiusDeg, 89);
+            double margin = 0.002 + 3 * Math.toRadians(radiusDeg) * Math.abs(Math.tan(Math.toRadians(farthestLat)));
+            double r = radiusDeg * (1 + sign * margin);
+            return r > 0 ? r * r : 0;
+        }
+
+        @Override
+        public boolean isBreachedBy(double lat, double lng) {
+            if (approximate) {
+                double dLat = lat - centerLat;
+                double dLng = lng - centerLng;
+                if (dLng > 180) dLng -= 360;
+                else if (dLng < -180) dLng += 360;
+                double x = dLng * cosCenterLat;
+                double d2 = dLat * dLat + x * x;
+                if (d2 <= innerDeg2) return false;
+                if (d2 > outerDeg2) return true;
+            }
+            return Haversine.distanceKm(centerLat, centerLng, lat, lng) * 1000 > radiusM;
+        }
+    }
+
+    /**
+     * Polygon fence over lat/lng vertices, treated as a planar polygon (fine
+     * at city scale; must not cross the antimeridian). Points outside the
+     * bounding box are rejected before the even-odd crossing test.
+     */
+    final class Polygon implements Geofence {
+
+        public static final int MAX_VERTICES = 100;
+
+        private final double[] lats;
+        private final double[] lngs;
+        private final double minLat;
+        private final double maxLat;
+        private final double minLng;
+        private final double maxLng;
+
+        public Polygon(double[] lats, double[] lngs) {
+            if (lats.length != lngs.length) {
+                throw new IllegalArgumentException("Polygon needs as many latitudes as longitudes");
+            }
+            if (lats.length < 3 || lats.length > MAX_VERTICES) {
+                throw new IllegalArgumentException("Polygon needs between 3 and " + MAX_VERTICES + " vertices");
+            }
+            for (int i = 0; i < lats.length; i++) {
+                if (Math.abs(lats[i]) > 90 || Math.abs(lngs[i]) > 180) {
+                    throw new IllegalArgumentException("Polygon vertex out of range: " + lats[i] + "," + lngs[i]);
+                }
+            }
+            this.lats = lats.clone();
+            this.lngs = lngs.clone();
+            this.minLat = Arrays.stream(lats).min().orElseThrow();
+            this.maxLat = Arrays.stream(lats).max().orElseThrow();
+            this.minLng = Arrays.stream(lngs).min().orElseThrow();
+            this.maxLng = Arrays.stream(lngs).max().orElseThrow();
+        }
+
+        /**
+         * Parses the {@code lat,lng;lat,lng;...} form stored in the
+         * geofence_polygon column.
+         */
+        public static Polygon parse(String encoded) {
+            String[] vertices = encoded.trim().split(";");
+            double[] lats = new double[vertices.length];
+            double[] lngs = new double[vertices.length];
+            for (int i = 0; i < vertices.length; i++) {
+                String[] parts = vertices[i].split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Malformed polygon vertex: " + vertices[i]);
+                }
+                lats[i] = Double.parseDouble(parts[0].trim());
+                lngs[i] = Double.parseDouble(parts[1].trim());
+            }
+            return new Polygon(lats, lngs);
+        }
+
+        public String encode() {
+            var sb = new StringBuilder();
+            for (int i = 0; i < lats.length; i++) {
+                if (i > 0) sb.append(';');
+                sb.append(String.format(Locale.ROOT, "%.6f,%.6f", lats[i], lngs[i]));
+            }
+            return sb.toString();
+        }
+
+        public int size() {
+            return lats.length;
+        }
+
+        public double latAt(int i) {
+            return lats[i];
+        }
+
+        public double lngAt(int i) {
+            return lngs[i];
+        }
+
+        @Override
+        public boolean isBreachedBy(double lat, double lng) {
+            return !contains(lat, lng);
+        }
+
+        public boolean contains(double lat, double lng) {
+            if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) return false;
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Polygon other && Arrays.equals(lats, other.lats) && Arrays.equals(lngs, other.lngs);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(lats) + Arrays.hashCode(lngs);
+        }
+    }
+}
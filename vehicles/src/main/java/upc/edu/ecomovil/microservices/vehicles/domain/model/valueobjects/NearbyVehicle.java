@@ -0,0 +1,9 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+
+/**
+ * A vehicle found around a point, with its Haversine distance from it.
+ */
+public record NearbyVehicle(Vehicle vehicle, double distanceKm) {
+}
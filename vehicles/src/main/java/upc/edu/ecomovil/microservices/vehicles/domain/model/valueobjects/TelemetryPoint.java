@@ -0,0 +1,15 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+/**
+ * One historical telemetry reading. {@code ts} is epoch milliseconds; lat/lng
+ * are null when the reading carried no position.
+ */
+public record TelemetryPoint(
+        long ts,
+        Float lat,
+        Float lng,
+        float speedKmh,
+        boolean isLocked,
+        boolean fallDetected,
+        boolean panicActive) {
+}
@@ -0,0 +1,18 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.services;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetCurrentTripQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetTripsByVehicleIdQuery;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TripQueryService {
+    List<Trip> handle(GetTripsByVehicleIdQuery query);
+
+    /**
+     * The trip in progress so far, not persisted (null id); empty when the
+     * vehicle is not on a trip.
+     */
+    Optional<Trip> handle(GetCurrentTripQuery query);
+}
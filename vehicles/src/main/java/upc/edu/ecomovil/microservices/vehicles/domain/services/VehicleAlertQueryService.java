@@ -0,0 +1,10 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.services;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAlertsQuery;
+
+import java.util.List;
+
+public interface VehicleAlertQueryService {
+    List<VehicleAlert> handle(GetAlertsQuery query);
+}
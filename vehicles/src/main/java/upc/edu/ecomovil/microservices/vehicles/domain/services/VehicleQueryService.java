@@ -2,19 +2,40 @@ package upc.edu.ecomovil.microservices.vehicles.domain.services;
 
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesByTypeQuery;
-import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetNearbyVehiclesQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehicleByIdQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesByOwnerIdQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesPageQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.StreamAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.NearbyVehicle;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface VehicleQueryService {
-    List<Vehicle> handle(GetAllVehiclesQuery query);
-
+    /**
+     * The vehicle, possibly served from a cache shared by all readers: it is
+     * read-only. Load it from the repository to modify it.
+     */
     Optional<Vehicle> handle(GetVehicleByIdQuery query);
 
     List<Vehicle> handle(GetAllVehiclesByTypeQuery query);
 
     List<Vehicle> handle(GetVehiclesByOwnerIdQuery query);
+
+    List<Vehicle> handle(GetVehiclesPageQuery query);
+
+    /**
+     * Matching vehicles with their distance from the query point, nearest
+     * first, at most {@code query.limit()} of them.
+     */
+    List<NearbyVehicle> handle(GetNearbyVehiclesQuery query);
+
+    /**
+     * Pushes every matching vehicle to {@code sink} in id order without
+     * holding the whole result in memory. Vehicles are detached before they
+     * reach the sink.
+     */
+    void handle(StreamAllVehiclesQuery query, Consumer<Vehicle> sink);
 }
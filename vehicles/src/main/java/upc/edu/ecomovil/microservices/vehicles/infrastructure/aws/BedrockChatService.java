@@ -2,17 +2,26 @@ package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
 import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
 import software.amazon.awssdk.services.bedrockruntime.model.*;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatModel;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Sales chatbot backed by Amazon Nova Micro (cheapest Bedrock text model)
@@ -21,16 +30,24 @@ import java.util.Map;
  * hallucinate vehicles or prices that don't exist.
  */
 @Service
+@ConditionalOnProperty(name = "vehicles.chat.model", havingValue = "bedrock", matchIfMissing = true)
 @Slf4j
-public class BedrockChatService {
+public class BedrockChatService implements ChatModel {
 
     private static final String MODEL_ID = "amazon.nova-micro-v1:0";
+    private static final String GUARDRAIL_REPLY =
+            "Lo siento, no puedo ayudar con eso. Pregúntame sobre vehículos disponibles en EcoMovil.";
+    private static final InferenceConfiguration INFERENCE = InferenceConfiguration.builder()
+            .maxTokens(200).temperature(0.4f).build();
     private final BedrockRuntimeClient bedrockClient;
+    // Streaming replies need the async client (Netty, non-blocking).
+    private final BedrockRuntimeAsyncClient bedrockAsyncClient;
     private final String guardrailId;
     private final String guardrailVersion;
 
     public BedrockChatService(@Value("${aws.bedrock.guardrail-secret:/ecomovil/bedrock-guardrail}") String secretName) {
         this.bedrockClient = BedrockRuntimeClient.builder().region(Region.US_EAST_1).build();
+        this.bedrockAsyncClient = BedrockRuntimeAsyncClient.builder().region(Region.US_EAST_1).build();
 
         String id = "";
         String version = "";
@@ -48,10 +65,94 @@ public class BedrockChatService {
         this.guardrailVersion = version;
     }
 
-    public record ChatTurn(String role, String text) {
+    @Override
+    public Optional<String> chat(String userMessage, List<Vehicle> candidates, String userName, List<ChatTurn> history) {
+        var request = ConverseRequest.builder()
+                .modelId(MODEL_ID)
+                .system(SystemContentBlock.builder().text(systemPrompt(candidates, userName)).build())
+                .messages(messages(userMessage, history))
+                .inferenceConfig(INFERENCE);
+
+        if (!guardrailId.isBlank()) {
+            request.guardrailConfig(GuardrailConfiguration.builder()
+                    .guardrailIdentifier(guardrailId)
+                    .guardrailVersion(guardrailVersion)
+                    .trace(GuardrailTrace.ENABLED)
+                    .build());
+        }
+
+        try {
+            var response = bedrockClient.converse(request.build());
+            if (response.stopReason() == StopReason.GUARDRAIL_INTERVENED) {
+                return Optional.of(GUARDRAIL_REPLY);
+            }
+            return Optional.of(response.output().message().content().get(0).text());
+        } catch (Exception e) {
+            log.error("Bedrock chat failed: {}", e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Chunks arrive on an SDK thread; when the guardrail intervened the
+     * future holds the refusal text instead of what was streamed.
+     */
+    @Override
+    public CompletableFuture<Optional<String>> chatStream(String userMessage, List<Vehicle> candidates,
+            String userName, List<ChatTurn> history, Consumer<String> onText) {
+        var request = ConverseStreamRequest.builder()
+                .modelId(MODEL_ID)
+                .system(SystemContentBlock.builder().text(systemPrompt(candidates, userName)).build())
+                .messages(messages(userMessage, history))
+                .inferenceConfig(INFERENCE);
+
+        if (!guardrailId.isBlank()) {
+            // SYNC: chunks are checked by the guardrail before they are sent.
+            request.guardrailConfig(GuardrailStreamConfiguration.builder()
+                    .guardrailIdentifier(guardrailId)
+                    .guardrailVersion(guardrailVersion)
+                    .trace(GuardrailTrace.ENABLED)
+                    .streamProcessingMode(GuardrailStreamProcessingMode.SYNC)
+                    .build());
+        }
+
+        // Stream events are delivered one at a time, each after the previous one.
+        var reply = new StringBuffer();
+        var stopReason = new AtomicReference<StopReason>();
+        var handler = ConverseStreamResponseHandler.builder()
+                .subscriber(ConverseStreamResponseHandler.Visitor.builder()
+                        .onContentBlockDelta(event -> {
+                            String text = event.delta().text();
+                            if (text == null || text.isEmpty()) return;
+                            reply.append(text);
+                            onText.accept(text);
+                        })
+                        .onMessageStop(event -> stopReason.set(event.stopReason()))
+                        .build())
+                .build();
+
+        CompletableFuture<Void> call;
+        try {
+            call = bedrockAsyncClient.converseStream(request.build(), handler);
+        } catch (Exception e) {
+            log.error("Bedrock chat stream failed: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Optional<String>> result = call.handle((ignored, e) -> {
+            if (e != null) {
+                log.error("Bedrock chat stream failed: {}", e.getMessage(), e);
+                return Optional.empty();
+            }
+            return Optional.of(stopReason.get() == StopReason.GUARDRAIL_INTERVENED ? GUARDRAIL_REPLY : reply.toString());
+        });
+        result.whenComplete((ignored, e) -> {
+            if (e instanceof CancellationException) call.cancel(true);
+        });
+        return result;
     }
 
-    public String chat(String userMessage, List<Vehicle> candidates, String userName, List<ChatTurn> history) {
+    private static String systemPrompt(List<Vehicle> candidates, String userName) {
         String catalog = candidates.isEmpty() ? "No hay vehiculos disponibles ahora."
                 : candidates.stream()
                         .map(v -> String.format("- [vid:%d] %s %s (%d), venta S/%.0f, renta S/%.0f/dia",
@@ -60,7 +161,7 @@ public class BedrockChatService {
 
         String greeting = (userName == null || userName.isBlank()) ? "" : " El usuario se llama " + userName + ".";
 
-        String system = "Eres el asistente de ventas de EcoMovil, un marketplace de vehiculos ecologicos "
+        return "Eres el asistente de ventas de EcoMovil, un marketplace de vehiculos ecologicos "
                 + "(bicicletas, scooters, monopatines, rollskaters) para estudiantes en Lima." + greeting
                 + " Responde SOLO sobre los vehiculos de esta lista (ya pre-filtrada), nunca inventes otros:\n"
                 + catalog
@@ -74,9 +175,11 @@ public class BedrockChatService {
                 + "REGLA 3: si el usuario NO especifico presupuesto, aplica REGLA 2 pero elige el vehiculo "
                 + "con el MENOR precio de venta — son estudiantes con presupuesto limitado.\n"
                 + "Se breve (maximo 60 palabras), en español.";
+    }
 
-        // ponytail: no DB-backed session — frontend resends the last few turns each call.
-        var messages = new java.util.ArrayList<Message>();
+    private static List<Message> messages(String userMessage, List<ChatTurn> history) {
+        // history is the session's kept window (ChatSession), which always starts with a user turn.
+        var messages = new ArrayList<Message>();
         if (history != null) {
             for (ChatTurn t : history) {
                 messages.add(Message.builder()
@@ -89,30 +192,6 @@ public class BedrockChatService {
                 .role(ConversationRole.USER)
                 .content(ContentBlock.builder().text(userMessage).build())
                 .build());
-
-        var request = ConverseRequest.builder()
-                .modelId(MODEL_ID)
-                .system(SystemContentBlock.builder().text(system).build())
-                .messages(messages)
-                .inferenceConfig(InferenceConfiguration.builder().maxTokens(200).temperature(0.4f).build());
-
-        if (!guardrailId.isBlank()) {
-            request.guardrailConfig(GuardrailConfiguration.builder()
-                    .guardrailIdentifier(guardrailId)
-                    .guardrailVersion(guardrailVersion)
-                    .trace(GuardrailTrace.ENABLED)
-                    .build());
-        }
-
-        try {
-            var response = bedrockClient.converse(request.build());
-            if (response.stopReason() == StopReason.GUARDRAIL_INTERVENED) {
-                return "Lo siento, no puedo ayudar con eso. Pregúntame sobre vehículos disponibles en EcoMovil.";
-            }
-            return response.output().message().content().get(0).text();
-        } catch (Exception e) {
-            log.error("Bedrock chat failed: {}", e.getMessage(), e);
-            return "No pude procesar tu mensaje, intenta de nuevo en un momento.";
-        }
+        return messages;
     }
 }
@@ -0,0 +1,251 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClient;
+import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+import software.amazon.awssdk.services.iotdataplane.model.PublishResponse;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers device commands to AWS IoT Core off the request thread.
+ * <p>
+ * Each device has its own queue with one pending command per {@link Slot}: a
+ * newer command replaces a pending one of the same slot (UNLOCK after a LOCK
+ * that has not gone out yet, a second geofence update), so a device only
+ * ever receives its latest intent and the queue cannot grow past the number
+ * of slots. Commands of one device are published one at a time, in order,
+ * through the async client; failures are retried with exponential backoff
+ * and full jitter unless a newer command for the same slot arrived meanwhile.
+ * A command that exhausts its retries is dropped and its {@code onDropped}
+ * callback runs, so the sender can undo what it recorded as sent.
+ * </p>
+ */
+@Component
+@Slf4j
+public class IoTCommandDispatcher {
+
+    /**
+     * Commands that supersede each other.
+     */
+    public enum Slot {
+        /** LOCK and UNLOCK */
+        LOCK_STATE,
+        /** Geofence set or clear */
+        GEOFENCE
+    }
+
+    // A payload with what to do if it is dropped after max-attempts.
+    private record Command(String payload, Runnable onDropped) {
+    }
+
+    private final IotDataPlaneAsyncClient client;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final ScheduledExecutorService retryScheduler;
+    private final ConcurrentHashMap<String, DeviceQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter coalesced;
+    private final Counter failed;
+
+    @Autowired
+    public IoTCommandDispatcher(@Value("${aws.iot.endpoint}") String iotEndpoint,
+            @Value("${vehicles.iot.commands.max-attempts:5}") int maxAttempts,
+            @Value("${vehicles.iot.commands.backoff-base:PT0.2S}") Duration backoffBase,
+            @Value("${vehicles.iot.commands.backoff-max:PT5S}") Duration backoffMax,
+            MeterRegistry meterRegistry) {
+        // Retries are ours: the SDK's own would keep retrying a superseded command.
+        this(IotDataPlaneAsyncClient.builder()
+                .endpointOverride(URI.create("https://" + iotEndpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(o -> o.retryStrategy(AwsRetryStrategy.doNotRetry()))
+                .build(), maxAttempts, backoffBase, backoffMax, meterRegistry);
+        log.info("IoTCommandDispatcher initialised with endpoint: {}", iotEndpoint);
+    }
+
+    IoTCommandDispatcher(IotDataPlaneAsyncClient client, int maxAttempts, Duration backoffBase, Duration backoffMax,
+            MeterRegistry meterRegistry) {
+        this.client = client;
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMs = backoffBase.toMillis();
+        this.backoffMaxMs = backoffMax.toMillis();
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "iot-command-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coalesced = Counter.builder("vehicles.iot.commands.coalesced")
+                .description("IoT commands replaced by a newer command before being published")
+                .register(meterRegistry);
+        this.failed = Counter.builder("vehicles.iot.commands.failed")
+                .description("IoT commands dropped after exhausting their retries")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.iot.commands.queued", queued, AtomicInteger::get)
+                .description("IoT commands waiting to be published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues {@code payload} for the device and returns immediately. Replaces
+     * a command of the same slot that has not been published yet.
+     */
+    public void dispatch(String deviceId, String topic, Slot slot, String payload) {
+        dispatch(deviceId, topic, slot, payload, () -> {
+        });
+    }
+
+    /**
+     * Same as {@link #dispatch(String, String, Slot, String)}; {@code onDropped}
+     * runs on a dispatcher thread if the command is dropped after
+     * max-attempts. It does not run for a command replaced by a newer one.
+     */
+    public void dispatch(String deviceId, String topic, Slot slot, String payload, Runnable onDropped) {
+        var command = new Command(payload, onDropped);
+        while (true) {
+            var queue = queues.computeIfAbsent(deviceId, id -> new DeviceQueue(id, topic));
+            synchronized (queue) {
+                if (queue.closed) continue; // emptied and removed meanwhile; take the new one
+                if (queue.pending.remove(slot) != null) {
+                    coalesced.increment();
+                    log.debug("IoT {} command for device {} superseded", slot, deviceId);
+                } else {
+                    queued.incrementAndGet();
+                }
+                queue.pending.put(slot, command); // re-inserted last: newest intent goes out last
+                if (queue.busy) return;
+                queue.busy = true;
+            }
+            sendNext(queue);
+            return;
+        }
+    }
+
+    /** Commands waiting for a device, not counting the one being published. */
+    public int queued(String deviceId) {
+        var queue = queues.get(deviceId);
+        if (queue == null) return 0;
+        synchronized (queue) {
+            return queue.pending.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        client.close();
+    }
+
+    private void sendNext(DeviceQueue queue) {
+        Slot slot;
+        Command command;
+        synchronized (queue) {
+            var next = queue.pending.entrySet().iterator();
+            if (!next.hasNext()) {
+                queue.busy = false;
+                queue.closed = true;
+                queues.remove(queue.deviceId, queue);
+                return;
+            }
+            var entry = next.next();
+            next.remove();
+            queued.decrementAndGet();
+            slot = entry.getKey();
+            command = entry.getValue();
+        }
+        publish(queue, slot, command, 1);
+    }
+
+    private void publish(DeviceQueue queue, Slot slot, Command command, int attempt) {
+        String payload = command.payload();
+        CompletableFuture<PublishResponse> response;
+        try {
+            response = client.publish(PublishRequest.builder()
+                    .topic(queue.topic)
+                    .qos(1)
+                    .payload(SdkBytes.fromString(payload, StandardCharsets.UTF_8))
+                    .build());
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((ok, error) -> {
+            if (error == null) {
+                log.info("IoT command published: topic={} payload={}", queue.topic, payload);
+                sendNext(queue);
+                return;
+            }
+            boolean superseded;
+            synchronized (queue) {
+                superseded = queue.pending.containsKey(slot);
+            }
+            if (superseded) {
+                log.warn("IoT publish to {} failed, a newer {} command replaces it: {}",
+                        queue.topic, slot, error.getMessage());
+                sendNext(queue);
+            } else if (attempt >= maxAttempts) {
+                failed.increment();
+                log.error("IoT publish to {} failed after {} attempts, dropping {}: {}",
+                        queue.topic, attempt, payload, error.getMessage());
+                try {
+                    command.onDropped().run();
+                } catch (RuntimeException e) {
+                    log.error("Handling dropped IoT command {} failed: {}", payload, e.getMessage());
+                }
+                sendNext(queue);
+            } else {
+                long delayMs = backoffMs(attempt);
+                log.warn("IoT publish to {} failed (attempt {}), retrying in {} ms: {}",
+                        queue.topic, attempt, delayMs, error.getMessage());
+                retryScheduler.schedule(() -> publish(queue, slot, command, attempt + 1), delayMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    // Exponential backoff with full jitter.
+    private long backoffMs(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Pending commands of one device in publish order; guarded by its own
+     * monitor. {@code busy} while a command of the device is being published
+     * or waiting for a retry.
+     */
+    private static final class DeviceQueue {
+        final String deviceId;
+        final String topic;
+        final Map<Slot, Command> pending = new LinkedHashMap<>();
+        boolean busy;
+        boolean closed;
+
+        DeviceQueue(String deviceId, String topic) {
+            this.deviceId = deviceId;
+            this.topic = topic;
+        }
+    }
+}
@@ -1,41 +1,50 @@
 package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.iotdataplane.IotDataPlaneClient;
-import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.IoTCommandFailedEvent;
 
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 
+/**
+ * Device commands over AWS IoT Core MQTT. Commands are queued, not awaited;
+ * one that never reaches the device is reported as an
+ * {@link IoTCommandFailedEvent}.
+ */
 @Service
 @Slf4j
 public class IoTCoreService {
 
-    private final IotDataPlaneClient iotClient;
+    private final IoTCommandDispatcher dispatcher;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public IoTCoreService(@Value("${aws.iot.endpoint}") String iotEndpoint) {
-        this.iotClient = IotDataPlaneClient.builder()
-                .endpointOverride(URI.create("https://" + iotEndpoint))
-                .region(Region.US_EAST_1)
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-        log.info("IoTCoreService initialised with endpoint: {}", iotEndpoint);
+    public IoTCoreService(IoTCommandDispatcher dispatcher, ApplicationEventPublisher eventPublisher) {
+        this.dispatcher = dispatcher;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Sends a LOCK or UNLOCK command to a specific device.
+     * Queues a LOCK or UNLOCK command for a specific device; a pending one not
+     * yet delivered is replaced.
      * Topic: ecomovil/commands/{deviceId}
      */
     public void sendCommand(String deviceId, String command) {
+        sendCommand(null, deviceId, command);
+    }
+
+    /**
+     * Same as {@link #sendCommand(String, String)} for a command whose lock
+     * state was already saved on vehicle {@code vehicleId}; the failure event
+     * names the vehicle so that state can be rolled back.
+     */
+    public void sendCommand(Long vehicleId, String deviceId, String command) {
         String topic   = "ecomovil/commands/" + deviceId;
         String payload = "{\"command\":\"" + command + "\"}";
-        publish(topic, payload);
-        log.info("IoT command sent: topic={} payload={}", topic, payload);
+        dispatcher.dispatch(deviceId, topic, IoTCommandDispatcher.Slot.LOCK_STATE, payload,
+                () -> eventPublisher.publishEvent(
+                        new IoTCommandFailedEvent(vehicleId, deviceId, command, Instant.now())));
+        log.info("IoT command queued: topic={} payload={}", topic, payload);
     }
 
     /**
@@ -48,8 +57,10 @@ public class IoTCoreService {
         String payload = String.format(
                 "{\"command\":\"GEOFENCE\",\"enabled\":true,\"lat\":%f,\"lng\":%f,\"radius_m\":%f}",
                 lat, lng, radiusM);
-        publish(topic, payload);
-        log.info("IoT geofence pushed to device {}: lat={} lng={} radius={}m", deviceId, lat, lng, radiusM);
+        dispatcher.dispatch(deviceId, topic, IoTCommandDispatcher.Slot.GEOFENCE, payload,
+                () -> eventPublisher.publishEvent(
+                        new IoTCommandFailedEvent(null, deviceId, "GEOFENCE", Instant.now())));
+        log.info("IoT geofence queued for device {}: lat={} lng={} radius={}m", deviceId, lat, lng, radiusM);
     }
 
     /**
@@ -58,20 +69,9 @@ public class IoTCoreService {
     public void clearGeofenceCommand(String deviceId) {
         String topic   = "ecomovil/commands/" + deviceId;
         String payload = "{\"command\":\"GEOFENCE\",\"enabled\":false,\"lat\":0,\"lng\":0,\"radius_m\":0}";
-        publish(topic, payload);
-        log.info("IoT geofence cleared on device {}", deviceId);
-    }
-
-    private void publish(String topic, String payload) {
-        try {
-            iotClient.publish(PublishRequest.builder()
-                    .topic(topic)
-                    .qos(1)
-                    .payload(SdkBytes.fromString(payload, StandardCharsets.UTF_8))
-                    .build());
-        } catch (Exception e) {
-            log.error("Failed to publish to IoT topic {}: {}", topic, e.getMessage(), e);
-            throw new RuntimeException("IoT publish failed: " + e.getMessage(), e);
-        }
+        dispatcher.dispatch(deviceId, topic, IoTCommandDispatcher.Slot.GEOFENCE, payload,
+                () -> eventPublisher.publishEvent(
+                        new IoTCommandFailedEvent(null, deviceId, "GEOFENCE", Instant.now())));
+        log.info("IoT geofence clear queued for device {}", deviceId);
     }
 }
@@ -2,53 +2,289 @@ package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryDownsampler;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryRingBuffer;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive.TelemetryArchive;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Telemetry history of one vehicle, keyed by the producer's reading time.
+ * <p>
+ * The in-memory ring and the local archive only hold what this instance
+ * ingested, so they can answer alone only while a single instance receives
+ * all the telemetry. With several instances behind the IoT bridge, set
+ * {@code vehicles.telemetry.history.serve-local=false} and every read goes
+ * to DynamoDB.
+ * </p>
+ */
 @Service
 public class TelemetryHistoryService {
 
     private static final Logger log = LoggerFactory.getLogger(TelemetryHistoryService.class);
     private static final String TABLE = "ecomovil-telemetry-history";
 
+    /**
+     * One page of a time-range query, oldest first. {@code nextCursor} is an
+     * opaque continuation token, null on the last page.
+     */
+    public record TelemetryHistoryPage(List<TelemetryPoint> points, String nextCursor) {
+    }
+
+    /**
+     * DynamoDB could not be read, so a page cannot be told apart from the
+     * end of the range.
+     */
+    public static class HistoryUnavailableException extends RuntimeException {
+        public HistoryUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static final int STREAM_PAGE_SIZE = 500;
+
     private final DynamoDbClient dynamo;
+    private final TelemetryRingBuffer ringBuffer;
+    private final TelemetryArchive archive;
+    private final boolean serveLocal;
 
-    public TelemetryHistoryService(@Value("${aws.region:us-east-1}") String region) {
-        this.dynamo = DynamoDbClient.builder()
+    @Autowired
+    public TelemetryHistoryService(@Value("${aws.region:us-east-1}") String region, TelemetryRingBuffer ringBuffer,
+            TelemetryArchive archive, @Value("${vehicles.telemetry.history.serve-local:true}") boolean serveLocal) {
+        this(DynamoDbClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .build(), ringBuffer, archive, serveLocal);
+    }
+
+    TelemetryHistoryService(DynamoDbClient dynamo, TelemetryRingBuffer ringBuffer, TelemetryArchive archive,
+            boolean serveLocal) {
+        this.dynamo = dynamo;
+        this.ringBuffer = ringBuffer;
+        this.archive = archive;
+        this.serveLocal = serveLocal;
     }
 
     /**
      * Returns the last {@code limit} telemetry records for a vehicle, newest first.
-     * DynamoDB sorts by ts (epoch ms) ascending; we reverse in-memory for the API.
+     * Readings this instance ingested recently come from the in-memory ring,
+     * older ones from the local compressed archive; DynamoDB is only queried
+     * for the part of the window that is older than what both hold.
+     */
+    public List<TelemetryPoint> getHistory(long vehicleId, int limit) {
+        if (!serveLocal) return queryNewest(vehicleId, limit, Long.MAX_VALUE);
+        var recent = ringBuffer.newest(vehicleId, limit, Long.MAX_VALUE);
+        if (recent.points().size() >= limit) {
+            log.debug("Telemetry history for vehicle {} served from memory", vehicleId);
+            return recent.points();
+        }
+
+        var points = new ArrayList<TelemetryPoint>(limit);
+        points.addAll(recent.points());
+        long completeFrom = recent.completeFrom();
+        var archived = archive.newest(vehicleId, limit - points.size(), completeFrom);
+        points.addAll(archived.points());
+        if (points.size() >= limit) {
+            log.debug("Telemetry history for vehicle {} served from the local archive", vehicleId);
+            return points;
+        }
+        completeFrom = Math.min(completeFrom, archived.completeFrom());
+        points.addAll(queryNewest(vehicleId, limit - points.size(), completeFrom));
+        return points;
+    }
+
+    /**
+     * The last {@code limit} records reduced to at most {@code points} with
+     * {@link TelemetryDownsampler#lttb}, newest first. Lets the map ask for a
+     * long window without receiving every raw reading.
+     */
+    public List<TelemetryPoint> getHistory(long vehicleId, int limit, int points) {
+        var history = getHistory(vehicleId, limit);
+        if (history.size() <= points) return history;
+        var oldestFirst = new ArrayList<>(history);
+        Collections.reverse(oldestFirst);
+        var sampled = new ArrayList<>(TelemetryDownsampler.lttb(oldestFirst, points));
+        Collections.reverse(sampled);
+        return sampled;
+    }
+
+    /**
+     * Readings with {@code fromTs <= ts <= toTs}, oldest first, one page at a
+     * time. Pass the previous page's {@code nextCursor} to continue. The range
+     * maps to a {@code ts BETWEEN} key condition, so DynamoDB reads exactly
+     * the requested items; pages the in-memory ring or the local archive
+     * fully covers skip DynamoDB altogether.
+     *
+     * @throws IllegalArgumentException    if the cursor is malformed or belongs
+     *                                     to another vehicle
+     * @throws HistoryUnavailableException if DynamoDB fails
+     */
+    public TelemetryHistoryPage getHistoryRange(long vehicleId, long fromTs, long toTs, int pageSize, String cursor) {
+        long startTs = cursor != null ? Math.max(fromTs, decodeCursor(vehicleId, cursor) + 1) : fromTs;
+        if (startTs > toTs) return new TelemetryHistoryPage(List.of(), null);
+
+        var local = serveLocal ? ringBuffer.range(vehicleId, startTs, toTs, pageSize + 1) : null;
+        if (local == null && serveLocal && archive.covers(vehicleId, startTs, toTs)) {
+            local = archive.range(vehicleId, startTs, toTs, pageSize + 1);
+        }
+        if (local != null) {
+            boolean more = local.size() > pageSize;
+            var points = more ? local.subList(0, pageSize) : local;
+            return new TelemetryHistoryPage(List.copyOf(points),
+                    more ? encodeCursor(vehicleId, points.get(points.size() - 1).ts()) : null);
+        }
+
+        try {
+            var points = new ArrayList<TelemetryPoint>(Math.min(pageSize, 1024));
+            Map<String, AttributeValue> startKey = null;
+            do {
+                var request = QueryRequest.builder()
+                        .tableName(TABLE)
+                        .keyConditionExpression("vehicle_id = :vid AND ts BETWEEN :from AND :to")
+                        .expressionAttributeValues(Map.of(
+                                ":vid", AttributeValue.fromN(String.valueOf(vehicleId)),
+                                ":from", AttributeValue.fromN(String.valueOf(startTs)),
+                                ":to", AttributeValue.fromN(String.valueOf(toTs))))
+                        .scanIndexForward(true) // oldest first
+                        .limit(pageSize - points.size())
+                        .exclusiveStartKey(startKey)
+                        .build();
+
+                var response = dynamo.query(request);
+                response.items().forEach(item -> points.add(toPoint(item)));
+                startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                        ? response.lastEvaluatedKey() : null;
+            } while (startKey != null && points.size() < pageSize);
+
+            // The cursor is the LastEvaluatedKey: (vehicle_id, ts) of the last item returned.
+            String nextCursor = startKey != null && !points.isEmpty()
+                    ? encodeCursor(vehicleId, points.get(points.size() - 1).ts()) : null;
+            log.debug("DynamoDB range for vehicle {}: {} items, more={}", vehicleId, points.size(), nextCursor != null);
+            return new TelemetryHistoryPage(points, nextCursor);
+        } catch (SdkException e) {
+            log.error("DynamoDB range query failed for vehicle {}: {}", vehicleId, e.getMessage());
+            throw new HistoryUnavailableException("Telemetry history unavailable for vehicle " + vehicleId, e);
+        }
+    }
+
+    /**
+     * The whole range, oldest first, handed to {@code pageSink} one page at a
+     * time as each page is read, so callers can write it out without holding
+     * the full history in memory.
+     *
+     * @throws HistoryUnavailableException if DynamoDB fails part way; the
+     *                                     pages already handed over are not
+     *                                     the whole range
      */
-    public List<Map<String, AttributeValue>> getHistory(long vehicleId, int limit) {
+    public void streamHistoryRange(long vehicleId, long fromTs, long toTs, Consumer<List<TelemetryPoint>> pageSink) {
+        String cursor = null;
+        do {
+            var page = getHistoryRange(vehicleId, fromTs, toTs, STREAM_PAGE_SIZE, cursor);
+            if (!page.points().isEmpty()) pageSink.accept(page.points());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+    }
+
+    private static String encodeCursor(long vehicleId, long ts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((vehicleId + ":" + ts).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(long vehicleId, String cursor) {
         try {
-            var request = QueryRequest.builder()
-                    .tableName(TABLE)
-                    .keyConditionExpression("vehicle_id = :vid")
-                    .expressionAttributeValues(Map.of(
-                            ":vid", AttributeValue.fromN(String.valueOf(vehicleId))
-                    ))
-                    .scanIndexForward(false) // newest first
-                    .limit(limit)
-                    .build();
-
-            var response = dynamo.query(request);
-            log.debug("DynamoDB history for vehicle {}: {} items", vehicleId, response.count());
-            return response.items();
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (parts.length == 2 && Long.parseLong(parts[0]) == vehicleId) {
+                return Long.parseLong(parts[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the error below
+        }
+        throw new IllegalArgumentException("Invalid telemetry history cursor");
+    }
+
+    /**
+     * Up to {@code limit} DynamoDB records with ts before {@code beforeTs},
+     * newest first. DynamoDB sorts by ts (epoch ms) ascending; the query reads
+     * the index backwards.
+     */
+    private List<TelemetryPoint> queryNewest(long vehicleId, int limit, long beforeTs) {
+        try {
+            boolean bounded = beforeTs != Long.MAX_VALUE;
+            var points = new ArrayList<TelemetryPoint>(Math.min(limit, 1024));
+            Map<String, AttributeValue> startKey = null;
+            // A query page stops at 1 MB, so long windows take several pages.
+            do {
+                var request = QueryRequest.builder()
+                        .tableName(TABLE)
+                        .keyConditionExpression(bounded ? "vehicle_id = :vid AND ts < :before" : "vehicle_id = :vid")
+                        .expressionAttributeValues(bounded
+                                ? Map.of(":vid", AttributeValue.fromN(String.valueOf(vehicleId)),
+                                        ":before", AttributeValue.fromN(String.valueOf(beforeTs)))
+                                : Map.of(":vid", AttributeValue.fromN(String.valueOf(vehicleId))))
+                        .scanIndexForward(false) // newest first
+                        .limit(limit - points.size())
+                        .exclusiveStartKey(startKey)
+                        .build();
+
+                var response = dynamo.query(request);
+                response.items().forEach(item -> points.add(toPoint(item)));
+                startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                        ? response.lastEvaluatedKey() : null;
+            } while (startKey != null && points.size() < limit);
+            log.debug("DynamoDB history for vehicle {}: {} items", vehicleId, points.size());
+            return points;
         } catch (Exception e) {
             log.error("DynamoDB query failed for vehicle {}: {}", vehicleId, e.getMessage());
             return List.of();
         }
     }
+
+    static TelemetryPoint toPoint(Map<String, AttributeValue> item) {
+        Double lat = number(item.get("lat"));
+        Double lng = number(item.get("lng"));
+        Double speed = number(item.get("speed_kmh"));
+        Double ts = number(item.get("ts"));
+        return new TelemetryPoint(
+                ts != null ? ts.longValue() : 0L,
+                lat != null ? lat.floatValue() : null,
+                lng != null ? lng.floatValue() : null,
+                speed != null ? speed.floatValue() : 0f,
+                flag(item.get("is_locked")),
+                flag(item.get("fall_detected")),
+                flag(item.get("panic_active")));
+    }
+
+    // lat/lng/speed stored as strings by some producers
+    private static Double number(AttributeValue value) {
+        if (value == null) return null;
+        String text = value.n() != null ? value.n() : value.s();
+        if (text == null) return null;
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean flag(AttributeValue value) {
+        if (value == null) return false;
+        if (value.bool() != null) return value.bool();
+        Double n = number(value);
+        return n != null ? n != 0 : Boolean.parseBoolean(value.s());
+    }
 }
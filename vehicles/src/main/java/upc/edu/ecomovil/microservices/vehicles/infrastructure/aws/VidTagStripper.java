@@ -0,0 +1,83 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Removes the hidden {@code [vid:N]} tags of {@link upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatModel}
+ * replies from text that arrives in arbitrary chunks, collecting the ids.
+ * <p>
+ * Text that could still turn into a tag (such as a trailing {@code "[vi"}) is
+ * held back until the next chunk decides it, so a tag split across chunks is
+ * never shown. One instance per reply; not thread-safe.
+ * </p>
+ */
+public final class VidTagStripper {
+
+    private static final String OPENING = "[vid:";
+    // Longer digit runs are not ids and are passed through.
+    private static final int MAX_ID_DIGITS = 18;
+    // tagEnd results other than an index.
+    private static final int INCOMPLETE = -1;
+    private static final int NOT_A_TAG = -2;
+
+    private final StringBuilder pending = new StringBuilder();
+    private final Set<Long> vehicleIds = new LinkedHashSet<>();
+
+    /**
+     * Appends a chunk and returns the text that can be shown now, possibly
+     * empty.
+     */
+    public String accept(String chunk) {
+        pending.append(chunk);
+        var visible = new StringBuilder(pending.length());
+        int i = 0;
+        while (i < pending.length()) {
+            if (pending.charAt(i) != '[') {
+                visible.append(pending.charAt(i++));
+                continue;
+            }
+            int end = tagEnd(i);
+            if (end == INCOMPLETE) break;
+            if (end == NOT_A_TAG) {
+                visible.append(pending.charAt(i++));
+            } else {
+                vehicleIds.add(Long.parseLong(pending, i + OPENING.length(), end - 1, 10));
+                i = end;
+            }
+        }
+        pending.delete(0, i);
+        return visible.toString();
+    }
+
+    /**
+     * Text still held back at the end of the reply, an unfinished tag shown
+     * as written.
+     */
+    public String finish() {
+        String rest = pending.toString();
+        pending.setLength(0);
+        return rest;
+    }
+
+    /** Ids of the complete tags seen so far, in order of appearance. */
+    public Set<Long> vehicleIds() {
+        return vehicleIds;
+    }
+
+    // Index just past the tag starting at start, or INCOMPLETE / NOT_A_TAG.
+    private int tagEnd(int start) {
+        int i = start;
+        for (int k = 0; k < OPENING.length(); k++, i++) {
+            if (i == pending.length()) return INCOMPLETE;
+            if (pending.charAt(i) != OPENING.charAt(k)) return NOT_A_TAG;
+        }
+        int digitsStart = i;
+        while (i < pending.length() && pending.charAt(i) >= '0' && pending.charAt(i) <= '9') {
+            if (i - digitsStart == MAX_ID_DIGITS) return NOT_A_TAG;
+            i++;
+        }
+        if (i == pending.length()) return INCOMPLETE;
+        return pending.charAt(i) == ']' && i > digitsStart ? i + 1 : NOT_A_TAG;
+    }
+}
@@ -0,0 +1,264 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Details;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Prices;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of the available vehicles the sales chat can suggest,
+ * so a chat request picks its candidates without touching the database.
+ * <p>
+ * The snapshot keeps the vehicles sorted by sale price next to a primitive
+ * array of those prices: the vehicles within a budget are a prefix found by
+ * binary search, the cheapest ones are the start of that prefix, and the
+ * nearest ones come from a bounded max-heap over it, so no request sorts the
+ * catalog. Readers only ever see a complete snapshot, swapped in through a
+ * volatile reference.
+ * </p>
+ * <p>
+ * Vehicles are loaded once at startup and kept in a working map from
+ * {@link VehicleSavedEvent}, {@link VehicleDeletedEvent} and telemetry
+ * positions. A vehicle becoming available or unavailable, a delete, or a
+ * change to a name, type, year or price rebuilds the snapshot and bumps the
+ * catalog version at once. Any other save (description, image, review, a
+ * lock) replaces that one candidate in a copy of the snapshot and keeps the
+ * catalog version. Position changes are folded in on the next
+ * {@link VehicleTelemetryFlushedEvent}, so a stream of readings costs at most
+ * one rebuild per flush interval. Shared vehicles must be treated as
+ * read-only.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ChatCandidateSnapshot {
+
+    /**
+     * An available vehicle with its latest known position, which can be newer
+     * than the one in {@code vehicle}.
+     */
+    public record Candidate(Vehicle vehicle, Float lat, Float lng) {
+
+        public Double distanceKmFrom(double fromLat, double fromLng) {
+            return lat != null && lng != null ? Haversine.distanceKm(fromLat, fromLng, lat, lng) : null;
+        }
+    }
+
+    // The catalog fields and saved position a candidate was indexed with; the entity itself may be
+    // changed in place before its VehicleSavedEvent arrives, so it cannot be compared against.
+    private record Indexed(Details details, Prices prices, Float lat, Float lng) {
+
+        static Indexed of(Vehicle vehicle) {
+            return new Indexed(vehicle.getDetails(), vehicle.getPrices(), vehicle.getLat(), vehicle.getLng());
+        }
+
+        boolean sameCatalogEntry(Indexed other) {
+            return Objects.equals(details, other.details) && Objects.equals(prices, other.prices);
+        }
+
+        boolean samePosition(Indexed other) {
+            return Objects.equals(lat, other.lat) && Objects.equals(lng, other.lng);
+        }
+    }
+
+    private record Snapshot(long version, long catalogVersion, Candidate[] byPrice, double[] prices) {
+    }
+
+    private static final Comparator<Candidate> BY_PRICE = Comparator.comparing(
+            (Candidate c) -> c.vehicle().getPriceSell(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(c -> c.vehicle().getId());
+
+    private final VehicleRepository vehicleRepository;
+    private final ConcurrentHashMap<Long, Candidate> available = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Indexed> indexed = new ConcurrentHashMap<>();
+    private final Object rebuildLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(0, 0, new Candidate[0], new double[0]);
+    private volatile boolean positionsChanged;
+
+    public ChatCandidateSnapshot(VehicleRepository vehicleRepository) {
+        this.vehicleRepository = vehicleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        vehicleRepository.findAllByIsAvailable(true).forEach(this::put);
+        rebuild(true);
+        log.info("Chat candidate snapshot loaded with {} vehicles", available.size());
+    }
+
+    @EventListener
+    public void on(VehicleSavedEvent event) {
+        var vehicle = event.vehicle();
+        if (vehicle.getId() == null) return;
+        var previous = indexed.get(vehicle.getId());
+        put(vehicle);
+        if (previous == null) {
+            if (Boolean.TRUE.equals(vehicle.getIsAvailable())) rebuild(true);
+        } else if (!Boolean.TRUE.equals(vehicle.getIsAvailable()) || !previous.sameCatalogEntry(Indexed.of(vehicle))) {
+            rebuild(true);
+        } else {
+            replace(vehicle.getId());
+        }
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        indexed.remove(event.vehicleId());
+        if (available.remove(event.vehicleId()) != null) rebuild(true);
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        if (event.lat() == null || event.lng() == null) return;
+        var moved = available.computeIfPresent(event.vehicleId(),
+                (id, c) -> new Candidate(c.vehicle(), event.lat(), event.lng()));
+        if (moved != null) positionsChanged = true;
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryFlushedEvent event) {
+        if (positionsChanged) rebuild(false);
+    }
+
+    /** Bumped on every rebuild; equal versions hold the same candidates. */
+    public long version() {
+        return snapshot.version();
+    }
+
+    /**
+     * Bumped when the set of candidates or a name, type, year or price
+     * changes, but not for other edits or moved positions, so anything
+     * derived from the candidates' names and prices stays valid while it is
+     * unchanged.
+     */
+    public long catalogVersion() {
+        return snapshot.catalogVersion();
+    }
+
+    public int size() {
+        return snapshot.byPrice().length;
+    }
+
+    /**
+     * The {@code k} cheapest vehicles within {@code budget} (sale price), or
+     * the cheapest overall when nothing fits or there is no budget.
+     */
+    public List<Candidate> cheapest(Double budget, int k) {
+        var current = snapshot;
+        int end = withinBudget(current, budget);
+        return List.of(Arrays.copyOf(current.byPrice(), Math.min(k, end)));
+    }
+
+    /**
+     * The {@code k} vehicles nearest to the point within {@code budget}, or
+     * among all of them when nothing fits or there is no budget; nearest
+     * first. Vehicles without a position are skipped.
+     */
+    public List<Candidate> nearest(double lat, double lng, Double budget, int k) {
+        var current = snapshot;
+        int end = withinBudget(current, budget);
+        record Hit(Candidate candidate, double distanceKm) {
+        }
+        // Max-heap of the k best so far: the root is the one to evict.
+        var heap = new PriorityQueue<Hit>(k + 1, Comparator.comparingDouble(Hit::distanceKm).reversed());
+        for (int i = 0; i < end; i++) {
+            var candidate = current.byPrice()[i];
+            Double distanceKm = candidate.distanceKmFrom(lat, lng);
+            if (distanceKm == null) continue;
+            if (heap.size() < k) {
+                heap.add(new Hit(candidate, distanceKm));
+            } else if (distanceKm < heap.peek().distanceKm()) {
+                heap.poll();
+                heap.add(new Hit(candidate, distanceKm));
+            }
+        }
+        var nearest = new ArrayList<Candidate>(heap.size());
+        while (!heap.isEmpty()) nearest.add(heap.poll().candidate());
+        return nearest.reversed();
+    }
+
+    // Length of the prefix within budget, or of the whole snapshot when that prefix is empty.
+    private static int withinBudget(Snapshot snapshot, Double budget) {
+        if (budget == null) return snapshot.byPrice().length;
+        int end = upperBound(snapshot.prices(), budget);
+        return end > 0 ? end : snapshot.byPrice().length;
+    }
+
+    // First index whose price is greater than the budget.
+    private static int upperBound(double[] prices, double budget) {
+        int lo = 0, hi = prices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] <= budget) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void put(Vehicle vehicle) {
+        if (vehicle.getId() == null) return;
+        if (Boolean.TRUE.equals(vehicle.getIsAvailable())) {
+            var current = Indexed.of(vehicle);
+            var previous = indexed.put(vehicle.getId(), current);
+            available.compute(vehicle.getId(), (id, known) -> {
+                // Keep a position telemetry moved the vehicle to, unless this save set a new one.
+                boolean keepPosition = known != null && previous != null && previous.samePosition(current);
+                return keepPosition ? new Candidate(vehicle, known.lat(), known.lng())
+                        : new Candidate(vehicle, vehicle.getLat(), vehicle.getLng());
+            });
+        } else {
+            indexed.remove(vehicle.getId());
+            available.remove(vehicle.getId());
+        }
+    }
+
+    // Swaps one candidate whose sort key did not change into a copy of the snapshot.
+    private void replace(Long vehicleId) {
+        synchronized (rebuildLock) {
+            var current = snapshot;
+            var replacement = available.get(vehicleId);
+            int index = replacement != null ? Arrays.binarySearch(current.byPrice(), replacement, BY_PRICE) : -1;
+            if (index < 0) {
+                rebuild(false);
+                return;
+            }
+            var byPrice = current.byPrice().clone();
+            byPrice[index] = replacement;
+            snapshot = new Snapshot(current.version() + 1, current.catalogVersion(), byPrice, current.prices());
+        }
+    }
+
+    private void rebuild(boolean catalogChanged) {
+        synchronized (rebuildLock) {
+            positionsChanged = false;
+            var byPrice = available.values().toArray(new Candidate[0]);
+            Arrays.sort(byPrice, BY_PRICE);
+            int priced = 0;
+            while (priced < byPrice.length && byPrice[priced].vehicle().getPriceSell() != null) priced++;
+            var prices = new double[priced];
+            for (int i = 0; i < priced; i++) {
+                prices[i] = byPrice[i].vehicle().getPriceSell();
+            }
+            var previous = snapshot;
+            snapshot = new Snapshot(previous.version() + 1,
+                    previous.catalogVersion() + (catalogChanged ? 1 : 0), byPrice, prices);
+        }
+    }
+}
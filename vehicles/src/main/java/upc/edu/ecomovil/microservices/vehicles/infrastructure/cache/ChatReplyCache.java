@@ -0,0 +1,110 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatModel;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of raw sales chat replies (Caffeine, W-TinyLFU eviction), so
+ * repeated questions such as a bare "hola" are answered without a model
+ * call.
+ * <p>
+ * A reply is keyed by everything that goes into the prompt: the normalized
+ * message, the user's name, the candidate ids in the order the model sees
+ * them, a fingerprint of the history and the
+ * {@link ChatCandidateSnapshot#catalogVersion() catalog version} the
+ * candidates were read at. Nothing is invalidated: entries of an older
+ * catalog can never be hit again and simply age out through the TTL or
+ * eviction, while saves that leave the catalog as it was keep the cache
+ * warm. Hit/miss/eviction counts are exported as {@code cache.*} metrics
+ * with {@code cache=chat-replies}.
+ * </p>
+ */
+@Component
+public class ChatReplyCache {
+
+    /**
+     * Identity of one chat prompt.
+     */
+    public record Key(String message, String userName, List<Long> candidateIds, long historyFingerprint,
+            long catalogVersion) {
+    }
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[¡¿!?.,;:\\s]+|[¡¿!?.,;:\\s]+$");
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Cache<Key, String> cache;
+
+    public ChatReplyCache(@Value("${vehicles.chat.reply-cache.maximum-size:1000}") long maximumSize,
+            @Value("${vehicles.chat.reply-cache.ttl:PT10M}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chat-replies");
+    }
+
+    /**
+     * Key for a prompt. {@code catalogVersion} must be read before the
+     * candidates, so a reply built from a newer catalog is at worst filed
+     * under an older, unreachable version.
+     */
+    public static Key key(String message, String userName, List<Long> candidateIds,
+            List<ChatModel.ChatTurn> history, long catalogVersion) {
+        return new Key(normalize(message), normalize(userName), List.copyOf(candidateIds), fingerprint(history),
+                catalogVersion);
+    }
+
+    public Optional<String> get(Key key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Only successful model replies should be put, never fallback texts.
+     */
+    public void put(Key key, String reply) {
+        cache.put(key, reply);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Case, surrounding punctuation and runs of whitespace don't change the answer.
+    static String normalize(String text) {
+        if (text == null) return "";
+        String collapsed = WHITESPACE.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return EDGE_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    // 64-bit FNV-1a over role and text of every turn.
+    static long fingerprint(List<ChatModel.ChatTurn> history) {
+        long hash = FNV_OFFSET;
+        if (history == null) return hash;
+        for (var turn : history) {
+            for (String part : new String[] { turn.role(), turn.text() }) {
+                byte[] bytes = (part == null ? "" : part).getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+                }
+                hash = (hash ^ 0xff) * FNV_PRIME; // separator, never produced by UTF-8
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,79 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of vehicles by id (Caffeine, W-TinyLFU eviction).
+ * <p>
+ * Entries are dropped as soon as a {@link VehicleSavedEvent},
+ * {@link VehicleDeletedEvent} or {@link VehicleTelemetryFlushedEvent} is seen
+ * for that id; the TTL only bounds how
+ * long a write that bypassed the events could stay invisible.
+ * </p>
+ * <p>
+ * Cached vehicles are detached entities shared by every request that reads
+ * the same id, so they are handed out as they are and must be treated as
+ * read-only: a change made to one would be seen by concurrent readers
+ * before, or without, being saved. Code that modifies a vehicle loads it
+ * from {@code VehicleRepository} instead. Hit/miss/eviction counts are exported as {@code cache.*} metrics with
+ * {@code cache=vehicles}.
+ * </p>
+ */
+@Component
+public class VehicleCache {
+
+    private final Cache<Long, Vehicle> cache;
+
+    public VehicleCache(@Value("${vehicles.cache.maximum-size:10000}") long maximumSize,
+            @Value("${vehicles.cache.ttl:PT10M}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vehicles");
+    }
+
+    /**
+     * Cached vehicle, or the loader's result (which is cached when present).
+     * Misses are not cached, so a vehicle created later is found right away.
+     * The returned vehicle is shared and must not be modified.
+     */
+    public Optional<Vehicle> get(Long vehicleId, Function<Long, Optional<Vehicle>> loader) {
+        return Optional.ofNullable(cache.get(vehicleId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public void invalidate(Long vehicleId) {
+        cache.invalidate(vehicleId);
+    }
+
+    @EventListener
+    public void on(VehicleSavedEvent event) {
+        invalidate(event.vehicle().getId());
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryFlushedEvent event) {
+        cache.invalidateAll(event.vehicleIds());
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        invalidate(event.vehicleId());
+    }
+}
@@ -0,0 +1,122 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for sales chat model calls, so a spike on the public chat
+ * endpoints cannot take the request threads reservations and telemetry need.
+ * <p>
+ * Calls run on a dedicated pool of {@code max-concurrent} threads, which is
+ * also the limit of model calls in flight. Up to {@code queue-capacity} more
+ * wait in line; a call that finds the line full, or is still waiting after
+ * {@code queue-timeout}, is answered at once with the busy fallback instead.
+ * Rejections are counted in {@code vehicles.chat.bulkhead.rejected} by
+ * {@code reason}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ChatBulkhead {
+
+    /** Answer when the chat is over capacity. */
+    public static final String BUSY_REPLY =
+            "Hay muchas consultas en este momento, intenta de nuevo en unos segundos.";
+
+    private final ThreadPoolExecutor executor;
+    private final long queueTimeoutMs;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter queueFull;
+    private final Counter queueTimedOut;
+
+    public ChatBulkhead(@Value("${vehicles.chat.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${vehicles.chat.bulkhead.queue-capacity:64}") int queueCapacity,
+            @Value("${vehicles.chat.bulkhead.queue-timeout:PT2S}") Duration queueTimeout,
+            MeterRegistry meterRegistry) {
+        var threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    var thread = new Thread(runnable, "chat-model-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.queueTimeoutMs = queueTimeout.toMillis();
+        this.queueFull = Counter.builder("vehicles.chat.bulkhead.rejected")
+                .tag("reason", "queue-full")
+                .description("Chat messages answered busy without reaching the model")
+                .register(meterRegistry);
+        this.queueTimedOut = Counter.builder("vehicles.chat.bulkhead.rejected")
+                .tag("reason", "queue-timeout")
+                .description("Chat messages answered busy without reaching the model")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.chat.bulkhead.active", active, AtomicInteger::get)
+                .description("Chat model calls in flight")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.chat.bulkhead.queued", executor, e -> e.getQueue().size())
+                .description("Chat messages waiting for a model call slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} on the chat pool, or completes with {@code busy} when
+     * it cannot start in time. {@code call} keeps its slot until it returns,
+     * so a streamed reply should be waited for inside it.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call, Supplier<T> busy) {
+        var result = new CompletableFuture<T>();
+        // Whoever flips it first decides: the worker runs the call, the timer answers busy.
+        var decided = new AtomicBoolean();
+        Runnable task = () -> {
+            if (!decided.compareAndSet(false, true)) return;
+            active.incrementAndGet();
+            try {
+                result.complete(call.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            log.debug("Chat bulkhead full, answering busy");
+            result.complete(busy.get());
+            return result;
+        }
+        CompletableFuture.delayedExecutor(queueTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!decided.compareAndSet(false, true)) return;
+            executor.remove(task);
+            queueTimedOut.increment();
+            log.debug("Chat message waited {} ms for a model slot, answering busy", queueTimeoutMs);
+            result.complete(busy.get());
+        });
+        return result;
+    }
+
+    /** Model calls in flight. */
+    public int active() {
+        return active.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
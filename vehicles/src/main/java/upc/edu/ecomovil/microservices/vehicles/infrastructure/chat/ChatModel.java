@@ -0,0 +1,44 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Language model behind the sales chat. The model only ever sees the
+ * candidates it is given and marks the ones it recommends with a
+ * {@code [vid:N]} tag.
+ * <p>
+ * The implementation is picked with {@code vehicles.chat.model}:
+ * {@code bedrock} (default) or {@code stub}, an in-process model for load
+ * tests and local runs without AWS.
+ * </p>
+ */
+public interface ChatModel {
+
+    /** Answer when the model could not be reached. */
+    String UNAVAILABLE_REPLY = "No pude procesar tu mensaje, intenta de nuevo en un momento.";
+
+    record ChatTurn(String role, String text) {
+    }
+
+    /**
+     * The model's reply, which may carry [vid:N] tags, or empty when the
+     * model could not be reached; callers answer {@link #UNAVAILABLE_REPLY}
+     * then.
+     */
+    Optional<String> chat(String userMessage, List<Vehicle> candidates, String userName, List<ChatTurn> history);
+
+    /**
+     * Same prompt as {@link #chat}, but the reply is passed to {@code onText}
+     * chunk by chunk as the model produces it, on a thread of the
+     * implementation. The future completes with the whole reply, or empty
+     * when the model failed; it is the reply to keep when it differs from the
+     * chunks. Cancelling the future stops the stream.
+     */
+    CompletableFuture<Optional<String>> chatStream(String userMessage, List<Vehicle> candidates, String userName,
+            List<ChatTurn> history, Consumer<String> onText);
+}
@@ -0,0 +1,66 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * One sales chat conversation kept on the server: its latest turns, up to
+ * {@code maxTurns}, and the budget the user last mentioned, which is carried
+ * over from turn to turn instead of being parsed out of the whole history
+ * again. Older turns are dropped, so the prompt stays the same size however
+ * long the conversation gets. The kept turns always start with a user turn,
+ * as Bedrock requires: an assistant reply is dropped together with the
+ * question it answered, never left behind on its own.
+ */
+public final class ChatSession {
+
+    private final String id;
+    private final int maxTurns;
+    private final ArrayDeque<ChatModel.ChatTurn> turns;
+    private Double budget;
+
+    ChatSession(String id, int maxTurns) {
+        this.id = id;
+        this.maxTurns = maxTurns;
+        this.turns = new ArrayDeque<>(maxTurns);
+    }
+
+    /** Opaque id the client sends back as {@code sessionId}. */
+    public String id() {
+        return id;
+    }
+
+    /** The kept turns, oldest first. */
+    public synchronized List<ChatModel.ChatTurn> turns() {
+        return List.copyOf(turns);
+    }
+
+    /** Last budget the user mentioned, or null. */
+    public synchronized Double budget() {
+        return budget;
+    }
+
+    /**
+     * Adds a completed exchange. {@code budgetMentioned} is the budget found
+     * in {@code userMessage}, null to keep the current one.
+     */
+    public synchronized void record(String userMessage, String reply, Double budgetMentioned) {
+        if (budgetMentioned != null) budget = budgetMentioned;
+        turns.addLast(new ChatModel.ChatTurn("user", userMessage));
+        turns.addLast(new ChatModel.ChatTurn("assistant", reply));
+        trim();
+    }
+
+    // Takes over a conversation so far, such as the history an older client sent.
+    synchronized void seed(List<ChatModel.ChatTurn> history, Double budget) {
+        turns.addAll(history);
+        trim();
+        this.budget = budget;
+    }
+
+    // Drops the oldest turns down to maxTurns, then any assistant turn left at the front.
+    private void trim() {
+        while (turns.size() > maxTurns) turns.removeFirst();
+        while (!turns.isEmpty() && !"user".equals(turns.peekFirst().role())) turns.removeFirst();
+    }
+}
@@ -0,0 +1,75 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Sales chat sessions by id, in memory (Caffeine, W-TinyLFU eviction).
+ * <p>
+ * At most {@code maximum-size} sessions are kept, and one idle for longer
+ * than {@code idle-timeout} is forgotten; the client then simply gets a new
+ * session. Ids are 128 random bits, so one cannot be guessed from another.
+ * Sessions live in one instance only: behind a load balancer without sticky
+ * sessions a client may start over. Hit/miss/eviction counts are exported as
+ * {@code cache.*} metrics with {@code cache=chat-sessions}.
+ * </p>
+ */
+@Component
+public class ChatSessionStore {
+
+    private static final Base64.Encoder ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final Cache<String, ChatSession> sessions;
+    private final int maxTurns;
+    private final SecureRandom random = new SecureRandom();
+
+    public ChatSessionStore(@Value("${vehicles.chat.sessions.maximum-size:10000}") long maximumSize,
+            @Value("${vehicles.chat.sessions.idle-timeout:PT30M}") Duration idleTimeout,
+            @Value("${vehicles.chat.sessions.max-turns:8}") int maxTurns,
+            MeterRegistry meterRegistry) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        this.maxTurns = maxTurns;
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "chat-sessions");
+    }
+
+    /**
+     * The session with this id, or a new one when the id is null, unknown or
+     * expired. A new session takes over {@code history} and the budget found
+     * in it; {@code history} is only read then.
+     */
+    public ChatSession open(String sessionId, Supplier<List<ChatModel.ChatTurn>> history,
+            Supplier<Double> budget) {
+        if (sessionId != null) {
+            var session = sessions.getIfPresent(sessionId);
+            if (session != null) return session;
+        }
+        var session = new ChatSession(newId(), maxTurns);
+        session.seed(history.get(), budget.get());
+        sessions.put(session.id(), session);
+        return session;
+    }
+
+    public long size() {
+        return sessions.estimatedSize();
+    }
+
+    private String newId() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return ID_ENCODER.encodeToString(bytes);
+    }
+}
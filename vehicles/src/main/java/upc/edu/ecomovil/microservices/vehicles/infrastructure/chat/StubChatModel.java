@@ -0,0 +1,67 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link ChatModel} for load tests and local runs without AWS
+ * ({@code vehicles.chat.model=stub}). It follows the prompt rules of the real
+ * model without any language skills: a greeting without candidates, else the
+ * first candidate with its [vid:N] tag. Every reply takes {@code latency},
+ * spread over its words when streamed, so the chat path behaves like it is
+ * waiting on a remote model.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicles.chat.model", havingValue = "stub")
+@Slf4j
+public class StubChatModel implements ChatModel {
+
+    private final long latencyNanos;
+
+    public StubChatModel(@Value("${vehicles.chat.stub.latency:PT0.3S}") Duration latency) {
+        this.latencyNanos = latency.toNanos();
+        log.warn("Sales chat is answered by the stub model, not Bedrock");
+    }
+
+    @Override
+    public Optional<String> chat(String userMessage, List<Vehicle> candidates, String userName,
+            List<ChatTurn> history) {
+        LockSupport.parkNanos(latencyNanos);
+        return Optional.of(reply(candidates, userName));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> chatStream(String userMessage, List<Vehicle> candidates,
+            String userName, List<ChatTurn> history, Consumer<String> onText) {
+        String reply = reply(candidates, userName);
+        String[] words = reply.split("(?<= )");
+        Executor delayed = CompletableFuture.delayedExecutor(latencyNanos / words.length, TimeUnit.NANOSECONDS);
+        CompletableFuture<Void> stream = CompletableFuture.completedFuture(null);
+        for (String word : words) {
+            stream = stream.thenRunAsync(() -> onText.accept(word), delayed);
+        }
+        return stream.thenApply(ignored -> Optional.of(reply));
+    }
+
+    static String reply(List<Vehicle> candidates, String userName) {
+        String name = userName == null || userName.isBlank() ? "" : " " + userName;
+        if (candidates.isEmpty()) {
+            return "¡Hola" + name + "! ¿Qué tipo de vehículo buscas y cuánto quieres gastar?";
+        }
+        Vehicle vehicle = candidates.get(0);
+        return String.format("Te recomiendo %s %s (%d) por S/%.0f. [vid:%d]", vehicle.getType(), vehicle.getName(),
+                vehicle.getYear(), vehicle.getPriceSell(), vehicle.getId());
+    }
+}
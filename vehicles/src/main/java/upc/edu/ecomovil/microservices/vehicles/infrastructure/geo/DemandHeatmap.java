@@ -0,0 +1,213 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.geo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleReservedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Geohash;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Supply and demand per geohash cell, for rebalancing the fleet: how many
+ * vehicles are available in each cell and how many reservations were made
+ * there within the last {@code reservation-window}.
+ * <p>
+ * Counters are kept for geohash precisions {@value #MIN_PRECISION} to
+ * {@value #MAX_PRECISION} and moved as vehicles are saved, report telemetry
+ * or are deleted; a reservation counts in the cell where the vehicle was when
+ * it was reserved. Reservations are counted in {@value #WINDOW_BUCKETS}
+ * time buckets per window, so old ones age out without a sweep. A reservation
+ * id reported again within the window is not counted twice. Reading the
+ * map walks the non-empty cells of one precision and never touches MySQL.
+ * </p>
+ * <p>
+ * Available counts are seeded from MySQL at startup; reservation counts
+ * start empty and fill within one window.
+ * </p>
+ */
+@Component
+@Slf4j
+public class DemandHeatmap {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 7;
+    private static final int WINDOW_BUCKETS = 24;
+    private static final long MAX_COUNTED_RESERVATIONS = 100_000;
+
+    /**
+     * One geohash cell with its centre.
+     */
+    public record HeatCell(String geohash, double lat, double lng, int availableVehicles, int recentReservations) {
+    }
+
+    // Cell at MAX_PRECISION.
+    private record Position(long cell, boolean available) {
+    }
+
+    private final VehicleRepository vehicleRepository;
+    private final LongSupplier clock;
+    private final long bucketMs;
+    private final ConcurrentHashMap<Long, Position> positions = new ConcurrentHashMap<>();
+    // Reservation ids counted within the window, so a retried notification is not counted again.
+    private final Cache<Long, Boolean> counted;
+    // Indexed by precision - MIN_PRECISION. Cells are never removed: their
+    // number is bounded by the area the fleet covers, not by traffic.
+    private final List<ConcurrentHashMap<Long, Cell>> levels = new ArrayList<>();
+
+    @Autowired
+    public DemandHeatmap(VehicleRepository vehicleRepository,
+            @Value("${vehicles.heatmap.reservation-window:PT24H}") Duration reservationWindow) {
+        this(vehicleRepository, reservationWindow, System::currentTimeMillis);
+    }
+
+    DemandHeatmap(VehicleRepository vehicleRepository, Duration reservationWindow, LongSupplier clock) {
+        this.vehicleRepository = vehicleRepository;
+        this.clock = clock;
+        this.bucketMs = Math.max(1, reservationWindow.toMillis() / WINDOW_BUCKETS);
+        this.counted = Caffeine.newBuilder()
+                .maximumSize(MAX_COUNTED_RESERVATIONS)
+                .expireAfterWrite(reservationWindow)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .build();
+        for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        var all = vehicleRepository.findAllPositions();
+        all.forEach(p -> put(p.getId(), p.getLat(), p.getLng(), Boolean.TRUE.equals(p.getIsAvailable())));
+        log.info("Demand heatmap loaded with {} vehicles", positions.size());
+    }
+
+    @EventListener
+    public void on(VehicleSavedEvent event) {
+        Vehicle vehicle = event.vehicle();
+        put(vehicle.getId(), vehicle.getLat(), vehicle.getLng(), Boolean.TRUE.equals(vehicle.getIsAvailable()));
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        put(event.vehicleId(), event.lat(), event.lng(), event.isAvailable());
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        remove(event.vehicleId());
+    }
+
+    @EventListener
+    public void on(VehicleReservedEvent event) {
+        var position = positions.get(event.vehicleId());
+        if (position == null) {
+            log.debug("Reservation of vehicle {} without a known position not counted", event.vehicleId());
+            return;
+        }
+        if (event.reservationId() != null && counted.asMap().putIfAbsent(event.reservationId(), true) != null) {
+            log.debug("Reservation {} already counted", event.reservationId());
+            return;
+        }
+        long bucket = event.reservedAt().toEpochMilli() / bucketMs;
+        for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+            cell(p, position.cell()).reserve(bucket);
+        }
+    }
+
+    public void put(Long vehicleId, Float lat, Float lng, boolean available) {
+        if (vehicleId == null) return;
+        if (lat == null || lng == null) {
+            remove(vehicleId);
+            return;
+        }
+        var next = new Position(Geohash.encode(lat, lng, MAX_PRECISION), available);
+        positions.compute(vehicleId, (id, previous) -> {
+            if (next.equals(previous)) return previous;
+            if (previous != null && previous.available()) addAvailable(previous.cell(), -1);
+            if (next.available()) addAvailable(next.cell(), 1);
+            return next;
+        });
+    }
+
+    public void remove(Long vehicleId) {
+        if (vehicleId == null) return;
+        positions.computeIfPresent(vehicleId, (id, previous) -> {
+            if (previous.available()) addAvailable(previous.cell(), -1);
+            return null;
+        });
+    }
+
+    /**
+     * Non-empty cells at {@code precision}, in geohash order.
+     */
+    public List<HeatCell> cells(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        long oldestBucket = clock.getAsLong() / bucketMs - WINDOW_BUCKETS + 1;
+        var cells = new ArrayList<HeatCell>();
+        levels.get(precision - MIN_PRECISION).forEach((bits, cell) -> {
+            int available = cell.available.get();
+            int reservations = cell.reservationsSince(oldestBucket);
+            if (available == 0 && reservations == 0) return;
+            double[] center = Geohash.center(bits, precision);
+            cells.add(new HeatCell(Geohash.toText(bits, precision), center[0], center[1], available, reservations));
+        });
+        cells.sort(Comparator.comparing(HeatCell::geohash));
+        return cells;
+    }
+
+    private void addAvailable(long finestCell, int delta) {
+        for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+            cell(p, finestCell).available.addAndGet(delta);
+        }
+    }
+
+    private Cell cell(int precision, long finestCell) {
+        long bits = Geohash.truncate(finestCell, MAX_PRECISION, precision);
+        return levels.get(precision - MIN_PRECISION).computeIfAbsent(bits, b -> new Cell());
+    }
+
+    private static final class Cell {
+        final AtomicInteger available = new AtomicInteger();
+        // Ring of reservation counts per time bucket, guarded by this.
+        private final long[] buckets = new long[WINDOW_BUCKETS];
+        private final int[] reservations = new int[WINDOW_BUCKETS];
+
+        synchronized void reserve(long bucket) {
+            int i = (int) Math.floorMod(bucket, (long) WINDOW_BUCKETS);
+            if (bucket < buckets[i]) return; // older than the window
+            if (bucket > buckets[i]) {
+                buckets[i] = bucket;
+                reservations[i] = 0;
+            }
+            reservations[i]++;
+        }
+
+        synchronized int reservationsSince(long oldestBucket) {
+            int total = 0;
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                if (buckets[i] >= oldestBucket) total += reservations[i];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.geo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed map clusters of the fleet for every zoom level, so the map can
+ * ask for what is on screen instead of downloading every vehicle.
+ * <p>
+ * Each zoom level is a grid of 64-pixel Web Mercator cells (a quarter of a
+ * map tile on each side). A cell keeps its vehicle count, how many are
+ * available and the sum of their coordinates, which gives the marker
+ * position (the centroid) without storing members. Moving a vehicle updates
+ * one cell per level; a query reads only the cells inside the bounding box
+ * at the requested zoom, so the response stays a few hundred clusters
+ * whatever the fleet size.
+ * </p>
+ * <p>
+ * Loaded once at startup and kept current through {@link VehicleSavedEvent},
+ * {@link VehicleTelemetryRecordedEvent} and {@link VehicleDeletedEvent}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class VehicleClusterIndex {
+
+    public static final int MAX_ZOOM = 18;
+    // 2^2 x 2^2 cells per 256 px tile.
+    private static final int CELL_BITS = 2;
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    /**
+     * Vehicles of one cell. {@code vehicleId} is set when the cell holds a
+     * single vehicle, so the map can draw it as a plain marker.
+     */
+    public record Cluster(double lat, double lng, int count, int available, Long vehicleId) {
+    }
+
+    private record Position(double lat, double lng, boolean available) {
+    }
+
+    /**
+     * Immutable aggregate of one cell; replaced on every change so readers
+     * never see half an update. The XOR of member ids is the member's id
+     * when there is exactly one.
+     */
+    private record Cell(int count, int available, double sumLat, double sumLng, long idXor) {
+
+        Cell plus(long id, Position p) {
+            return new Cell(count + 1, available + (p.available() ? 1 : 0), sumLat + p.lat(), sumLng + p.lng(),
+                    idXor ^ id);
+        }
+
+        Cell minus(long id, Position p) {
+            if (count <= 1) return null;
+            return new Cell(count - 1, available - (p.available() ? 1 : 0), sumLat - p.lat(), sumLng - p.lng(),
+                    idXor ^ id);
+        }
+
+        Cluster toCluster() {
+            return new Cluster(sumLat / count, sumLng / count, count, available, count == 1 ? idXor : null);
+        }
+    }
+
+    private static final Cell EMPTY = new Cell(0, 0, 0, 0, 0);
+
+    private final VehicleRepository vehicleRepository;
+    private final ConcurrentHashMap<Long, Position> positions = new ConcurrentHashMap<>();
+    private final List<ConcurrentHashMap<Long, Cell>> levels = new ArrayList<>(MAX_ZOOM + 1);
+
+    public VehicleClusterIndex(VehicleRepository vehicleRepository) {
+        this.vehicleRepository = vehicleRepository;
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        var all = vehicleRepository.findAllPositions();
+        all.forEach(p -> put(p.getId(), p.getLat(), p.getLng(), Boolean.TRUE.equals(p.getIsAvailable())));
+        log.info("Cluster index loaded with {} vehicles", positions.size());
+    }
+
+    @EventListener
+    public void on(VehicleSavedEvent event) {
+        Vehicle vehicle = event.vehicle();
+        put(vehicle.getId(), vehicle.getLat(), vehicle.getLng(), Boolean.TRUE.equals(vehicle.getIsAvailable()));
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        put(event.vehicleId(), event.lat(), event.lng(), event.isAvailable());
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        remove(event.vehicleId());
+    }
+
+    /**
+     * Inserts, moves or re-flags a vehicle. Null coordinates drop it.
+     */
+    public void put(Long vehicleId, Float lat, Float lng, boolean available) {
+        if (vehicleId == null) return;
+        if (lat == null || lng == null) {
+            remove(vehicleId);
+            return;
+        }
+        var next = new Position(lat, lng, available);
+        // compute() serialises writers of the same vehicle.
+        positions.compute(vehicleId, (id, previous) -> {
+            if (next.equals(previous)) return previous;
+            for (int z = 0; z <= MAX_ZOOM; z++) {
+                var level = levels.get(z);
+                long newKey = cellOf(next.lat(), next.lng(), z);
+                if (previous != null) {
+                    long oldKey = cellOf(previous.lat(), previous.lng(), z);
+                    if (oldKey == newKey) {
+                        // Moved within the cell: shift its centroid in one step.
+                        level.compute(newKey, (k, cell) -> orEmpty(cell.minus(id, previous)).plus(id, next));
+                        continue;
+                    }
+                    level.computeIfPresent(oldKey, (k, cell) -> cell.minus(id, previous));
+                }
+                level.compute(newKey, (k, cell) -> orEmpty(cell).plus(id, next));
+            }
+            return next;
+        });
+    }
+
+    public void remove(Long vehicleId) {
+        if (vehicleId == null) return;
+        positions.computeIfPresent(vehicleId, (id, previous) -> {
+            for (int z = 0; z <= MAX_ZOOM; z++) {
+                levels.get(z).computeIfPresent(cellOf(previous.lat(), previous.lng(), z),
+                        (k, cell) -> cell.minus(id, previous));
+            }
+            return null;
+        });
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Clusters of the cells intersecting the bounding box at {@code zoom}
+     * (clamped to 0..{@value #MAX_ZOOM}).
+     */
+    public List<Cluster> clusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        int z = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        int x0 = column(minLng, z), x1 = column(maxLng, z);
+        int y0 = row(maxLat, z), y1 = row(minLat, z); // rows grow southwards
+        var level = levels.get(z);
+        var clusters = new ArrayList<Cluster>();
+        long cellsInBox = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (cellsInBox > level.size()) {
+            level.forEach((key, cell) -> {
+                int x = (int) (key >>> 32), y = (int) key.longValue();
+                if (x >= x0 && x <= x1 && y >= y0 && y <= y1) clusters.add(cell.toCluster());
+            });
+        } else {
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    var cell = level.get(key(x, y));
+                    if (cell != null) clusters.add(cell.toCluster());
+                }
+            }
+        }
+        return clusters;
+    }
+
+    private static Cell orEmpty(Cell cell) {
+        return cell != null ? cell : EMPTY;
+    }
+
+    private static long cellOf(double lat, double lng, int zoom) {
+        return key(column(lng, zoom), row(lat, zoom));
+    }
+
+    private static int column(double lng, int zoom) {
+        int cells = 1 << (zoom + CELL_BITS);
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * cells);
+        return Math.max(0, Math.min(x, cells - 1));
+    }
+
+    private static int row(double lat, int zoom) {
+        int cells = 1 << (zoom + CELL_BITS);
+        double rad = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(lat, MAX_MERCATOR_LAT)));
+        double y = (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2;
+        return Math.max(0, Math.min((int) Math.floor(y * cells), cells - 1));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
@@ -0,0 +1,22 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+
+import java.util.List;
+
+@Repository
+public interface TripRepository extends JpaRepository<Trip, Long> {
+
+    /**
+     * Keyset page of a vehicle's trips, newest first: trips with id lower
+     * than {@code beforeId}. Served by the (vehicle_id, id) index.
+     */
+    @Query("SELECT t FROM Trip t WHERE t.vehicleId = :vehicleId AND t.id < :beforeId ORDER BY t.id DESC")
+    List<Trip> findPageBeforeId(@Param("vehicleId") Long vehicleId, @Param("beforeId") Long beforeId,
+            Pageable pageable);
+}
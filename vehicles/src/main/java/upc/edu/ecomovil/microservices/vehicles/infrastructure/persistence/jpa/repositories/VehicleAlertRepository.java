@@ -0,0 +1,41 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface VehicleAlertRepository extends JpaRepository<VehicleAlert, Long> {
+
+    /**
+     * Keyset page of an owner's alerts, oldest first: alerts with id greater
+     * than {@code afterId} created no later than {@code settledBefore}.
+     * Served by the (owner_id, id) index.
+     */
+    @Query("SELECT a FROM VehicleAlert a WHERE a.ownerId = :ownerId AND a.id > :afterId"
+            + " AND a.createdAt <= :settledBefore ORDER BY a.id ASC")
+    List<VehicleAlert> findOwnerPageAfterId(@Param("ownerId") Long ownerId, @Param("afterId") Long afterId,
+            @Param("settledBefore") Date settledBefore, Pageable pageable);
+
+    /**
+     * An owner's latest alerts created no later than {@code settledBefore},
+     * newest first.
+     */
+    @Query("SELECT a FROM VehicleAlert a WHERE a.ownerId = :ownerId AND a.createdAt <= :settledBefore"
+            + " ORDER BY a.id DESC")
+    List<VehicleAlert> findOwnerLatest(@Param("ownerId") Long ownerId, @Param("settledBefore") Date settledBefore,
+            Pageable pageable);
+
+    @Query("SELECT a FROM VehicleAlert a WHERE a.id > :afterId AND a.createdAt <= :settledBefore ORDER BY a.id ASC")
+    List<VehicleAlert> findPageAfterId(@Param("afterId") Long afterId, @Param("settledBefore") Date settledBefore,
+            Pageable pageable);
+
+    @Query("SELECT a FROM VehicleAlert a WHERE a.createdAt <= :settledBefore ORDER BY a.id DESC")
+    List<VehicleAlert> findLatest(@Param("settledBefore") Date settledBefore, Pageable pageable);
+}
@@ -1,16 +1,22 @@
 package upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+public interface VehicleRepository extends JpaRepository<Vehicle, Long>, VehicleTelemetryRepository {
 
     List<Vehicle> findAllByOwnerId(Long ownerId);
 
@@ -20,6 +26,97 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
 
     List<Vehicle> findAllByOwnerIdAndIsAvailable(Long ownerId, Boolean isAvailable);
 
+    /**
+     * Position-only projection used to warm in-memory geo indexes without
+     * loading full rows.
+     */
+    interface VehiclePosition {
+        Long getId();
+
+        Float getLat();
+
+        Float getLng();
+
+        Boolean getIsAvailable();
+    }
+
+    @Query("SELECT v.id AS id, v.lat AS lat, v.lng AS lng, v.isAvailable AS isAvailable FROM Vehicle v"
+            + " WHERE v.lat IS NOT NULL AND v.lng IS NOT NULL")
+    List<VehiclePosition> findAllPositions();
+
+    /**
+     * IoT projection: the columns telemetry ingestion reads and writes, plus
+     * what it needs to evaluate the geofence. Keeps the description and the
+     * embeddables out of the telemetry path.
+     */
+    interface VehicleTelemetryState {
+        Long getId();
+
+        Long getOwnerId();
+
+        Boolean getIsAvailable();
+
+        String getIotDeviceId();
+
+        Float getLat();
+
+        Float getLng();
+
+        Boolean getIsLocked();
+
+        Boolean getFallDetected();
+
+        Boolean getPanicActive();
+
+        Float getSpeedKmh();
+
+        Instant getLastIotUpdate();
+
+        Float getGeofenceCenterLat();
+
+        Float getGeofenceCenterLng();
+
+        Integer getGeofenceRadiusM();
+
+        String getGeofencePolygon();
+
+        Boolean getGeofenceBreached();
+    }
+
+    String TELEMETRY_STATE_SELECT = "SELECT v.id AS id, v.ownerId AS ownerId, v.isAvailable AS isAvailable,"
+            + " v.iotDeviceId AS iotDeviceId, v.lat AS lat, v.lng AS lng, v.isLocked AS isLocked,"
+            + " v.fallDetected AS fallDetected, v.panicActive AS panicActive, v.speedKmh AS speedKmh,"
+            + " v.lastIotUpdate AS lastIotUpdate, v.geofenceCenterLat AS geofenceCenterLat,"
+            + " v.geofenceCenterLng AS geofenceCenterLng, v.geofenceRadiusM AS geofenceRadiusM,"
+            + " v.geofencePolygon AS geofencePolygon, v.geofenceBreached AS geofenceBreached FROM Vehicle v";
+
+    @Query(TELEMETRY_STATE_SELECT + " WHERE v.id = :id")
+    Optional<VehicleTelemetryState> findTelemetryStateById(@Param("id") Long id);
+
+    @Query(TELEMETRY_STATE_SELECT + " WHERE v.id IN :ids")
+    List<VehicleTelemetryState> findTelemetryStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(TELEMETRY_STATE_SELECT + " WHERE v.iotDeviceId IS NOT NULL")
+    List<VehicleTelemetryState> findTelemetryStatesWithDevice();
+
+    /**
+     * Available vehicles inside a lat/lng bounding box. The latitude range is
+     * served by idx_vehicles_location (latitude, longitude); callers refine the
+     * box to an exact radius in memory.
+     */
+    @Query("SELECT v FROM Vehicle v WHERE v.lat BETWEEN :minLat AND :maxLat"
+            + " AND v.lng BETWEEN :minLng AND :maxLng"
+            + " AND v.isAvailable = true"
+            + " AND (:type IS NULL OR v.details.type = :type)"
+            + " AND (:maxRentPrice IS NULL OR v.prices.priceRent <= :maxRentPrice)")
+    List<Vehicle> findAvailableInBoundingBox(
+            @Param("minLat") Float minLat,
+            @Param("maxLat") Float maxLat,
+            @Param("minLng") Float minLng,
+            @Param("maxLng") Float maxLng,
+            @Param("type") String type,
+            @Param("maxRentPrice") Double maxRentPrice);
+
     /**
      * Find vehicle by owner, name and year to prevent duplicates
      * Similar to how Users microservice prevents duplicate RUC numbers
@@ -29,4 +126,41 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
             @Param("ownerId") Long ownerId,
             @Param("name") String name,
             @Param("year") Integer year);
+
+    /**
+     * Keyset page of the catalog: the first {@code pageable.getPageSize()}
+     * vehicles with id greater than {@code afterId}. Walks the primary key, so
+     * the cost of a page does not depend on how deep into the catalog it is.
+     */
+    @Query("SELECT v FROM Vehicle v WHERE v.id > :afterId"
+            + " AND (:type IS NULL OR v.details.type = :type)"
+            + " AND (:isAvailable IS NULL OR v.isAvailable = :isAvailable)"
+            + " AND (:minPrice IS NULL OR v.prices.priceSell >= :minPrice)"
+            + " AND (:maxPrice IS NULL OR v.prices.priceSell <= :maxPrice)"
+            + " ORDER BY v.id")
+    List<Vehicle> findPageAfterId(
+            @Param("afterId") Long afterId,
+            @Param("type") String type,
+            @Param("isAvailable") Boolean isAvailable,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable);
+
+    /**
+     * Same filters as {@link #findPageAfterId}, as a cursor over the whole
+     * catalog. The MIN_VALUE fetch size makes Connector/J stream rows instead
+     * of buffering the full result set. Must be consumed (and closed) inside a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("SELECT v FROM Vehicle v WHERE (:type IS NULL OR v.details.type = :type)"
+            + " AND (:isAvailable IS NULL OR v.isAvailable = :isAvailable)"
+            + " AND (:minPrice IS NULL OR v.prices.priceSell >= :minPrice)"
+            + " AND (:maxPrice IS NULL OR v.prices.priceSell <= :maxPrice)"
+            + " ORDER BY v.id")
+    Stream<Vehicle> streamAllByFilter(
+            @Param("type") String type,
+            @Param("isAvailable") Boolean isAvailable,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice);
 }
@@ -0,0 +1,34 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Write path for the IoT columns of {@code vehicles}. Updates only those
+ * columns, so a telemetry write never reads or rewrites the description,
+ * prices or any other part of the row.
+ */
+public interface VehicleTelemetryRepository {
+
+    /**
+     * New IoT state of one vehicle.
+     */
+    record TelemetryUpdate(
+            Long vehicleId,
+            String deviceId,
+            Float lat,
+            Float lng,
+            boolean isLocked,
+            boolean fallDetected,
+            boolean panicActive,
+            float speedKmh,
+            Instant lastIotUpdate,
+            boolean geofenceBreached) {
+    }
+
+    /**
+     * Writes all updates as one JDBC batch in one transaction. Returns the
+     * number of rows matched per update; 0 means the vehicle no longer exists.
+     */
+    int[] updateTelemetry(List<TelemetryUpdate> updates);
+}
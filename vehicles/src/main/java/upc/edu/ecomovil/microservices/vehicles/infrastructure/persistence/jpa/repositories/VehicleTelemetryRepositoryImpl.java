@@ -0,0 +1,40 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link VehicleTelemetryRepository}, composed into
+ * {@link VehicleRepository} by Spring Data.
+ */
+class VehicleTelemetryRepositoryImpl implements VehicleTelemetryRepository {
+
+    private static final String UPDATE_SQL = "UPDATE vehicles SET iot_device_id = ?, latitude = ?, longitude = ?,"
+            + " is_locked = ?, fall_detected = ?, panic_active = ?, speed_kmh = ?, last_iot_update = ?,"
+            + " geofence_breached = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    VehicleTelemetryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public int[] updateTelemetry(List<TelemetryUpdate> updates) {
+        if (updates.isEmpty()) return new int[0];
+        Timestamp now = Timestamp.from(Instant.now());
+        // Add rewriteBatchedStatements=true to the JDBC URL to also make the
+        // batch one round trip on MySQL.
+        return jdbcTemplate.batchUpdate(UPDATE_SQL, updates.stream()
+                .map(u -> new Object[] { u.deviceId(), u.lat(), u.lng(), u.isLocked(), u.fallDetected(),
+                        u.panicActive(), u.speedKmh(),
+                        u.lastIotUpdate() != null ? Timestamp.from(u.lastIotUpdate()) : null,
+                        u.geofenceBreached(), now, u.vehicleId() })
+                .toList());
+    }
+}
@@ -1,8 +1,10 @@
 package upc.edu.ecomovil.microservices.vehicles.infrastructure.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -36,6 +38,8 @@ public class WebSecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Async re-dispatches of an already authorised streaming request (SSE)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Public endpoints (no authentication required)
                         .requestMatchers("/actuator/**").permitAll()
                         .requestMatchers("/api-docs/**").permitAll()
@@ -44,11 +48,15 @@ public class WebSecurityConfig {
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-resources/**").permitAll()
                         .requestMatchers("/webjars/**").permitAll()
-                        .requestMatchers("/api/v1/vehicles/chat").permitAll()
+                        .requestMatchers("/api/v1/vehicles/chat", "/api/v1/vehicles/chat/stream").permitAll()
                         // IoT bridge: called by Lambda, authenticated via X-IoT-Key header
                         .requestMatchers("/api/v1/vehicles/*/iot-telemetry").permitAll()
+                        .requestMatchers("/api/v1/vehicles/iot-telemetry/batch").permitAll()
+                        // Reservations service: authenticated via X-Service-Key header
+                        .requestMatchers(HttpMethod.POST, "/api/v1/vehicles/*/reservations").permitAll()
                         // Telemetry history: requires authentication (owner/renter only)
                         .requestMatchers("/api/v1/vehicles/*/telemetry/history").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers("/api/v1/vehicles/*/telemetry/stream").hasAnyRole("USER", "ADMIN")
 
                         // Admin-only endpoints
                         .requestMatchers("/api/v1/vehicles/admin/**").hasRole("ADMIN")
@@ -72,6 +80,8 @@ public class WebSecurityConfig {
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
+        // Paged endpoints return the next page's cursor in a header browsers hide unless exposed
+        configuration.setExposedHeaders(List.of("X-Next-Cursor"));
         // JWT is carried in Authorization header, not cookies — credentials flag not needed
         // configuration.setAllowCredentials(true);
 
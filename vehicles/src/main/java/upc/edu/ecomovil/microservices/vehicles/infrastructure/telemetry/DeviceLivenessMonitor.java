@@ -0,0 +1,254 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleConnectivityChangedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Notices IoT devices that stopped reporting, without ever scanning the
+ * vehicles table.
+ * <p>
+ * Every device that reported has a deadline, {@code offline-after} past its
+ * last reading, kept in a hashed timing wheel (Varghese and Lauck, 1987): an
+ * array of buckets, one per tick, that the scheduler advances every
+ * {@code tick-ms}. Deadlines further away than one revolution stay in their
+ * bucket until their round comes. A telemetry reading only records its
+ * timestamp; the deadline is re-armed lazily when its bucket comes up, so
+ * ingestion costs O(1) with no lock on the hot path, and each tick only
+ * touches the devices due in that bucket. A device whose deadline passed is
+ * marked offline and {@link VehicleConnectivityChangedEvent} is published;
+ * its next reading publishes the transition back online.
+ * </p>
+ * <p>
+ * The state is seeded once at startup from the last stored update of each
+ * device; devices already silent then are listed as offline without
+ * publishing a transition.
+ * </p>
+ */
+@Component
+@Slf4j
+public class DeviceLivenessMonitor {
+
+    /**
+     * A device that has not reported since {@code lastSeen}.
+     */
+    public record OfflineDevice(long vehicleId, Long ownerId, String deviceId, Instant lastSeen) {
+    }
+
+    private final VehicleRepository vehicleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier clock;
+    private final long timeoutMs;
+    private final long tickMs;
+    private final ConcurrentHashMap<Long, Device> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger offlineCount = new AtomicInteger();
+    private final Counter transitions;
+
+    private final Object wheelLock = new Object();
+    private final ArrayDeque<Device>[] buckets; // guarded by wheelLock
+    private long currentTick; // guarded by wheelLock
+
+    @Autowired
+    public DeviceLivenessMonitor(VehicleRepository vehicleRepository, ApplicationEventPublisher eventPublisher,
+            @Value("${vehicles.telemetry.liveness.offline-after:PT2M}") Duration offlineAfter,
+            @Value("${vehicles.telemetry.liveness.tick-ms:1000}") long tickMs,
+            @Value("${vehicles.telemetry.liveness.wheel-size:512}") int wheelSize,
+            MeterRegistry meterRegistry) {
+        this(vehicleRepository, eventPublisher, offlineAfter, tickMs, wheelSize, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    DeviceLivenessMonitor(VehicleRepository vehicleRepository, ApplicationEventPublisher eventPublisher,
+            Duration offlineAfter, long tickMs, int wheelSize, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.vehicleRepository = vehicleRepository;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.timeoutMs = offlineAfter.toMillis();
+        this.tickMs = tickMs;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = clock.getAsLong() / tickMs;
+        this.transitions = Counter.builder("vehicles.telemetry.devices.offline.transitions")
+                .description("IoT devices that went silent for longer than the offline timeout")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.telemetry.devices.offline", offlineCount, AtomicInteger::get)
+                .description("IoT devices currently considered offline")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        var states = vehicleRepository.findTelemetryStatesWithDevice();
+        long now = clock.getAsLong();
+        synchronized (wheelLock) {
+            for (var state : states) {
+                if (state.getLastIotUpdate() == null) continue; // never reported
+                long lastSeen = state.getLastIotUpdate().toEpochMilli();
+                var device = devices.computeIfAbsent(state.getId(), Device::new);
+                device.ownerId = state.getOwnerId();
+                device.deviceId = state.getIotDeviceId();
+                device.lastSeenMs = Math.max(device.lastSeenMs, lastSeen);
+                if (device.scheduled || device.offline) continue; // reported since startup
+                if (device.lastSeenMs + timeoutMs <= now) {
+                    device.offline = true;
+                    offlineCount.incrementAndGet();
+                } else {
+                    schedule(device);
+                }
+            }
+        }
+        log.info("Device liveness seeded with {} devices, {} offline", devices.size(), offlineCount.get());
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        if (event.vehicleId() == null || event.recordedAt() == null) return;
+        var device = devices.computeIfAbsent(event.vehicleId(), Device::new);
+        device.ownerId = event.ownerId();
+        device.deviceId = event.deviceId();
+        device.lastSeenMs = Math.max(device.lastSeenMs, event.recordedAt().toEpochMilli());
+        // Written lastSeen before reading the flags; expire() does the opposite, so one of them sees the other.
+        if (device.scheduled && !device.offline) return;
+
+        boolean cameBack = false;
+        synchronized (wheelLock) {
+            if (device.offline) {
+                device.offline = false;
+                offlineCount.decrementAndGet();
+                cameBack = true;
+            }
+            if (!device.scheduled) schedule(device);
+        }
+        if (cameBack) {
+            log.info("Vehicle {} (device {}) is reporting again", device.vehicleId, device.deviceId);
+            eventPublisher.publishEvent(new VehicleConnectivityChangedEvent(device.vehicleId, device.ownerId,
+                    device.deviceId, true, Instant.ofEpochMilli(device.lastSeenMs)));
+        }
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        var device = devices.remove(event.vehicleId());
+        if (device == null) return;
+        synchronized (wheelLock) {
+            if (device.offline) {
+                device.offline = false;
+                offlineCount.decrementAndGet();
+            }
+        } // its wheel entry is dropped when its bucket comes up
+    }
+
+    /**
+     * Advances the wheel to the current time and expires the deadlines due.
+     */
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.liveness.tick-ms:1000}")
+    public void tick() {
+        long now = clock.getAsLong();
+        long nowTick = now / tickMs;
+        var wentOffline = new ArrayList<Device>();
+        synchronized (wheelLock) {
+            // After a long pause one revolution visits every bucket.
+            for (long t = Math.max(currentTick + 1, nowTick - buckets.length + 1); t <= nowTick; t++) {
+                expire(buckets[(int) (t % buckets.length)], now, nowTick, wentOffline);
+            }
+            currentTick = Math.max(currentTick, nowTick);
+        }
+        for (var device : wentOffline) {
+            transitions.increment();
+            log.warn("Vehicle {} (device {}) offline, last seen {}", device.vehicleId, device.deviceId,
+                    Instant.ofEpochMilli(device.lastSeenMs));
+            eventPublisher.publishEvent(new VehicleConnectivityChangedEvent(device.vehicleId, device.ownerId,
+                    device.deviceId, false, Instant.ofEpochMilli(device.lastSeenMs)));
+        }
+    }
+
+    /** Devices that are currently offline, silent the longest first. */
+    public List<OfflineDevice> offlineDevices() {
+        var offline = new ArrayList<OfflineDevice>();
+        for (var device : devices.values()) {
+            if (device.offline) {
+                offline.add(new OfflineDevice(device.vehicleId, device.ownerId, device.deviceId,
+                        Instant.ofEpochMilli(device.lastSeenMs)));
+            }
+        }
+        offline.sort(Comparator.comparing(OfflineDevice::lastSeen));
+        return offline;
+    }
+
+    public int offlineCount() {
+        return offlineCount.get();
+    }
+
+    // Under wheelLock.
+    private void expire(ArrayDeque<Device> bucket, long now, long nowTick, List<Device> wentOffline) {
+        var rearm = new ArrayList<Device>();
+        for (int n = bucket.size(); n > 0; n--) {
+            var device = bucket.poll();
+            if (devices.get(device.vehicleId) != device) {
+                device.scheduled = false; // deleted
+            } else if (device.deadlineTick > nowTick) {
+                bucket.add(device); // a later revolution
+            } else if (device.lastSeenMs + timeoutMs > now) {
+                rearm.add(device); // reported since it was armed
+            } else {
+                device.offline = true;
+                device.scheduled = false;
+                if (device.lastSeenMs + timeoutMs > now) { // a reading raced with us
+                    device.offline = false;
+                    rearm.add(device);
+                } else {
+                    offlineCount.incrementAndGet();
+                    wentOffline.add(device);
+                }
+            }
+        }
+        rearm.forEach(this::schedule);
+    }
+
+    // Under wheelLock.
+    private void schedule(Device device) {
+        long deadlineTick = Math.max(currentTick + 1, Math.ceilDiv(device.lastSeenMs + timeoutMs, tickMs));
+        device.deadlineTick = deadlineTick;
+        device.scheduled = true;
+        buckets[(int) (deadlineTick % buckets.length)].add(device);
+    }
+
+    private static final class Device {
+        final long vehicleId;
+        volatile Long ownerId;
+        volatile String deviceId;
+        volatile long lastSeenMs = Long.MIN_VALUE / 2;
+        volatile boolean scheduled; // written under wheelLock
+        volatile boolean offline; // written under wheelLock
+        long deadlineTick; // guarded by wheelLock
+
+        Device(Long vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+    }
+}
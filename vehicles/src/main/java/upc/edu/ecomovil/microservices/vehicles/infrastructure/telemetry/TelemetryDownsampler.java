@@ -0,0 +1,98 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape-preserving reduction of a telemetry track with
+ * Largest-Triangle-Three-Buckets (Steinarsson, 2013).
+ * <p>
+ * The track is split into equal buckets; from each bucket LTTB keeps the
+ * point that forms the largest triangle with the point kept from the previous
+ * bucket and the average of the next one, so turns and stops survive while
+ * straight stretches collapse. Triangles are measured on the route itself
+ * (longitude scaled by cos(latitude), latitude), because the map draws the
+ * route; speed and flags travel with the points that are kept. Readings
+ * without a position reuse the last known one.
+ * </p>
+ */
+public final class TelemetryDownsampler {
+
+    private TelemetryDownsampler() {
+    }
+
+    /**
+     * At most {@code threshold} points of {@code points} (oldest first),
+     * always including the first and the last. Returns the input unchanged
+     * when it is already small enough or {@code threshold < 3}.
+     */
+    public static List<TelemetryPoint> lttb(List<TelemetryPoint> points, int threshold) {
+        int n = points.size();
+        if (threshold < 3 || n <= threshold) return points;
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        project(points, x, y);
+
+        var sampled = new ArrayList<TelemetryPoint>(threshold);
+        sampled.add(points.get(0));
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket (the last point for the final bucket).
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int chosen = start;
+            double maxArea = -1;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; only the comparison matters.
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            sampled.add(points.get(chosen));
+            a = chosen;
+        }
+        sampled.add(points.get(n - 1));
+        return sampled;
+    }
+
+    private static void project(List<TelemetryPoint> points, double[] x, double[] y) {
+        double lastLat = 0;
+        double lastLng = 0;
+        for (var p : points) {
+            if (p.lat() != null && p.lng() != null) {
+                lastLat = p.lat();
+                lastLng = p.lng();
+                break;
+            }
+        }
+        double cosLat = Math.cos(Math.toRadians(lastLat));
+        for (int i = 0; i < points.size(); i++) {
+            var p = points.get(i);
+            if (p.lat() != null && p.lng() != null) {
+                lastLat = p.lat();
+                lastLng = p.lng();
+            }
+            x[i] = lastLng * cosLat;
+            y[i] = lastLat;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Geofence;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository.VehicleTelemetryState;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleTelemetryRepository.TelemetryUpdate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for IoT telemetry.
+ * <p>
+ * Keeps the live IoT state of every vehicle that reports telemetry in memory.
+ * A reading is applied to that state immediately, so geofence-breach and panic
+ * transitions are known before {@link #record} returns, but MySQL is only
+ * written by {@link #flush()}, which runs every
+ * {@code vehicles.telemetry.flush-interval-ms} and sends one JDBC batch with
+ * the latest state of each vehicle that changed since the previous flush.
+ * Several readings from the same vehicle inside one interval cost one row
+ * update, and that update only touches the IoT columns. When the database
+ * rejects the batch, the rows are retried one by one and only the rejected
+ * ones are dropped.
+ * </p>
+ * <p>
+ * A vehicle's state is loaded from the database (IoT and geofence columns
+ * only) the first time it reports and refreshed from every
+ * {@link VehicleSavedEvent}, so lock/unlock, geofence and profile edits are
+ * seen by the next reading. Of the IoT columns, a save only overrides those
+ * it names in {@link VehicleSavedEvent#iotChanges()}: the rest of the saved
+ * entity may predate readings not flushed yet.
+ * </p>
+ * <p>
+ * Fall, panic and geofence transitions are published as
+ * {@link VehicleAlertTransitionEvent} for the alert log.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TelemetryIngestionBuffer {
+
+    /**
+     * Outcome of one reading: the transitions the caller has to act on.
+     */
+    public record TelemetryTransition(
+            String deviceId,
+            boolean geofenceBreachRaised,
+            boolean panicRaised,
+            boolean geofenceBreached) {
+    }
+
+    private final VehicleRepository vehicleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConcurrentHashMap<Long, LiveState> states = new ConcurrentHashMap<>();
+
+    public TelemetryIngestionBuffer(VehicleRepository vehicleRepository, ApplicationEventPublisher eventPublisher) {
+        this.vehicleRepository = vehicleRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Applies a reading to the vehicle's live state and queues it for the next
+     * flush. Empty when the vehicle does not exist.
+     */
+    public Optional<TelemetryTransition> record(RecordTelemetryCommand command) {
+        var state = states.get(command.vehicleId());
+        if (state == null) {
+            // Load outside the map so a slow query never blocks other vehicles.
+            var stored = vehicleRepository.findTelemetryStateById(command.vehicleId());
+            if (stored.isEmpty()) return Optional.empty();
+            state = states.computeIfAbsent(command.vehicleId(), id -> LiveState.from(stored.get()));
+        }
+        return Optional.of(apply(command.vehicleId(), state, command));
+    }
+
+    /**
+     * Applies a batch of readings, in order. Vehicles not yet in memory are
+     * loaded with a single query for the whole batch. The result has one entry
+     * per command, empty where the vehicle does not exist.
+     */
+    public List<Optional<TelemetryTransition>> recordAll(List<RecordTelemetryCommand> commands) {
+        var missing = commands.stream()
+                .map(RecordTelemetryCommand::vehicleId)
+                .filter(id -> id != null && !states.containsKey(id))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            vehicleRepository.findTelemetryStatesByIdIn(missing)
+                    .forEach(stored -> states.computeIfAbsent(stored.getId(), id -> LiveState.from(stored)));
+        }
+
+        var results = new ArrayList<Optional<TelemetryTransition>>(commands.size());
+        for (var command : commands) {
+            var state = command.vehicleId() != null ? states.get(command.vehicleId()) : null;
+            results.add(state == null ? Optional.empty() : Optional.of(apply(command.vehicleId(), state, command)));
+        }
+        return results;
+    }
+
+    private TelemetryTransition apply(Long vehicleId, LiveState state, RecordTelemetryCommand command) {
+        TelemetryTransition transition;
+        VehicleTelemetryRecordedEvent event;
+        boolean fallRaised;
+        boolean geofenceReturned;
+        synchronized (state) {
+            boolean wasBreached = state.geofenceBreached;
+            boolean wasPanic = state.panicActive;
+            boolean wasFall = state.fallDetected;
+            state.apply(command);
+            transition = new TelemetryTransition(state.deviceId, !wasBreached && state.geofenceBreached,
+                    !wasPanic && state.panicActive, state.geofenceBreached);
+            fallRaised = !wasFall && state.fallDetected;
+            geofenceReturned = wasBreached && !state.geofenceBreached;
+            event = state.toEvent(vehicleId);
+        }
+        eventPublisher.publishEvent(event);
+        if (fallRaised) publishAlert(event, AlertType.FALL_DETECTED);
+        if (transition.panicRaised()) publishAlert(event, AlertType.PANIC_RAISED);
+        if (transition.geofenceBreachRaised()) publishAlert(event, AlertType.GEOFENCE_BREACHED);
+        if (geofenceReturned) publishAlert(event, AlertType.GEOFENCE_RETURNED);
+        return transition;
+    }
+
+    private void publishAlert(VehicleTelemetryRecordedEvent reading, AlertType type) {
+        eventPublisher.publishEvent(new VehicleAlertTransitionEvent(reading.vehicleId(), reading.ownerId(),
+                reading.deviceId(), type, reading.lat(), reading.lng(), reading.recordedAt()));
+    }
+
+    /**
+     * Whether a fall, panic or geofence alert is raised in the vehicle's live
+     * state, which may be ahead of the database; empty if the vehicle has not
+     * reported since startup.
+     */
+    public Optional<Boolean> hasActiveAlerts(Long vehicleId) {
+        var state = states.get(vehicleId);
+        if (state == null) return Optional.empty();
+        synchronized (state) {
+            return Optional.of(state.fallDetected || state.panicActive || state.geofenceBreached);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.flush-interval-ms:1000}")
+    public void flush() {
+        var ids = new ArrayList<Long>();
+        var updates = new ArrayList<TelemetryUpdate>();
+        states.forEach((id, state) -> {
+            synchronized (state) {
+                if (!state.dirty) return;
+                state.dirty = false;
+                ids.add(id);
+                updates.add(state.toUpdate(id));
+            }
+        });
+        if (updates.isEmpty()) return;
+
+        try {
+            // One transaction and one batch for the whole interval.
+            int[] counts = vehicleRepository.updateTelemetry(updates);
+            for (int i = 0; i < counts.length; i++) {
+                // Deleted behind our back: stop tracking it.
+                if (counts[i] == 0) states.remove(ids.get(i));
+            }
+            log.debug("Flushed telemetry for {} vehicles", ids.size());
+            eventPublisher.publishEvent(new VehicleTelemetryFlushedEvent(List.copyOf(ids)));
+        } catch (Exception e) {
+            if (!isRejectedData(e)) {
+                log.error("Telemetry flush failed for {} vehicles, retrying next interval: {}", ids.size(),
+                        e.getMessage());
+                markDirty(ids);
+                return;
+            }
+            // One bad row must not hold back the rest of the fleet.
+            flushRowByRow(ids, updates);
+        }
+    }
+
+    // Each row in its own transaction. Rows the database rejects are dropped
+    // until the vehicle's next reading; the rest are written now, or retried
+    // next interval when the database itself failed.
+    private void flushRowByRow(List<Long> ids, List<TelemetryUpdate> updates) {
+        var flushed = new ArrayList<Long>();
+        for (int i = 0; i < updates.size(); i++) {
+            Long id = ids.get(i);
+            try {
+                if (vehicleRepository.updateTelemetry(List.of(updates.get(i)))[0] == 0) {
+                    states.remove(id);
+                } else {
+                    flushed.add(id);
+                }
+            } catch (Exception e) {
+                if (isRejectedData(e)) {
+                    log.error("Telemetry of vehicle {} rejected by the database, dropped: {}", id, e.getMessage());
+                    continue;
+                }
+                log.error("Telemetry flush failed for {} vehicles, retrying next interval: {}", ids.size() - i,
+                        e.getMessage());
+                markDirty(ids.subList(i, ids.size()));
+                break;
+            }
+        }
+        log.debug("Flushed telemetry for {} vehicles row by row", flushed.size());
+        if (!flushed.isEmpty()) eventPublisher.publishEvent(new VehicleTelemetryFlushedEvent(List.copyOf(flushed)));
+    }
+
+    // The data was refused (constraint, value out of range, too long) rather
+    // than the database being unreachable or busy: retrying cannot help.
+    private static boolean isRejectedData(Exception e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void markDirty(List<Long> ids) {
+        ids.forEach(id -> {
+            var state = states.get(id);
+            if (state != null) {
+                synchronized (state) {
+                    state.dirty = true;
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @EventListener
+    public void on(VehicleSavedEvent event) {
+        var vehicle = event.vehicle();
+        var state = vehicle.getId() != null ? states.get(vehicle.getId()) : null;
+        if (state == null) return;
+        synchronized (state) {
+            state.refreshFrom(vehicle, event.iotChanges());
+        }
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        states.remove(event.vehicleId());
+    }
+
+    /**
+     * Mutable live IoT state of one vehicle; guarded by its own monitor.
+     */
+    private static final class LiveState {
+        Long ownerId;
+        boolean isAvailable;
+        String deviceId;
+        Float lat;
+        Float lng;
+        boolean isLocked;
+        boolean fallDetected;
+        boolean panicActive;
+        float speedKmh;
+        Instant lastIotUpdate;
+        Geofence geofence;
+        boolean geofenceBreached;
+        boolean dirty;
+
+        static LiveState from(VehicleTelemetryState stored) {
+            var state = new LiveState();
+            state.ownerId = stored.getOwnerId();
+            state.isAvailable = Boolean.TRUE.equals(stored.getIsAvailable());
+            state.deviceId = stored.getIotDeviceId();
+            state.lat = stored.getLat();
+            state.lng = stored.getLng();
+            state.isLocked = Boolean.TRUE.equals(stored.getIsLocked());
+            state.fallDetected = Boolean.TRUE.equals(stored.getFallDetected());
+            state.panicActive = Boolean.TRUE.equals(stored.getPanicActive());
+            state.speedKmh = stored.getSpeedKmh() != null ? stored.getSpeedKmh() : 0f;
+            state.lastIotUpdate = stored.getLastIotUpdate();
+            state.geofence = Geofence.of(stored.getGeofenceCenterLat(), stored.getGeofenceCenterLng(),
+                    stored.getGeofenceRadiusM(), stored.getGeofencePolygon());
+            // Previous breach state, so the first reading only raises a
+            // breach the database did not already record.
+            state.geofenceBreached = Boolean.TRUE.equals(stored.getGeofenceBreached());
+            return state;
+        }
+
+        // Same rules as Vehicle.updateIoTTelemetry.
+        void apply(RecordTelemetryCommand command) {
+            deviceId = command.deviceId();
+            if (command.lat() != null && command.lng() != null) {
+                lat = command.lat();
+                lng = command.lng();
+                geofenceBreached = geofence != null && geofence.isBreachedBy(lat, lng);
+            }
+            fallDetected = command.fallDetected();
+            isLocked = command.isLocked();
+            speedKmh = command.speedKmh() != null ? command.speedKmh() : 0f;
+            if (command.panicActive()) panicActive = true;
+            // The producer's timestamp keys the reading here and in DynamoDB alike.
+            lastIotUpdate = command.recordedAt() != null ? command.recordedAt() : Instant.now();
+            dirty = true;
+        }
+
+        void refreshFrom(Vehicle vehicle, Set<VehicleSavedEvent.IoTChange> iotChanges) {
+            ownerId = vehicle.getOwnerId();
+            isAvailable = Boolean.TRUE.equals(vehicle.getIsAvailable());
+            if (iotChanges.contains(VehicleSavedEvent.IoTChange.LOCK_STATE)) {
+                isLocked = Boolean.TRUE.equals(vehicle.getIsLocked());
+            }
+            if (iotChanges.contains(VehicleSavedEvent.IoTChange.ALERTS_RESET)) {
+                fallDetected = false;
+                panicActive = false;
+                geofenceBreached = false;
+            }
+            if (iotChanges.contains(VehicleSavedEvent.IoTChange.GEOFENCE)) {
+                geofence = vehicle.getGeofence();
+                // Against the live position, not the saved entity's.
+                geofenceBreached = geofence != null && lat != null && lng != null
+                        && geofence.isBreachedBy(lat, lng);
+            }
+            // A pending reading is newer than the row the saved vehicle was
+            // read from: keep its position and let the flush write it back.
+            if (!dirty) {
+                deviceId = vehicle.getIotDeviceId();
+                lat = vehicle.getLat();
+                lng = vehicle.getLng();
+                speedKmh = vehicle.getSpeedKmh() != null ? vehicle.getSpeedKmh() : 0f;
+                lastIotUpdate = vehicle.getLastIotUpdate();
+            }
+        }
+
+        TelemetryUpdate toUpdate(Long vehicleId) {
+            return new TelemetryUpdate(vehicleId, deviceId, lat, lng, isLocked, fallDetected, panicActive, speedKmh,
+                    lastIotUpdate, geofenceBreached);
+        }
+
+        VehicleTelemetryRecordedEvent toEvent(Long vehicleId) {
+            return new VehicleTelemetryRecordedEvent(vehicleId, ownerId, deviceId, lat, lng, isAvailable, isLocked,
+                    fallDetected, panicActive, speedKmh, geofenceBreached, lastIotUpdate);
+        }
+    }
+}
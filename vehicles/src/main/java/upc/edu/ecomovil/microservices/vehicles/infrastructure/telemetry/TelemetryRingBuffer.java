@@ -0,0 +1,184 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent telemetry readings of each active vehicle, kept in memory
+ * so the owner dashboard does not have to query DynamoDB for them.
+ * <p>
+ * Each vehicle gets a fixed-size ring of parallel primitive arrays (about 21
+ * bytes per reading, no per-reading objects) filled from
+ * {@link VehicleTelemetryRecordedEvent}. A ring only knows what this instance
+ * ingested since the ring was created, so it reports the timestamp from which
+ * it is complete; callers go to DynamoDB for anything older. Rings nobody
+ * writes or reads are evicted after
+ * {@code vehicles.telemetry.history.ring-idle-ttl}.
+ * </p>
+ */
+@Component
+public class TelemetryRingBuffer {
+
+    private static final byte LOCKED = 1;
+    private static final byte FALL = 2;
+    private static final byte PANIC = 4;
+
+    private final int capacity;
+    private final Cache<Long, Ring> rings;
+
+    public TelemetryRingBuffer(@Value("${vehicles.telemetry.history.ring-capacity:256}") int capacity,
+            @Value("${vehicles.telemetry.history.ring-max-vehicles:5000}") long maxVehicles,
+            @Value("${vehicles.telemetry.history.ring-idle-ttl:PT2H}") Duration idleTtl) {
+        this.capacity = capacity;
+        this.rings = Caffeine.newBuilder()
+                .maximumSize(maxVehicles)
+                .expireAfterAccess(idleTtl)
+                .build();
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        if (event.vehicleId() == null || event.recordedAt() == null) return;
+        var ring = rings.get(event.vehicleId(), id -> new Ring(capacity));
+        byte flags = (byte) ((event.isLocked() ? LOCKED : 0) | (event.fallDetected() ? FALL : 0)
+                | (event.panicActive() ? PANIC : 0));
+        ring.append(event.recordedAt().toEpochMilli(),
+                event.lat() != null ? event.lat() : Float.NaN,
+                event.lng() != null ? event.lng() : Float.NaN,
+                event.speedKmh(), flags);
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        rings.invalidate(event.vehicleId());
+    }
+
+    /**
+     * What this instance holds for one vehicle, newest first.
+     *
+     * @param points       up to {@code limit} readings older than
+     *                     {@code beforeTs}
+     * @param completeFrom readings at or after this timestamp are all in the
+     *                     ring; {@link Long#MAX_VALUE} when there is no ring
+     */
+    public record Snapshot(List<TelemetryPoint> points, long completeFrom) {
+    }
+
+    public Snapshot newest(long vehicleId, int limit, long beforeTs) {
+        var ring = rings.getIfPresent(vehicleId);
+        if (ring == null) return new Snapshot(List.of(), Long.MAX_VALUE);
+        return ring.newest(limit, beforeTs);
+    }
+
+    /**
+     * Up to {@code max} readings with {@code fromTs <= ts <= toTs}, oldest
+     * first, if the ring is complete from {@code fromTs}; null otherwise.
+     */
+    public List<TelemetryPoint> range(long vehicleId, long fromTs, long toTs, int max) {
+        var ring = rings.getIfPresent(vehicleId);
+        return ring != null ? ring.range(fromTs, toTs, max) : null;
+    }
+
+    /**
+     * Fixed-capacity ring of parallel arrays; guarded by its own monitor.
+     */
+    private static final class Ring {
+        private final long[] ts;
+        private final float[] lat;
+        private final float[] lng;
+        private final float[] speed;
+        private final byte[] flags;
+        private int next;
+        private int size;
+        private long completeFrom = Long.MAX_VALUE;
+
+        Ring(int capacity) {
+            ts = new long[capacity];
+            lat = new float[capacity];
+            lng = new float[capacity];
+            speed = new float[capacity];
+            flags = new byte[capacity];
+        }
+
+        synchronized void append(long t, float la, float ln, float sp, byte fl) {
+            // Older than the whole ring: completeFrom is already past it, so
+            // callers get it from DynamoDB.
+            if (size > 0 && t < ts[index(0)]) return;
+            // A late reading (batch, retry) goes in time order, not at the end,
+            // so the ring has no gap where it claims to be complete.
+            int pos = size;
+            while (pos > 0 && ts[index(pos - 1)] > t) pos--;
+            if (size == ts.length) {
+                // Full: the oldest reading makes room.
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) {
+                copy(index(i - 1), index(i));
+            }
+            int idx = index(pos);
+            ts[idx] = t;
+            lat[idx] = la;
+            lng[idx] = ln;
+            speed[idx] = sp;
+            flags[idx] = fl;
+            next = (next + 1) % ts.length;
+            size++;
+            // Once the ring wraps, only the oldest retained reading onwards is complete.
+            completeFrom = ts[index(0)];
+        }
+
+        synchronized Snapshot newest(int limit, long beforeTs) {
+            var points = new ArrayList<TelemetryPoint>(Math.min(limit, size));
+            for (int i = size - 1; i >= 0 && points.size() < limit; i--) {
+                int idx = index(i);
+                if (ts[idx] < beforeTs) points.add(point(idx));
+            }
+            return new Snapshot(points, completeFrom);
+        }
+
+        synchronized List<TelemetryPoint> range(long fromTs, long toTs, int max) {
+            if (size == 0 || fromTs < completeFrom) return null;
+            var points = new ArrayList<TelemetryPoint>();
+            for (int i = 0; i < size && points.size() < max; i++) {
+                int idx = index(i);
+                if (ts[idx] > toTs) break;
+                if (ts[idx] >= fromTs) points.add(point(idx));
+            }
+            return points;
+        }
+
+        private void copy(int from, int to) {
+            ts[to] = ts[from];
+            lat[to] = lat[from];
+            lng[to] = lng[from];
+            speed[to] = speed[from];
+            flags[to] = flags[from];
+        }
+
+        // i-th oldest retained reading.
+        private int index(int i) {
+            return (next - size + i + ts.length) % ts.length;
+        }
+
+        private TelemetryPoint point(int idx) {
+            return new TelemetryPoint(ts[idx],
+                    Float.isNaN(lat[idx]) ? null : lat[idx],
+                    Float.isNaN(lng[idx]) ? null : lng[idx],
+                    speed[idx],
+                    (flags[idx] & LOCKED) != 0,
+                    (flags[idx] & FALL) != 0,
+                    (flags[idx] & PANIC) != 0);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans live telemetry and alerts out to Server-Sent Events subscribers.
+ * <p>
+ * The ingest thread only appends the reading to each subscriber's bounded
+ * queue (dropping the oldest reading when a slow client falls behind) and
+ * schedules a drain; network writes happen on a small dedicated pool, so a
+ * stalled connection never slows down telemetry ingestion or other viewers.
+ * At most one drain per subscriber runs at a time, which keeps events in
+ * order.
+ * </p>
+ * <p>
+ * Alert streams follow the alerts of one owner's vehicles, or of the whole
+ * fleet for admins. Each {@code alert} event carries its alert log id as the
+ * SSE id, so a client that reconnects or fell behind resumes from the
+ * {@code /alerts} feed with that cursor.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TelemetryStreamHub {
+
+    // Queued in place of a reading to make the sender write a keep-alive comment.
+    private static final Object PING = new Object();
+    private static final long IDLE_NANOS = Duration.ofSeconds(10).toNanos();
+    // Key of the alert subscribers that follow every owner.
+    private static final Long ALL_OWNERS = Long.MIN_VALUE;
+
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final ExecutorService sender;
+    private final Counter dropped;
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Subscriber>> alertSubscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public TelemetryStreamHub(@Value("${vehicles.telemetry.stream.buffer-size:32}") int bufferSize,
+            @Value("${vehicles.telemetry.stream.timeout:PT30M}") Duration timeout,
+            @Value("${vehicles.telemetry.stream.sender-threads:4}") int senderThreads,
+            MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeout.toMillis();
+        var threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            var thread = new Thread(runnable, "telemetry-sse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dropped = Counter.builder("vehicles.telemetry.stream.dropped")
+                .description("Telemetry events dropped because a subscriber fell behind")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.telemetry.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open telemetry and alert SSE connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of {@code telemetry} events for one vehicle. The emitter
+     * is unregistered when the client disconnects or the timeout expires.
+     */
+    public SseEmitter subscribe(Long vehicleId) {
+        return register(subscribers, vehicleId);
+    }
+
+    /**
+     * Opens a stream of {@code alert} events for the vehicles of
+     * {@code ownerId}, or of every vehicle when it is null.
+     */
+    public SseEmitter subscribeAlerts(Long ownerId) {
+        return register(alertSubscribers, ownerId != null ? ownerId : ALL_OWNERS);
+    }
+
+    private SseEmitter register(ConcurrentHashMap<Long, Set<Subscriber>> registry, Long key) {
+        var emitter = new SseEmitter(timeoutMs);
+        var subscriber = new Subscriber(registry, key, emitter);
+        registry.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    public int subscriberCount(Long vehicleId) {
+        var set = subscribers.get(vehicleId);
+        return set != null ? set.size() : 0;
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        var set = subscribers.get(event.vehicleId());
+        if (set == null) return;
+        for (var subscriber : set) {
+            subscriber.offer(event);
+        }
+    }
+
+    @EventListener
+    public void on(VehicleAlertRecordedEvent event) {
+        for (Long key : new Long[] { event.ownerId(), ALL_OWNERS }) {
+            var set = key != null ? alertSubscribers.get(key) : null;
+            if (set == null) continue;
+            for (var subscriber : set) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        var set = subscribers.get(event.vehicleId());
+        if (set == null) return;
+        set.forEach(subscriber -> {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        });
+    }
+
+    /**
+     * Keeps idle connections alive through proxies and load balancers, and
+     * detects clients that went away without closing the connection.
+     */
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (var registry : List.of(subscribers, alertSubscribers)) {
+            registry.values().forEach(set -> set.forEach(subscriber -> {
+                if (subscriber.isIdle()) subscriber.offer(PING);
+            }));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (var registry : List.of(subscribers, alertSubscribers)) {
+            registry.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+            registry.clear();
+        }
+        sender.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        var set = subscriber.registry.get(subscriber.key);
+        if (set != null && set.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscriber.registry.computeIfPresent(subscriber.key, (k, s) -> s.isEmpty() ? null : s);
+        }
+    }
+
+    private final class Subscriber {
+        final ConcurrentHashMap<Long, Set<Subscriber>> registry;
+        // Vehicle id for telemetry streams, owner id (or ALL_OWNERS) for alert streams.
+        final Long key;
+        final SseEmitter emitter;
+        // Guarded by this.
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private boolean draining;
+        private long lastSentNanos = System.nanoTime();
+
+        Subscriber(ConcurrentHashMap<Long, Set<Subscriber>> registry, Long key, SseEmitter emitter) {
+            this.registry = registry;
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void offer(Object message) {
+            synchronized (this) {
+                if (queue.size() >= bufferSize) {
+                    queue.pollFirst();
+                    dropped.increment();
+                }
+                queue.addLast(message);
+                if (draining) return;
+                draining = true;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+
+        synchronized boolean isIdle() {
+            return !draining && queue.isEmpty()
+                    && System.nanoTime() - lastSentNanos > IDLE_NANOS;
+        }
+
+        private void drain() {
+            while (true) {
+                Object message;
+                synchronized (this) {
+                    message = queue.pollFirst();
+                    if (message == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    // Builders are single-use, so each subscriber gets its own.
+                    emitter.send(message == PING ? SseEmitter.event().comment("ping")
+                            : message instanceof VehicleAlertRecordedEvent alert
+                                    ? SseEmitter.event().id(String.valueOf(alert.id())).name("alert").data(alert)
+                                    : SseEmitter.event().name("telemetry").data(message));
+                    synchronized (this) {
+                        lastSentNanos = System.nanoTime();
+                    }
+                } catch (Exception e) {
+                    log.debug("{} stream {} closed: {}", registry == subscribers ? "Telemetry" : "Alert", key,
+                            e.getMessage());
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        queue.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
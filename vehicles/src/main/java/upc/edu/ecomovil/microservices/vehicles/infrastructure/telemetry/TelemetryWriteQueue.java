@@ -0,0 +1,112 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the database and disk writes triggered by telemetry (finished trips,
+ * alert transitions, archive segment syncs) off the IoT request thread.
+ * <p>
+ * Writes run one at a time on a single daemon thread, in the order they were
+ * submitted, so a trip or an alert is never written before an earlier one of
+ * the same vehicle. Up to {@code queue-capacity} writes wait in line; when
+ * the line is full the submitting thread waits for room, which slows
+ * ingestion down instead of losing trips or alerts or writing them out of
+ * order. Such waits are counted in {@code vehicles.telemetry.writes.blocked}.
+ * Only once the queue is shut down, or a waiting thread is interrupted, does
+ * a write run on the submitting thread.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TelemetryWriteQueue {
+
+    private static final long SHUTDOWN_GRACE_SECONDS = 10;
+    private static final long RETRY_OFFER_MS = 100;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter blocked;
+
+    public TelemetryWriteQueue(@Value("${vehicles.telemetry.writes.queue-capacity:10000}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    var thread = new Thread(runnable, "telemetry-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.blocked = Counter.builder("vehicles.telemetry.writes.blocked")
+                .description("Telemetry writes whose ingest thread waited because the write queue was full")
+                .register(meterRegistry);
+        Gauge.builder("vehicles.telemetry.writes.queued", executor, e -> e.getQueue().size())
+                .description("Telemetry writes waiting for the writer thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues {@code write}, waiting for room when the queue is full. Runs it
+     * on the calling thread only once the queue is shut down. {@code write}
+     * handles its own failures.
+     */
+    public void submit(Runnable write) {
+        Runnable task = () -> run(write);
+        try {
+            executor.execute(task);
+            return;
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                run(write);
+                return;
+            }
+        }
+        blocked.increment();
+        log.debug("Telemetry write queue full, waiting for room");
+        try {
+            // Behind the writes already queued, so they stay in order.
+            while (!executor.getQueue().offer(task, RETRY_OFFER_MS, TimeUnit.MILLISECONDS)) {
+                if (executor.isShutdown()) {
+                    run(write);
+                    return;
+                }
+            }
+            // Queued just as the writer drained the queue for shutdown: nobody will take it.
+            if (executor.isShutdown() && executor.getQueue().remove(task)) run(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run(write);
+        }
+    }
+
+    private static void run(Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            log.error("Telemetry write failed: {}", e.getMessage());
+        }
+    }
+
+    /** Lets the queued writes finish before the repositories go away. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("{} telemetry writes still queued at shutdown", executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
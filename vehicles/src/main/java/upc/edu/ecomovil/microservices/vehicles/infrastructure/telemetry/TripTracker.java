@@ -0,0 +1,211 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleConnectivityChangedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.TripRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running trip summary per vehicle, folded from the telemetry stream one
+ * reading at a time so nobody has to download raw history to get trip stats.
+ * <p>
+ * A trip starts with the first unlocked reading and accumulates Haversine
+ * distance between consecutive fixes plus the top speed; it ends, and is
+ * saved as a {@link Trip}, on the first locked reading (a LOCK command, a
+ * geofence auto-lock or the rider locking it), when the device goes offline,
+ * or when an unlocked vehicle keeps reporting without moving for
+ * {@code idle-timeout}; such a trip ends at its last movement. Fixes closer
+ * than a few metres to the last one are GPS jitter and are not counted until
+ * the vehicle has really moved; fixes implying an impossible speed are
+ * treated as jumps and skipped. Trips shorter than {@code min-distance-m} or
+ * {@code min-duration} are an unlock without a ride and are dropped.
+ * Finished trips are saved through the {@link TelemetryWriteQueue}, not on
+ * the ingest thread.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TripTracker {
+
+    /** Below this distance from the last counted fix the vehicle is considered still. */
+    private static final double MIN_SEGMENT_KM = 0.003;
+    /** Faster than any bike or scooter in the fleet: a GPS jump, not movement. */
+    private static final double MAX_SEGMENT_SPEED_KMH = 120.0;
+    /** Trips with fewer readings are an unlock without a ride and are not saved. */
+    private static final int MIN_POINTS = 2;
+
+    private final TripRepository tripRepository;
+    private final TelemetryWriteQueue writeQueue;
+    private final double minDistanceKm;
+    private final long minDurationMs;
+    private final long idleTimeoutMs;
+    private final ConcurrentHashMap<Long, OpenTrip> openTrips = new ConcurrentHashMap<>();
+
+    public TripTracker(TripRepository tripRepository, TelemetryWriteQueue writeQueue,
+            @Value("${vehicles.trips.min-distance-m:50}") double minDistanceM,
+            @Value("${vehicles.trips.min-duration:PT30S}") Duration minDuration,
+            @Value("${vehicles.trips.idle-timeout:PT15M}") Duration idleTimeout) {
+        this.tripRepository = tripRepository;
+        this.writeQueue = writeQueue;
+        this.minDistanceKm = minDistanceM / 1000.0;
+        this.minDurationMs = minDuration.toMillis();
+        this.idleTimeoutMs = idleTimeout.toMillis();
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        if (event.vehicleId() == null || event.recordedAt() == null) return;
+        long ts = event.recordedAt().toEpochMilli();
+        if (event.isLocked()) {
+            var trip = openTrips.remove(event.vehicleId());
+            if (trip != null) {
+                synchronized (trip) {
+                    trip.add(ts, event.lat(), event.lng(), event.speedKmh());
+                }
+                finish(trip, "lock");
+            }
+            return;
+        }
+        var trip = openTrips.computeIfAbsent(event.vehicleId(), id -> new OpenTrip(id, event.ownerId(), ts));
+        boolean idle;
+        synchronized (trip) {
+            idle = ts - trip.lastMovedAt > idleTimeoutMs;
+            if (!idle) trip.add(ts, event.lat(), event.lng(), event.speedKmh());
+        }
+        if (idle) {
+            // Parked but unlocked: close the trip where it stopped and let this reading open the next one.
+            if (openTrips.remove(event.vehicleId(), trip)) finish(trip, "idle");
+            on(event);
+        }
+    }
+
+    @EventListener
+    public void on(VehicleConnectivityChangedEvent event) {
+        if (event.online()) return;
+        var trip = openTrips.remove(event.vehicleId());
+        if (trip != null) finish(trip, "device offline");
+    }
+
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        openTrips.remove(event.vehicleId());
+    }
+
+    /**
+     * Saves the trips in progress as they stand; a ride spanning a restart is
+     * recorded as two trips rather than lost.
+     */
+    @PreDestroy
+    public void flushOpenTrips() {
+        openTrips.keySet().forEach(vehicleId -> {
+            var trip = openTrips.remove(vehicleId);
+            if (trip != null) finish(trip, "shutdown");
+        });
+    }
+
+    public Optional<Trip> current(Long vehicleId) {
+        var trip = openTrips.get(vehicleId);
+        if (trip == null) return Optional.empty();
+        synchronized (trip) {
+            return Optional.of(trip.toTrip());
+        }
+    }
+
+    private void finish(OpenTrip trip, String reason) {
+        Trip completed;
+        synchronized (trip) {
+            if (trip.points < MIN_POINTS || trip.distanceKm < minDistanceKm) return;
+            if ("idle".equals(reason)) trip.lastAt = trip.lastMovedAt;
+            if (trip.lastAt - trip.startedAt < minDurationMs) return;
+            completed = trip.toTrip();
+        }
+        writeQueue.submit(() -> save(completed, reason));
+    }
+
+    private void save(Trip completed, String reason) {
+        try {
+            var saved = tripRepository.save(completed);
+            log.info("Trip {} of vehicle {} ended by {}: {} km in {} s", saved.getId(), saved.getVehicleId(),
+                    reason, String.format("%.2f", saved.getDistanceKm()), saved.getDurationSeconds());
+        } catch (Exception e) {
+            log.error("Could not save trip of vehicle {}: {}", completed.getVehicleId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Aggregates of one trip in progress; guarded by its own monitor.
+     */
+    private static final class OpenTrip {
+        final Long vehicleId;
+        final Long ownerId;
+        final long startedAt;
+        long lastAt;
+        long lastMovedAt;
+        int points;
+        double distanceKm;
+        float maxSpeedKmh;
+        Float startLat;
+        Float startLng;
+        // Last fix counted towards the distance, and the last fix seen.
+        double anchorLat = Double.NaN;
+        double anchorLng;
+        long anchorAt;
+        Float lastLat;
+        Float lastLng;
+
+        OpenTrip(Long vehicleId, Long ownerId, long startedAt) {
+            this.vehicleId = vehicleId;
+            this.ownerId = ownerId;
+            this.startedAt = startedAt;
+            this.lastAt = startedAt;
+            this.lastMovedAt = startedAt;
+        }
+
+        void add(long ts, Float lat, Float lng, float speedKmh) {
+            points++;
+            lastAt = Math.max(lastAt, ts);
+            maxSpeedKmh = Math.max(maxSpeedKmh, speedKmh);
+            if (lat == null || lng == null) return;
+            if (startLat == null) {
+                startLat = lat;
+                startLng = lng;
+            }
+            lastLat = lat;
+            lastLng = lng;
+            if (Double.isNaN(anchorLat)) {
+                moveAnchor(lat, lng, ts);
+                return;
+            }
+            double segmentKm = Haversine.distanceKm(anchorLat, anchorLng, lat, lng);
+            if (segmentKm < MIN_SEGMENT_KM) return;
+            double hours = Math.max(ts - anchorAt, 1) / 3_600_000.0;
+            if (segmentKm / hours > MAX_SEGMENT_SPEED_KMH) return;
+            distanceKm += segmentKm;
+            lastMovedAt = Math.max(lastMovedAt, ts);
+            moveAnchor(lat, lng, ts);
+        }
+
+        private void moveAnchor(double lat, double lng, long ts) {
+            anchorLat = lat;
+            anchorLng = lng;
+            anchorAt = ts;
+        }
+
+        Trip toTrip() {
+            return new Trip(vehicleId, ownerId, Instant.ofEpochMilli(startedAt), Instant.ofEpochMilli(lastAt),
+                    distanceKm, maxSpeedKmh, points, startLat, startLng, lastLat, lastLng);
+        }
+    }
+}
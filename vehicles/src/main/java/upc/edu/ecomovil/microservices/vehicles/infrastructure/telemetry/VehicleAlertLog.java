@@ -0,0 +1,54 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleAlertRepository;
+
+/**
+ * Appends every alert transition to the {@link VehicleAlert} log, so clients
+ * can follow alerts from a cursor instead of polling vehicle rows whose flags
+ * an unlock overwrites. Transitions are rare next to readings, so each one is
+ * written as it happens, through the {@link TelemetryWriteQueue} rather than
+ * on the ingest thread; {@link VehicleAlertRecordedEvent} then carries it to
+ * live subscribers with its log id.
+ */
+@Component
+@Slf4j
+public class VehicleAlertLog {
+
+    private final VehicleAlertRepository vehicleAlertRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TelemetryWriteQueue writeQueue;
+
+    public VehicleAlertLog(VehicleAlertRepository vehicleAlertRepository, ApplicationEventPublisher eventPublisher,
+            TelemetryWriteQueue writeQueue) {
+        this.vehicleAlertRepository = vehicleAlertRepository;
+        this.eventPublisher = eventPublisher;
+        this.writeQueue = writeQueue;
+    }
+
+    @EventListener
+    public void on(VehicleAlertTransitionEvent event) {
+        writeQueue.submit(() -> record(event));
+    }
+
+    private void record(VehicleAlertTransitionEvent event) {
+        VehicleAlert saved;
+        try {
+            saved = vehicleAlertRepository.save(new VehicleAlert(event.vehicleId(), event.ownerId(),
+                    event.deviceId(), event.type(), event.lat(), event.lng(), event.occurredAt()));
+        } catch (Exception e) {
+            log.error("Could not record {} alert of vehicle {}: {}", event.type(), event.vehicleId(), e.getMessage());
+            return;
+        }
+        log.info("Alert {} recorded: {} on vehicle {}", saved.getId(), saved.getType(), saved.getVehicleId());
+        eventPublisher.publishEvent(new VehicleAlertRecordedEvent(saved.getId(), saved.getVehicleId(),
+                saved.getOwnerId(), saved.getDeviceId(), saved.getType(), saved.getLat(), saved.getLng(),
+                saved.getOccurredAt()));
+    }
+}
@@ -0,0 +1,28 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+/**
+ * MSB-first bit source over a byte array written by {@link BitWriter}.
+ */
+final class BitReader {
+
+    private final byte[] bytes;
+    private long position;
+
+    BitReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    boolean readBit() {
+        boolean bit = (bytes[(int) (position >>> 3)] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    long readBits(int n) {
+        long value = 0;
+        for (int i = 0; i < n; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,40 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable MSB-first bit sink.
+ */
+final class BitWriter {
+
+    private byte[] bytes;
+    private long bitCount;
+
+    BitWriter(int initialBytes) {
+        bytes = new byte[Math.max(initialBytes, 16)];
+    }
+
+    void writeBit(boolean bit) {
+        ensure(1);
+        if (bit) bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+        bitCount++;
+    }
+
+    /** Writes the low {@code n} bits of {@code value}, most significant first. */
+    void writeBits(long value, int n) {
+        ensure(n);
+        for (int i = n - 1; i >= 0; i--) {
+            if (((value >>> i) & 1L) != 0) bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+            bitCount++;
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+    }
+
+    private void ensure(int bits) {
+        long needed = (bitCount + bits + 7) >>> 3;
+        if (needed > bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.max(needed, bytes.length * 2L));
+    }
+}
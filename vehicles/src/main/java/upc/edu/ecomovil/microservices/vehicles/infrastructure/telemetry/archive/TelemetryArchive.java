@@ -0,0 +1,510 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryWriteQueue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Local, compressed telemetry history: days of readings per vehicle at a few
+ * bytes each, served without DynamoDB and kept across restarts.
+ * <p>
+ * Readings from {@link VehicleTelemetryRecordedEvent} collect in a small open
+ * block per vehicle. A block is sealed when full or older than
+ * {@code block-max-age}, compressed with {@link TelemetryBlockCodec} and
+ * appended to the current segment: a fixed-size, memory-mapped file under
+ * {@code vehicles.telemetry.archive.dir}. Each block record carries a CRC, so
+ * on startup the segments are scanned to rebuild the in-memory block index and
+ * a record torn by a crash simply ends its segment. Whole segments are deleted
+ * once everything in them is older than {@code retention}. Full blocks are
+ * sealed on the {@link TelemetryWriteQueue}, not on the ingest thread; a block
+ * keeps taking readings until its seal runs, and is only sealed in place if
+ * the writer falls a whole block behind.
+ * </p>
+ * <p>
+ * The archive only sees readings this instance ingested while it was running.
+ * Every startup opens a new session, and {@link #covers} only vouches for a
+ * range that lies inside a single session of that vehicle; anything else has
+ * to come from DynamoDB.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TelemetryArchive {
+
+    static final int BLOCK_POINTS = 256;
+    /** Readings an open block holds while its seal waits on the write queue. */
+    private static final int BLOCK_CAPACITY = BLOCK_POINTS * 2;
+
+    private static final int MAGIC = 0x544C4D31; // "TLM1"
+    // magic, payload length, vehicle id, session, count, min ts, max ts
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 8 + 8;
+    private static final int TRAILER_BYTES = 4; // CRC32 of header (after magic) + payload
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.tlm");
+
+    /**
+     * Location and summary of one sealed block.
+     */
+    record BlockRef(int segment, int offset, int payloadLength, int session, int count, long minTs, long maxTs) {
+    }
+
+    /**
+     * Readings of one vehicle older than a timestamp, newest first.
+     *
+     * @param completeFrom readings at or after this timestamp are all in the
+     *                     archive; {@link Long#MAX_VALUE} when it has none
+     */
+    public record Snapshot(List<TelemetryPoint> points, long completeFrom) {
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final Duration retention;
+    private final Duration blockMaxAge;
+    private final TelemetryWriteQueue writeQueue;
+
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    // Sealed blocks of each vehicle, oldest first.
+    private final ConcurrentHashMap<Long, List<BlockRef>> index = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, OpenBlock> openBlocks = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private Segment active; // guarded by writeLock
+    private int session;
+
+    public TelemetryArchive(@Value("${vehicles.telemetry.archive.enabled:true}") boolean enabled,
+            @Value("${vehicles.telemetry.archive.dir:./data/telemetry-archive}") Path dir,
+            @Value("${vehicles.telemetry.archive.segment-bytes:33554432}") int segmentBytes,
+            @Value("${vehicles.telemetry.archive.retention:P3D}") Duration retention,
+            @Value("${vehicles.telemetry.archive.block-max-age:PT5M}") Duration blockMaxAge,
+            TelemetryWriteQueue writeQueue) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.retention = retention;
+        this.blockMaxAge = blockMaxAge;
+        this.writeQueue = writeQueue;
+        if (enabled) open();
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(dir);
+            int maxSession = -1;
+            int lastSegment = -1;
+            try (var files = Files.list(dir)) {
+                for (Path file : files.sorted().toList()) {
+                    var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (!matcher.matches()) continue;
+                    int id = Integer.parseInt(matcher.group(1));
+                    var segment = Segment.map(id, file, segmentBytes);
+                    segments.put(id, segment);
+                    maxSession = Math.max(maxSession, recover(segment));
+                    lastSegment = Math.max(lastSegment, id);
+                }
+            }
+            index.values().forEach(refs -> refs.sort(Comparator.comparingLong(BlockRef::minTs)));
+            session = maxSession + 1;
+            active = lastSegment >= 0 ? segments.get(lastSegment) : newSegment(0);
+            log.info("Telemetry archive opened at {}: {} segments, {} vehicles, session {}",
+                    dir, segments.size(), index.size(), session);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open telemetry archive at " + dir, e);
+        }
+    }
+
+    /** Indexes every intact block of a segment; returns the highest session seen. */
+    private int recover(Segment segment) {
+        var buffer = segment.buffer.duplicate();
+        int offset = 0;
+        int maxSession = -1;
+        while (offset + HEADER_BYTES + TRAILER_BYTES <= segmentBytes) {
+            buffer.position(offset);
+            if (buffer.getInt() != MAGIC) break;
+            int payloadLength = buffer.getInt();
+            long vehicleId = buffer.getLong();
+            int blockSession = buffer.getInt();
+            int count = buffer.getInt();
+            long minTs = buffer.getLong();
+            long maxTs = buffer.getLong();
+            int end = offset + HEADER_BYTES + payloadLength + TRAILER_BYTES;
+            if (payloadLength < 0 || end > segmentBytes || crc(segment.buffer, offset, payloadLength)
+                    != segment.buffer.getInt(offset + HEADER_BYTES + payloadLength)) {
+                log.warn("Telemetry archive segment {} truncated at offset {}", segment.id, offset);
+                break;
+            }
+            index.computeIfAbsent(vehicleId, id -> new ArrayList<>())
+                    .add(new BlockRef(segment.id, offset, payloadLength, blockSession, count, minTs, maxTs));
+            segment.maxTs = Math.max(segment.maxTs, maxTs);
+            maxSession = Math.max(maxSession, blockSession);
+            offset = end;
+        }
+        segment.writePosition = offset;
+        return maxSession;
+    }
+
+    @EventListener
+    public void on(VehicleTelemetryRecordedEvent event) {
+        if (!enabled || event.vehicleId() == null || event.recordedAt() == null) return;
+        byte flags = (byte) ((event.isLocked() ? TelemetryBlockCodec.LOCKED : 0)
+                | (event.fallDetected() ? TelemetryBlockCodec.FALL : 0)
+                | (event.panicActive() ? TelemetryBlockCodec.PANIC : 0));
+        append(event.vehicleId(), event.recordedAt().toEpochMilli(),
+                event.lat() != null ? event.lat() : Float.NaN,
+                event.lng() != null ? event.lng() : Float.NaN,
+                event.speedKmh(), flags);
+    }
+
+    /** Forgets a deleted vehicle; its blocks stay on disk until their segment expires. */
+    @EventListener
+    public void on(VehicleDeletedEvent event) {
+        openBlocks.remove(event.vehicleId());
+        index.remove(event.vehicleId());
+    }
+
+    void append(long vehicleId, long ts, float lat, float lng, float speed, byte flags) {
+        var block = openBlocks.computeIfAbsent(vehicleId, id -> new OpenBlock());
+        boolean full;
+        synchronized (block) {
+            if (block.count > 0 && ts < block.ts[block.count - 1]) return; // out of order: DynamoDB has it
+            block.add(ts, lat, lng, speed, flags);
+            full = block.count == BLOCK_POINTS;
+            if (block.count == BLOCK_CAPACITY) seal(vehicleId, block);
+        }
+        // Outside the block's monitor: submit may wait for the writer, which takes it to seal.
+        if (full) writeQueue.submit(() -> sealIfFull(vehicleId, block));
+    }
+
+    private void sealIfFull(long vehicleId, OpenBlock block) {
+        synchronized (block) {
+            // Skipped if sealed in place meanwhile, or the vehicle was deleted.
+            if (block.count >= BLOCK_POINTS && openBlocks.get(vehicleId) == block) seal(vehicleId, block);
+        }
+    }
+
+    /** Seals open blocks that have been collecting for longer than block-max-age. */
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.archive.seal-interval-ms:60000}")
+    public void sealStaleBlocks() {
+        if (!enabled) return;
+        long cutoff = System.currentTimeMillis() - blockMaxAge.toMillis();
+        openBlocks.forEach((vehicleId, block) -> {
+            synchronized (block) {
+                if (block.count > 0 && block.openedAt < cutoff) seal(vehicleId, block);
+            }
+        });
+    }
+
+    /** Drops segments whose newest reading is older than the retention window. */
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.archive.retention-check-ms:3600000}")
+    public void enforceRetention() {
+        if (!enabled) return;
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        synchronized (writeLock) {
+            for (var segment : List.copyOf(segments.values())) {
+                if (segment == active || segment.maxTs >= cutoff) continue;
+                segments.remove(segment.id);
+                index.forEach((vehicleId, refs) -> {
+                    synchronized (refs) {
+                        refs.removeIf(ref -> ref.segment() == segment.id);
+                    }
+                });
+                index.values().removeIf(List::isEmpty);
+                try {
+                    Files.deleteIfExists(segment.path);
+                    log.info("Telemetry archive segment {} expired", segment.id);
+                } catch (IOException e) {
+                    log.warn("Could not delete telemetry archive segment {}: {}", segment.id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) return;
+        openBlocks.forEach((vehicleId, block) -> {
+            synchronized (block) {
+                if (block.count > 0) seal(vehicleId, block);
+            }
+        });
+        synchronized (writeLock) {
+            segments.values().forEach(segment -> segment.buffer.force());
+        }
+    }
+
+    /**
+     * True if every reading of the vehicle with {@code fromTs <= ts <= toTs}
+     * is in the archive: the range lies inside one session, and a range
+     * inside the current session may extend to the present.
+     */
+    public boolean covers(long vehicleId, long fromTs, long toTs) {
+        if (!enabled) return false;
+        long[] current = sessionBounds(vehicleId, session);
+        if (current != null && fromTs >= current[0]) return true;
+        for (var ref : refs(vehicleId)) {
+            if (ref.session() == session) continue;
+            long[] bounds = sessionBounds(vehicleId, ref.session());
+            if (bounds != null && fromTs >= bounds[0] && toTs <= bounds[1]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Up to {@code limit} readings of the current session older than
+     * {@code beforeTs}, newest first. Blocks are read newest first and only
+     * until {@code limit} readings are found.
+     */
+    public Snapshot newest(long vehicleId, int limit, long beforeTs) {
+        long[] current = enabled ? sessionBounds(vehicleId, session) : null;
+        if (current == null) return new Snapshot(List.of(), Long.MAX_VALUE);
+        long fromTs = current[0];
+        var points = new ArrayList<TelemetryPoint>(Math.min(limit, BLOCK_CAPACITY));
+        var block = openBlocks.get(vehicleId);
+        if (block != null) {
+            synchronized (block) {
+                for (int i = block.count - 1; i >= 0 && points.size() < limit; i--) {
+                    if (block.ts[i] >= fromTs && block.ts[i] < beforeTs) {
+                        points.add(toPoint(block.ts[i], block.lat[i], block.lng[i], block.speed[i], block.flags[i]));
+                    }
+                }
+            }
+        }
+        var refs = refs(vehicleId);
+        var blockPoints = new ArrayList<TelemetryPoint>(BLOCK_CAPACITY);
+        for (int r = refs.size() - 1; r >= 0 && points.size() < limit; r--) {
+            var ref = refs.get(r);
+            if (ref.maxTs() < fromTs || ref.minTs() >= beforeTs) continue;
+            blockPoints.clear();
+            decode(ref, fromTs, beforeTs - 1, blockPoints::add);
+            for (int i = blockPoints.size() - 1; i >= 0 && points.size() < limit; i--) {
+                points.add(blockPoints.get(i));
+            }
+        }
+        return new Snapshot(points, fromTs);
+    }
+
+    /**
+     * Up to {@code max} readings with {@code fromTs <= ts <= toTs}, oldest
+     * first. Callers check {@link #covers} first. Blocks are only read until
+     * {@code max} readings are found.
+     */
+    public List<TelemetryPoint> range(long vehicleId, long fromTs, long toTs, int max) {
+        var points = new ArrayList<TelemetryPoint>();
+        if (!enabled) return points;
+        Consumer<TelemetryPoint> sink = point -> {
+            if (points.size() < max) points.add(point);
+        };
+        for (var ref : refs(vehicleId)) {
+            if (points.size() >= max) return points;
+            if (ref.maxTs() < fromTs || ref.minTs() > toTs) continue;
+            decode(ref, fromTs, toTs, sink);
+        }
+        var block = openBlocks.get(vehicleId);
+        if (block != null) {
+            synchronized (block) {
+                for (int i = 0; i < block.count && points.size() < max; i++) {
+                    if (block.ts[i] >= fromTs && block.ts[i] <= toTs) {
+                        points.add(toPoint(block.ts[i], block.lat[i], block.lng[i], block.speed[i], block.flags[i]));
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /** Bytes used by sealed blocks (headers included) and the number of readings in them. */
+    public long[] footprint() {
+        long bytes = 0;
+        long readings = 0;
+        for (var refs : index.values()) {
+            for (var ref : snapshot(refs)) {
+                bytes += HEADER_BYTES + ref.payloadLength() + TRAILER_BYTES;
+                readings += ref.count();
+            }
+        }
+        return new long[] { bytes, readings };
+    }
+
+    // Readings of one sealed block with fromTs <= ts <= toTs, oldest first.
+    private void decode(BlockRef ref, long fromTs, long toTs, Consumer<TelemetryPoint> sink) {
+        var segment = segments.get(ref.segment());
+        if (segment == null) return; // expired meanwhile
+        byte[] payload = new byte[ref.payloadLength()];
+        segment.buffer.get(ref.offset() + HEADER_BYTES, payload);
+        TelemetryBlockCodec.decode(payload, ref.count(), (ts, lat, lng, speed, flags) -> {
+            if (ts >= fromTs && ts <= toTs) sink.accept(toPoint(ts, lat, lng, speed, flags));
+        });
+    }
+
+    /** [first ts, last ts] of one session of a vehicle, or null if it has no readings in it. */
+    private long[] sessionBounds(long vehicleId, int sessionId) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (var ref : refs(vehicleId)) {
+            if (ref.session() != sessionId) continue;
+            min = Math.min(min, ref.minTs());
+            max = Math.max(max, ref.maxTs());
+        }
+        if (sessionId == session) {
+            var block = openBlocks.get(vehicleId);
+            if (block != null) {
+                synchronized (block) {
+                    if (block.count > 0) {
+                        min = Math.min(min, block.ts[0]);
+                        max = Math.max(max, block.ts[block.count - 1]);
+                    }
+                }
+            }
+        }
+        return min == Long.MAX_VALUE ? null : new long[] { min, max };
+    }
+
+    private List<BlockRef> refs(long vehicleId) {
+        var refs = index.get(vehicleId);
+        return refs != null ? snapshot(refs) : List.of();
+    }
+
+    private static List<BlockRef> snapshot(List<BlockRef> refs) {
+        synchronized (refs) {
+            return List.copyOf(refs);
+        }
+    }
+
+    private void seal(long vehicleId, OpenBlock block) {
+        byte[] payload = TelemetryBlockCodec.encode(block.ts, block.lat, block.lng, block.speed, block.flags,
+                block.count);
+        int recordBytes = HEADER_BYTES + payload.length + TRAILER_BYTES;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalStateException("Telemetry block larger than a segment: " + recordBytes + " bytes");
+        }
+        BlockRef ref;
+        synchronized (writeLock) {
+            if (active.writePosition + recordBytes > segmentBytes) {
+                active.buffer.force();
+                active = newSegment(active.id + 1);
+            }
+            int offset = active.writePosition;
+            var buffer = active.buffer;
+            buffer.putInt(offset + 4, payload.length);
+            buffer.putLong(offset + 8, vehicleId);
+            buffer.putInt(offset + 16, session);
+            buffer.putInt(offset + 20, block.count);
+            buffer.putLong(offset + 24, block.ts[0]);
+            buffer.putLong(offset + 32, block.ts[block.count - 1]);
+            buffer.put(offset + HEADER_BYTES, payload);
+            buffer.putInt(offset + HEADER_BYTES + payload.length, crc(buffer, offset, payload.length));
+            // Magic last: a record is only visible to recovery once complete.
+            buffer.putInt(offset, MAGIC);
+            active.writePosition = offset + recordBytes;
+            active.maxTs = Math.max(active.maxTs, block.ts[block.count - 1]);
+            ref = new BlockRef(active.id, offset, payload.length, session, block.count, block.ts[0],
+                    block.ts[block.count - 1]);
+        }
+        var refs = index.computeIfAbsent(vehicleId, id -> new ArrayList<>());
+        synchronized (refs) {
+            refs.add(ref);
+        }
+        block.clear();
+    }
+
+    private Segment newSegment(int id) {
+        try {
+            var segment = Segment.map(id, dir.resolve(String.format("segment-%08d.tlm", id)), segmentBytes);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create telemetry archive segment " + id, e);
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int payloadLength) {
+        var crc = new CRC32();
+        crc.update(buffer.slice(offset + 4, HEADER_BYTES - 4 + payloadLength));
+        return (int) crc.getValue();
+    }
+
+    private static TelemetryPoint toPoint(long ts, float lat, float lng, float speed, byte flags) {
+        return new TelemetryPoint(ts,
+                Float.isNaN(lat) ? null : lat,
+                Float.isNaN(lng) ? null : lng,
+                speed,
+                (flags & TelemetryBlockCodec.LOCKED) != 0,
+                (flags & TelemetryBlockCodec.FALL) != 0,
+                (flags & TelemetryBlockCodec.PANIC) != 0);
+    }
+
+    /**
+     * One memory-mapped segment file.
+     */
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        volatile int writePosition;
+        volatile long maxTs = Long.MIN_VALUE;
+
+        private Segment(int id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        static Segment map(int id, Path path, int size) throws IOException {
+            try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                // The mapping outlives the channel; mapping past EOF grows the file (zero-filled).
+                return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+    }
+
+    /**
+     * Readings of one vehicle not sealed yet; guarded by its own monitor.
+     */
+    private static final class OpenBlock {
+        final long[] ts = new long[BLOCK_CAPACITY];
+        final float[] lat = new float[BLOCK_CAPACITY];
+        final float[] lng = new float[BLOCK_CAPACITY];
+        final float[] speed = new float[BLOCK_CAPACITY];
+        final byte[] flags = new byte[BLOCK_CAPACITY];
+        int count;
+        long openedAt;
+
+        void add(long t, float la, float ln, float sp, byte fl) {
+            if (count == 0) openedAt = System.currentTimeMillis();
+            ts[count] = t;
+            lat[count] = la;
+            lng[count] = ln;
+            speed[count] = sp;
+            flags[count] = fl;
+            count++;
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+}
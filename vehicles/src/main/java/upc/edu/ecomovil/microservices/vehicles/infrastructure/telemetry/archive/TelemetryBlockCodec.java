@@ -0,0 +1,192 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+/**
+ * Gorilla-style compression of one vehicle's telemetry block (Pelkonen et
+ * al., "Gorilla: A Fast, Scalable, In-Memory Time Series Database", 2015).
+ * <p>
+ * Timestamps are stored as delta-of-deltas with variable-length prefixes, so
+ * a device reporting at a steady rate costs one bit per reading. lat, lng and
+ * speed are each XORed with their previous value and only the meaningful bits
+ * of the XOR are written, reusing the previous leading/trailing-zero window
+ * when it fits; a parked bike costs one bit per value. The three alert flags
+ * cost one bit while unchanged. Missing positions are stored as NaN.
+ * </p>
+ */
+public final class TelemetryBlockCodec {
+
+    public static final byte LOCKED = 1;
+    public static final byte FALL = 2;
+    public static final byte PANIC = 4;
+
+    /**
+     * Receives decoded readings without boxing them.
+     */
+    @FunctionalInterface
+    public interface PointSink {
+        void accept(long ts, float lat, float lng, float speedKmh, byte flags);
+    }
+
+    private TelemetryBlockCodec() {
+    }
+
+    /**
+     * Encodes the first {@code count} readings of the parallel arrays.
+     * Timestamps must not decrease.
+     */
+    public static byte[] encode(long[] ts, float[] lat, float[] lng, float[] speed, byte[] flags, int count) {
+        var out = new BitWriter(count * 2 + 32);
+        if (count == 0) return out.toByteArray();
+
+        out.writeBits(ts[0], 64);
+        out.writeBits(flags[0], 3);
+        var latState = new XorState(out, lat[0]);
+        var lngState = new XorState(out, lng[0]);
+        var speedState = new XorState(out, speed[0]);
+
+        long prevTs = ts[0];
+        long prevDelta = 0;
+        byte prevFlags = flags[0];
+        for (int i = 1; i < count; i++) {
+            long delta = ts[i] - prevTs;
+            writeDeltaOfDelta(out, delta - prevDelta);
+            prevDelta = delta;
+            prevTs = ts[i];
+
+            latState.write(lat[i]);
+            lngState.write(lng[i]);
+            speedState.write(speed[i]);
+
+            if (flags[i] == prevFlags) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                out.writeBits(flags[i], 3);
+                prevFlags = flags[i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static void decode(byte[] payload, int count, PointSink sink) {
+        if (count == 0) return;
+        var in = new BitReader(payload);
+
+        long ts = in.readBits(64);
+        byte flags = (byte) in.readBits(3);
+        var latState = new XorState(in);
+        var lngState = new XorState(in);
+        var speedState = new XorState(in);
+        sink.accept(ts, latState.value(), lngState.value(), speedState.value(), flags);
+
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            ts += delta;
+            float la = latState.read(in);
+            float ln = lngState.read(in);
+            float sp = speedState.read(in);
+            if (in.readBit()) flags = (byte) in.readBits(3);
+            sink.accept(ts, la, ln, sp, flags);
+        }
+    }
+
+    // Prefix buckets from the Gorilla paper, widened for millisecond timestamps.
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 12);
+        } else if (dod >= Integer.MIN_VALUE && dod <= Integer.MAX_VALUE) {
+            out.writeBits(0b11110, 5);
+            out.writeBits(dod, 32);
+        } else {
+            out.writeBits(0b11111, 5);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) return 0;
+        if (!in.readBit()) return signExtend(in.readBits(7), 7);
+        if (!in.readBit()) return signExtend(in.readBits(9), 9);
+        if (!in.readBit()) return signExtend(in.readBits(12), 12);
+        if (!in.readBit()) return signExtend(in.readBits(32), 32);
+        return in.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * XOR encoder/decoder state of one float column.
+     */
+    private static final class XorState {
+        private final BitWriter out;
+        private int prevBits;
+        private int leading = -1;
+        private int trailing;
+
+        XorState(BitWriter out, float first) {
+            this.out = out;
+            this.prevBits = Float.floatToRawIntBits(first);
+            out.writeBits(prevBits & 0xffffffffL, 32);
+        }
+
+        XorState(BitReader in) {
+            this.out = null;
+            this.prevBits = (int) in.readBits(32);
+        }
+
+        float value() {
+            return Float.intBitsToFloat(prevBits);
+        }
+
+        void write(float v) {
+            int bits = Float.floatToRawIntBits(v);
+            int xor = bits ^ prevBits;
+            prevBits = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int lead = Math.min(Integer.numberOfLeadingZeros(xor), 31);
+            int trail = Integer.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                out.writeBit(false);
+                out.writeBits((xor >>> trailing) & 0xffffffffL, 32 - leading - trailing);
+            } else {
+                leading = lead;
+                trailing = trail;
+                int meaningful = 32 - lead - trail;
+                out.writeBit(true);
+                out.writeBits(lead, 5);
+                out.writeBits(meaningful - 1, 5);
+                out.writeBits((xor >>> trail) & 0xffffffffL, meaningful);
+            }
+        }
+
+        float read(BitReader in) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(5) + 1;
+                    trailing = 32 - leading - meaningful;
+                }
+                int meaningful = 32 - leading - trailing;
+                int xor = (int) (in.readBits(meaningful) << trailing);
+                prevBits ^= xor;
+            }
+            return Float.intBitsToFloat(prevBits);
+        }
+    }
+}
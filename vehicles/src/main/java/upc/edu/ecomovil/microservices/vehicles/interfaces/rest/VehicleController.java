@@ -5,6 +5,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -12,36 +14,89 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
 
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
-import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleReservedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAlertsQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetCurrentTripQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetTripsByVehicleIdQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehicleByIdQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAllVehiclesByTypeQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetNearbyVehiclesQuery;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesByOwnerIdQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetVehiclesPageQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.StreamAllVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Geofence;
+import upc.edu.ecomovil.microservices.vehicles.domain.services.TripQueryService;
 import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleCommandService;
+import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleAlertQueryService;
 import upc.edu.ecomovil.microservices.vehicles.domain.services.VehicleQueryService;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
 import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.CreateVehicleResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.HeatmapCellResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.NearbyVehicleResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.OfflineVehicleResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.TelemetryPointResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.TripResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleAlertResource;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleClusterResource;
 import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleResource;
 import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.CreateVehicleCommandFromResourceAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.HeatmapCellResourceFromValueAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.NearbyVehicleResourceFromEntityAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.OfflineVehicleResourceFromValueAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.RecordTelemetryCommandFromFrameAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.TelemetryPointResourceFromValueAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.TripResourceFromEntityAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.VehicleAlertResourceFromEntityAssembler;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.VehicleClusterResourceFromValueAssembler;
 import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.VehicleResourceFromEntityAssembler;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.security.JwtUserDetails;
 import upc.edu.ecomovil.microservices.vehicles.application.internal.outboundservices.acl.ExternalUserService;
 
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.S3Service;
-import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.BedrockChatService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.cache.ChatCandidateSnapshot;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.cache.ChatReplyCache;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatBulkhead;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatModel;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatSession;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatSessionStore;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.VidTagStripper;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.IoTCoreService;
 import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.TelemetryHistoryService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.geo.DemandHeatmap;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.geo.VehicleClusterIndex;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.DeviceLivenessMonitor;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryDownsampler;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryIngestionBuffer;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryStreamHub;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.util.Comparator;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * REST Controller for Vehicle Management
@@ -60,26 +115,75 @@ public class VehicleController {
     private final VehicleRepository vehicleRepository;
     private final ExternalUserService externalUserService;
     private final S3Service s3Service;
-    private final BedrockChatService bedrockChatService;
+    private final ChatModel chatModel;
+    private final ChatBulkhead chatBulkhead;
+    private final ChatSessionStore chatSessionStore;
     private final IoTCoreService iotCoreService;
     private final TelemetryHistoryService telemetryHistoryService;
+    private final ObjectMapper objectMapper;
+    private final ChatCandidateSnapshot chatCandidateSnapshot;
+    private final ChatReplyCache chatReplyCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TelemetryIngestionBuffer telemetryIngestionBuffer;
+    private final TelemetryStreamHub telemetryStreamHub;
+    private final DeviceLivenessMonitor deviceLivenessMonitor;
+    private final TripQueryService tripQueryService;
+    private final VehicleClusterIndex clusterIndex;
+    private final DemandHeatmap demandHeatmap;
+    private final VehicleAlertQueryService vehicleAlertQueryService;
+    // Shared secrets of the Lambda bridge (X-IoT-Key) and the reservations service (X-Service-Key).
+    private final String iotKey;
+    private final String serviceKey;
+    private final Duration maxClockSkew;
 
     public VehicleController(VehicleQueryService vehicleQueryService,
             VehicleCommandService vehicleCommandService,
             VehicleRepository vehicleRepository,
             ExternalUserService externalUserService,
             S3Service s3Service,
-            BedrockChatService bedrockChatService,
+            ChatModel chatModel,
+            ChatBulkhead chatBulkhead,
+            ChatSessionStore chatSessionStore,
             IoTCoreService iotCoreService,
-            TelemetryHistoryService telemetryHistoryService) {
+            TelemetryHistoryService telemetryHistoryService,
+            ObjectMapper objectMapper,
+            ChatCandidateSnapshot chatCandidateSnapshot,
+            ChatReplyCache chatReplyCache,
+            ApplicationEventPublisher eventPublisher,
+            TelemetryIngestionBuffer telemetryIngestionBuffer,
+            TelemetryStreamHub telemetryStreamHub,
+            DeviceLivenessMonitor deviceLivenessMonitor,
+            TripQueryService tripQueryService,
+            VehicleClusterIndex clusterIndex,
+            DemandHeatmap demandHeatmap,
+            VehicleAlertQueryService vehicleAlertQueryService,
+            @Value("${IOT_KEY:}") String iotKey,
+            @Value("${SERVICE_KEY:}") String serviceKey,
+            @Value("${vehicles.telemetry.max-clock-skew:PT5M}") Duration maxClockSkew) {
         this.vehicleQueryService = vehicleQueryService;
         this.vehicleCommandService = vehicleCommandService;
         this.vehicleRepository = vehicleRepository;
         this.externalUserService = externalUserService;
         this.s3Service = s3Service;
-        this.bedrockChatService = bedrockChatService;
+        this.chatModel = chatModel;
+        this.chatBulkhead = chatBulkhead;
+        this.chatSessionStore = chatSessionStore;
         this.iotCoreService = iotCoreService;
         this.telemetryHistoryService = telemetryHistoryService;
+        this.objectMapper = objectMapper;
+        this.chatCandidateSnapshot = chatCandidateSnapshot;
+        this.chatReplyCache = chatReplyCache;
+        this.eventPublisher = eventPublisher;
+        this.telemetryIngestionBuffer = telemetryIngestionBuffer;
+        this.telemetryStreamHub = telemetryStreamHub;
+        this.deviceLivenessMonitor = deviceLivenessMonitor;
+        this.tripQueryService = tripQueryService;
+        this.clusterIndex = clusterIndex;
+        this.demandHeatmap = demandHeatmap;
+        this.vehicleAlertQueryService = vehicleAlertQueryService;
+        this.iotKey = iotKey;
+        this.serviceKey = serviceKey;
+        this.maxClockSkew = maxClockSkew;
     }
 
     /**
@@ -126,27 +230,150 @@ public class VehicleController {
         }
     }
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     /**
-     * Get all vehicles - public endpoint for browsing available vehicles
+     * Get all vehicles - public endpoint for browsing available vehicles.
+     * Keyset-paginated on id: pass the X-Next-Cursor header of one page as
+     * {@code after} to get the next one. The header is absent on the last page.
+     * <p>
+     * Breaking change: this used to return the whole catalog in one response.
+     * A client that does not follow X-Next-Cursor now only sees the first
+     * {@value #DEFAULT_PAGE_SIZE} vehicles; ask for the NDJSON stream below to
+     * get them all in one request.
+     * </p>
      */
-    @Operation(summary = "Get all vehicles", description = "Gets all vehicles available in the system")
+    @Operation(summary = "Get all vehicles", description = "Gets a page of the vehicles available in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Vehicles found"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping
-    public ResponseEntity<List<VehicleResource>> getAllVehicles() {
-        log.info("Getting all vehicles");
+    public ResponseEntity<List<VehicleResource>> getAllVehicles(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        log.info("Getting vehicles after id {} (size {})", after, pageSize);
 
-        var getAllVehiclesQuery = new GetAllVehiclesQuery();
-        var vehicles = vehicleQueryService.handle(getAllVehiclesQuery);
+        var getVehiclesPageQuery = new GetVehiclesPageQuery(after, pageSize, type, available, minPrice, maxPrice);
+        var vehicles = vehicleQueryService.handle(getVehiclesPageQuery);
 
         var vehicleResources = vehicles.stream()
                 .map(VehicleResourceFromEntityAssembler::toResourceFromEntity)
                 .collect(Collectors.toList());
 
         log.info("Found {} vehicles", vehicleResources.size());
-        return ResponseEntity.ok(vehicleResources);
+        var response = ResponseEntity.ok();
+        if (vehicles.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(vehicles.get(vehicles.size() - 1).getId()));
+        }
+        return response.body(vehicleResources);
+    }
+
+    /**
+     * Get all vehicles as newline-delimited JSON, one vehicle per line, read
+     * from a database cursor and written as it is read.
+     */
+    @Operation(summary = "Stream all vehicles", description = "Streams the filtered vehicle catalog as NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vehicles streamed"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        log.info("Streaming vehicles");
+
+        var streamAllVehiclesQuery = new StreamAllVehiclesQuery(type, available, minPrice, maxPrice);
+        StreamingResponseBody body = out -> vehicleQueryService.handle(streamAllVehiclesQuery, vehicle -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(VehicleResourceFromEntityAssembler.toResourceFromEntity(vehicle)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static final double MAX_NEARBY_RADIUS_KM = 50;
+
+    /**
+     * Get available vehicles around a point, nearest first. Candidates come
+     * from a bounding-box query on the location index; exact distance is only
+     * computed for those.
+     */
+    @Operation(summary = "Get vehicles near me", description = "Gets available vehicles within radiusKm of lat/lng, "
+            + "sorted by distance, optionally up to a daily rent price (maxRentPrice)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vehicles found"),
+            @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius or limit"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyVehicleResource>> getNearbyVehicles(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "2") double radiusKm,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Double maxRentPrice,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180
+                || radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        var getNearbyVehiclesQuery = new GetNearbyVehiclesQuery(lat, lng, radiusKm, type, maxRentPrice,
+                Math.min(limit, MAX_PAGE_SIZE));
+        var vehicles = vehicleQueryService.handle(getNearbyVehiclesQuery);
+
+        var nearbyResources = vehicles.stream()
+                .map(NearbyVehicleResourceFromEntityAssembler::toResourceFromEntity)
+                .collect(Collectors.toList());
+
+        log.info("Found {} vehicles within {} km of ({}, {})", nearbyResources.size(), radiusKm, lat, lng);
+        return ResponseEntity.ok(nearbyResources);
+    }
+
+    /**
+     * Get the fleet grouped into map clusters for the visible area. Clusters
+     * are maintained incrementally as vehicles move, so this only reads the
+     * cells on screen.
+     */
+    @Operation(summary = "Get vehicle clusters", description = "Gets vehicle clusters for a map viewport. bbox is "
+            + "minLng,minLat,maxLng,maxLat; zoom is the map zoom level (0-" + VehicleClusterIndex.MAX_ZOOM
+            + ", higher values use the finest level). Single-vehicle clusters carry the vehicle id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Clusters found"),
+            @ApiResponse(responseCode = "400", description = "Invalid bounding box or zoom"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/clusters")
+    public ResponseEntity<List<VehicleClusterResource>> getVehicleClusters(
+            @RequestParam double[] bbox,
+            @RequestParam int zoom) {
+        if (bbox.length != 4 || zoom < 0
+                || bbox[0] < -180 || bbox[2] > 180 || bbox[0] > bbox[2]
+                || bbox[1] < -90 || bbox[3] > 90 || bbox[1] > bbox[3]) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        var clusterResources = clusterIndex.clusters(bbox[1], bbox[0], bbox[3], bbox[2], zoom).stream()
+                .map(VehicleClusterResourceFromValueAssembler::toResourceFromValue)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(clusterResources);
     }
 
     /**
@@ -283,6 +510,7 @@ public class VehicleController {
             vehicle.updateDescription(resource.description());
 
             var savedVehicle = vehicleRepository.save(vehicle);
+            eventPublisher.publishEvent(new VehicleSavedEvent(savedVehicle));
             var vehicleResource = VehicleResourceFromEntityAssembler.toResourceFromEntity(savedVehicle);
 
             return ResponseEntity.ok(vehicleResource);
@@ -327,6 +555,7 @@ public class VehicleController {
 
         try {
             vehicleRepository.delete(vehicle);
+            eventPublisher.publishEvent(new VehicleDeletedEvent(vehicleId));
             log.info("Vehicle {} deleted successfully by user {}", vehicleId, userId);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
@@ -355,6 +584,45 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleResources);
     }
 
+    /**
+     * Get vehicles whose IoT device stopped reporting (Admin only)
+     */
+    @Operation(summary = "Get offline vehicles", description = "Vehicles whose IoT device has not reported within the offline timeout, silent the longest first (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Offline vehicles"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    @GetMapping("/admin/offline")
+    public ResponseEntity<List<OfflineVehicleResource>> getOfflineVehicles() {
+        var offlineResources = deviceLivenessMonitor.offlineDevices().stream()
+                .map(OfflineVehicleResourceFromValueAssembler::toResourceFromValue)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(offlineResources);
+    }
+
+    /**
+     * Get available vehicles and recent reservations per geohash cell (Admin only)
+     */
+    @Operation(summary = "Get demand heatmap", description = "Available vehicles and reservations within the "
+            + "reservation window per geohash cell, for rebalancing the fleet. precision is the geohash length ("
+            + DemandHeatmap.MIN_PRECISION + "-" + DemandHeatmap.MAX_PRECISION + ") (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Heatmap cells"),
+            @ApiResponse(responseCode = "400", description = "Invalid precision"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    @GetMapping("/admin/heatmap")
+    public ResponseEntity<List<HeatmapCellResource>> getDemandHeatmap(
+            @RequestParam(defaultValue = "6") int precision) {
+        if (precision < DemandHeatmap.MIN_PRECISION || precision > DemandHeatmap.MAX_PRECISION) {
+            return ResponseEntity.badRequest().build();
+        }
+        var cellResources = demandHeatmap.cells(precision).stream()
+                .map(HeatmapCellResourceFromValueAssembler::toResourceFromValue)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(cellResources);
+    }
+
     /**
      * Upload a vehicle image to S3
      */
@@ -405,17 +673,60 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleResource);
     }
 
+    public record ReservationNotification(Long reservationId) {
+    }
+
+    /**
+     * Record that a vehicle was reserved
+     * Called by the reservations service after saving a reservation, to feed
+     * the demand heatmap. Not JWT-protected — only that service knows the
+     * shared secret header X-Service-Key. The same reservation id is only
+     * counted once, so the call can be retried
+     */
+    @Operation(summary = "Record a reservation", description = "Internal endpoint; counts a new reservation of the vehicle in the demand heatmap")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reservation recorded"),
+            @ApiResponse(responseCode = "400", description = "Missing reservation id"),
+            @ApiResponse(responseCode = "404", description = "Vehicle not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping("/{vehicleId}/reservations")
+    public ResponseEntity<Void> recordReservation(@PathVariable Long vehicleId,
+            @RequestBody ReservationNotification body,
+            @RequestHeader(value = "X-Service-Key", required = false) String serviceKey) {
+
+        if (!isValidServiceKey(serviceKey)) {
+            log.warn("Reservation of vehicle {} rejected: invalid or missing X-Service-Key", vehicleId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (body == null || body.reservationId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        var vehicle = vehicleQueryService.handle(new GetVehicleByIdQuery(vehicleId));
+        if (vehicle.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        eventPublisher.publishEvent(new VehicleReservedEvent(vehicleId, body.reservationId(), Instant.now()));
+        return ResponseEntity.noContent().build();
+    }
+
     public record ChatHistoryTurn(String role, String text) {
     }
 
-    public record ChatRequest(String message, Float lat, Float lng, String userName, List<ChatHistoryTurn> history) {
+    /**
+     * {@code sessionId} is the one of the previous response. {@code history}
+     * is only read when there is no such session (first message, expired).
+     */
+    public record ChatRequest(String message, Float lat, Float lng, String userName, List<ChatHistoryTurn> history,
+            String sessionId) {
     }
 
     public record ChatSuggestion(Long id, String name, String type, Double priceSell, Double priceRent,
             String imageUrl, Double distanceKm) {
     }
 
-    public record ChatResponse(String reply, List<ChatSuggestion> suggestions) {
+    public record ChatResponse(String reply, List<ChatSuggestion> suggestions, String sessionId) {
     }
 
     private static final java.util.regex.Pattern BUDGET_PATTERN = java.util.regex.Pattern.compile(
@@ -426,6 +737,7 @@ public class VehicleController {
     // same way distance already is - the model only ever sees pre-filtered
     // candidates, never the full catalog.
     private static Double extractBudget(String text) {
+        if (text == null) return null;
         var matcher = BUDGET_PATTERN.matcher(text);
         Double last = null;
         while (matcher.find()) {
@@ -444,30 +756,144 @@ public class VehicleController {
      */
     @Operation(summary = "Chat with the sales bot", description = "Suggests nearby available vehicles via Bedrock")
     @PostMapping("/chat")
-    public ResponseEntity<ChatResponse> chat(@RequestBody ChatRequest request) {
-        var available = vehicleRepository.findAllByIsAvailable(true);
+    public CompletableFuture<ResponseEntity<ChatResponse>> chat(@RequestBody ChatRequest request) {
+        var prompt = prepareChat(request);
+        // Identical prompts over the same catalog get the same reply, so it is
+        // only asked from the model once; failures are not cached.
+        var cached = chatReplyCache.get(prompt.cacheKey());
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(finishChat(request, prompt, cached.get())));
+        }
+        // The model is called on the chat bulkhead; this request thread is
+        // released until the reply (or the busy answer) is ready.
+        return chatBulkhead.submit(() -> chatModel
+                .chat(request.message(), prompt.vehicles(), request.userName(), prompt.history())
+                .map(modelReply -> {
+                    chatReplyCache.put(prompt.cacheKey(), modelReply);
+                    return modelReply;
+                })
+                .orElse(ChatModel.UNAVAILABLE_REPLY), () -> ChatBulkhead.BUSY_REPLY)
+                .thenApply(rawReply -> ResponseEntity.ok(finishChat(request, prompt, rawReply)));
+    }
+
+    public record ChatDelta(String text) {
+    }
+
+    private static final long CHAT_STREAM_TIMEOUT_MS = 60_000;
+
+    /**
+     * POST /api/v1/vehicles/chat/stream
+     * Same conversation as /chat, answered as Server-Sent Events while the
+     * model writes: {@code event: delta} with the next piece of text, [vid:N]
+     * tags already removed, then one {@code event: suggestions} with the whole
+     * {@link ChatResponse}. Its reply is the one to keep; it only differs from
+     * the deltas when the guardrail stopped the answer. Public, like /chat.
+     */
+    @Operation(summary = "Chat with the sales bot (streamed)", description = "Streams the Bedrock reply as Server-Sent Events")
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> chatStream(@RequestBody ChatRequest request) {
+        var prompt = prepareChat(request);
+        var emitter = new SseEmitter(CHAT_STREAM_TIMEOUT_MS);
+
+        var cached = chatReplyCache.get(prompt.cacheKey());
+        if (cached.isPresent()) {
+            var response = finishChat(request, prompt, cached.get());
+            if (sendChatEvent(emitter, "delta", new ChatDelta(response.reply()))
+                    && sendChatEvent(emitter, "suggestions", response)) {
+                emitter.complete();
+            }
+            return ResponseEntity.ok(emitter);
+        }
+
+        var stripper = new VidTagStripper();
+        var closed = new AtomicBoolean();
+        var call = new AtomicReference<CompletableFuture<Optional<String>>>();
+        chatBulkhead.submit(() -> {
+            if (closed.get()) return ChatModel.UNAVAILABLE_REPLY; // the user left while queued
+            var stream = chatModel.chatStream(request.message(), prompt.vehicles(), request.userName(),
+                    prompt.history(), text -> {
+                        String visible = stripper.accept(text);
+                        if (!visible.isEmpty()) sendChatEvent(emitter, "delta", new ChatDelta(visible));
+                    });
+            call.set(stream);
+            if (closed.get()) stream.cancel(true);
+            // Waited for here so the stream keeps its bulkhead slot until it ends.
+            return stream.join()
+                    .map(modelReply -> {
+                        chatReplyCache.put(prompt.cacheKey(), modelReply);
+                        return modelReply;
+                    })
+                    .orElse(ChatModel.UNAVAILABLE_REPLY);
+        }, () -> ChatBulkhead.BUSY_REPLY).thenAccept(rawReply -> {
+            String rest = stripper.finish();
+            if (!rest.isEmpty()) sendChatEvent(emitter, "delta", new ChatDelta(rest));
+            if (sendChatEvent(emitter, "suggestions", finishChat(request, prompt, rawReply))) emitter.complete();
+        });
+        // Once the response is over (done, timed out or the user left) stop
+        // paying for tokens nobody reads; a no-op when the reply was complete.
+        Runnable stop = () -> {
+            closed.set(true);
+            var stream = call.get();
+            if (stream != null) stream.cancel(true);
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(e -> stop.run());
+        return ResponseEntity.ok(emitter);
+    }
+
+    // False when the client is gone; the emitter is then completed with the error.
+    private static boolean sendChatEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Candidates and history of one chat message, as the model will see them.
+     */
+    private record ChatPrompt(ChatSession session, Double budgetMentioned,
+            List<ChatCandidateSnapshot.Candidate> candidates, List<ChatModel.ChatTurn> history, boolean hasLocation,
+            ChatReplyCache.Key cacheKey) {
 
-        String pastMessages = request.history() == null ? ""
-                : request.history().stream().map(ChatHistoryTurn::text).reduce("", (a, b) -> a + " " + b);
-        Double budget = extractBudget(pastMessages + " " + request.message());
+        List<Vehicle> vehicles() {
+            return candidates.stream().map(ChatCandidateSnapshot.Candidate::vehicle).toList();
+        }
+    }
 
-        var withinBudget = budget == null ? available
-                : available.stream().filter(v -> v.getPriceSell() != null && v.getPriceSell() <= budget).toList();
-        var pool = withinBudget.isEmpty() ? available : withinBudget;
+    private ChatPrompt prepareChat(ChatRequest request) {
+        // The conversation so far is kept server-side; a client without a
+        // live session may still send it once as history.
+        var session = chatSessionStore.open(request.sessionId(),
+                () -> request.history() == null ? List.of()
+                        : request.history().stream()
+                                .map(t -> new ChatModel.ChatTurn(t.role(), t.text()))
+                                .toList(),
+                () -> request.history() == null ? null
+                        : extractBudget(request.history().stream().map(ChatHistoryTurn::text)
+                                .collect(Collectors.joining(" "))));
+        // The last budget mentioned wins, so only the new message is parsed.
+        Double budgetMentioned = extractBudget(request.message());
+        Double budget = budgetMentioned != null ? budgetMentioned : session.budget();
 
         boolean hasLocation = request.lat() != null && request.lng() != null;
-        var ranked = pool.stream()
-                .sorted(budget != null || !hasLocation
-                        ? Comparator.comparing(v -> v.getPriceSell() == null ? Double.MAX_VALUE : v.getPriceSell())
-                        : Comparator.comparingDouble(v -> distanceKm(request.lat(), request.lng(), v.getLat(), v.getLng())))
-                .limit(3)
-                .toList();
+        long catalogVersion = chatCandidateSnapshot.catalogVersion();
+        // Within budget (everything when nothing fits), nearest first when the
+        // user shared a location, cheapest first otherwise. Served from the
+        // in-memory snapshot, no database round trip.
+        List<ChatCandidateSnapshot.Candidate> ranked = hasLocation
+                ? chatCandidateSnapshot.nearest(request.lat(), request.lng(), budget, 3)
+                : chatCandidateSnapshot.cheapest(budget, 3);
 
         // Greeting-only → pass empty catalog so the model text also stays clean (no vehicle names).
         // Alternative request → skip candidate #1 so the model sees a different pool.
         boolean greetingOnly = isGreetingOnly(request.message());
         boolean wantsAlternative = !greetingOnly && isAlternativeRequest(request.message());
-        List<Vehicle> candidates;
+        List<ChatCandidateSnapshot.Candidate> candidates;
         if (greetingOnly) {
             candidates = List.of();
         } else if (wantsAlternative && ranked.size() > 1) {
@@ -476,29 +902,33 @@ public class VehicleController {
             candidates = ranked;
         }
 
-        var history = request.history() == null ? null
-                : request.history().stream()
-                        .map(t -> new BedrockChatService.ChatTurn(t.role(), t.text()))
-                        .toList();
-
-        String rawReply = bedrockChatService.chat(request.message(), candidates, request.userName(), history);
+        var history = session.turns();
+        var cacheKey = ChatReplyCache.key(request.message(), request.userName(),
+                candidates.stream().map(c -> c.vehicle().getId()).toList(), history, catalogVersion);
+        return new ChatPrompt(session, budgetMentioned, candidates, history, hasLocation, cacheKey);
+    }
 
+    // Builds the response and adds the exchange to the session, unless the
+    // model was not reached: the user should be able to just ask again.
+    private static ChatResponse finishChat(ChatRequest request, ChatPrompt prompt, String rawReply) {
         // Extract vehicle IDs from hidden [vid:N] tags, then strip them from the
         // user-visible reply so the user never sees "[vid:3]".
-        java.util.regex.Pattern vidPattern = java.util.regex.Pattern.compile("\\[vid:(\\d+)\\]");
-        java.util.regex.Matcher vidMatcher = vidPattern.matcher(rawReply);
-        java.util.Set<Long> mentionedIds = new java.util.HashSet<>();
-        while (vidMatcher.find()) mentionedIds.add(Long.parseLong(vidMatcher.group(1)));
-        String reply = rawReply.replaceAll("\\[vid:\\d+\\]", "").trim();
+        var stripper = new VidTagStripper();
+        String reply = (stripper.accept(rawReply) + stripper.finish()).trim();
+        var mentionedIds = stripper.vehicleIds();
 
         List<ChatSuggestion> suggestions;
-        suggestions = candidates.stream()
-                .filter(v -> mentionedIds.contains(v.getId()))
-                .map(v -> new ChatSuggestion(v.getId(), v.getName(), v.getType(), v.getPriceSell(), v.getPriceRent(),
-                        v.getImageUrl(), hasLocation ? distanceKm(request.lat(), request.lng(), v.getLat(), v.getLng()) : null))
+        suggestions = prompt.candidates().stream()
+                .filter(c -> mentionedIds.contains(c.vehicle().getId()))
+                .map(c -> new ChatSuggestion(c.vehicle().getId(), c.vehicle().getName(), c.vehicle().getType(),
+                        c.vehicle().getPriceSell(), c.vehicle().getPriceRent(), c.vehicle().getImageUrl(),
+                        prompt.hasLocation() ? c.distanceKmFrom(request.lat(), request.lng()) : null))
                 .toList();
 
-        return ResponseEntity.ok(new ChatResponse(reply, suggestions));
+        if (!rawReply.equals(ChatModel.UNAVAILABLE_REPLY) && !rawReply.equals(ChatBulkhead.BUSY_REPLY)) {
+            prompt.session().record(request.message(), reply, prompt.budgetMentioned());
+        }
+        return new ChatResponse(reply, suggestions, prompt.session().id());
     }
 
     private static final java.util.regex.Pattern GREETING_PATTERN = java.util.regex.Pattern.compile(
@@ -517,18 +947,6 @@ public class VehicleController {
         return message != null && ALTERNATIVE_PATTERN.matcher(message.trim()).matches();
     }
 
-    // ponytail: small in-memory dataset, plain Haversine beats adding a
-    // geospatial query/library for a handful of vehicles.
-    private static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
-        double r = 6371;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLng = Math.toRadians(lng2 - lng1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
-        return r * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    }
-
     // -----------------------------------------------------------------------
     // IoT endpoints
     // -----------------------------------------------------------------------
@@ -536,6 +954,10 @@ public class VehicleController {
     /**
      * Receives telemetry pushed by the Lambda bridge (IoT Rule → Lambda → here).
      * Not JWT-protected — authenticated via a shared secret header X-IoT-Key.
+     * {@code ts} is the reading time in epoch ms the bridge also writes to
+     * DynamoDB; without it, or when it is further than
+     * {@code vehicles.telemetry.max-clock-skew} from the server clock, the time
+     * of arrival is used.
      * POST /api/v1/vehicles/{vehicleId}/iot-telemetry
      */
     public record IoTTelemetryRequest(
@@ -545,9 +967,14 @@ public class VehicleController {
             Boolean fallDetected,
             Boolean isLocked,
             Float speedKmh,
-            Boolean panicActive) {}
+            Boolean panicActive,
+            Long ts) {}
 
-    public record GeofenceRequest(Float centerLat, Float centerLng, Integer radiusM) {}
+    /**
+     * Either a circle (centerLat, centerLng, radiusM) or a polygon given as
+     * [[lat, lng], ...]; the polygon wins when both are sent.
+     */
+    public record GeofenceRequest(Float centerLat, Float centerLng, Integer radiusM, List<List<Double>> polygon) {}
 
     @Operation(summary = "Receive IoT telemetry", description = "Internal endpoint called by Lambda bridge from AWS IoT Core")
     @PutMapping("/{vehicleId}/iot-telemetry")
@@ -556,43 +983,193 @@ public class VehicleController {
             @RequestBody IoTTelemetryRequest body,
             @RequestHeader(value = "X-IoT-Key", required = false) String iotKey) {
 
-        String expectedKey = System.getenv("IOT_KEY");
-        if (expectedKey == null || !expectedKey.equals(iotKey)) {
+        if (!isValidIoTKey(iotKey)) {
             log.warn("IoT telemetry rejected: invalid or missing X-IoT-Key for vehicle {}", vehicleId);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        var vehicleOpt = vehicleRepository.findById(vehicleId);
-        if (vehicleOpt.isEmpty()) {
+        return recordTelemetry(toRecordTelemetryCommand(vehicleId, body));
+    }
+
+    /**
+     * Same as {@link #receiveIoTTelemetry} with the reading sent as one binary
+     * frame, see {@link RecordTelemetryCommandFromFrameAssembler}.
+     */
+    @Operation(summary = "Receive IoT telemetry (binary frame)", description = "Internal endpoint; compact fixed-layout frame instead of JSON")
+    @PutMapping(value = "/{vehicleId}/iot-telemetry", consumes = RecordTelemetryCommandFromFrameAssembler.MEDIA_TYPE)
+    public ResponseEntity<Void> receiveIoTTelemetryFrame(
+            @PathVariable Long vehicleId,
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-IoT-Key", required = false) String iotKey) {
+
+        if (!isValidIoTKey(iotKey)) {
+            log.warn("IoT telemetry rejected: invalid or missing X-IoT-Key for vehicle {}", vehicleId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        RecordTelemetryCommand command;
+        try {
+            command = RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(vehicleId, body);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid telemetry frame for vehicle {}: {}", vehicleId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return recordTelemetry(command);
+    }
+
+    private ResponseEntity<Void> recordTelemetry(RecordTelemetryCommand reading) {
+        var command = withTrustedTime(reading);
+        Long vehicleId = command.vehicleId();
+        var transition = telemetryIngestionBuffer.record(command);
+        if (transition.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        Vehicle vehicle = vehicleOpt.get();
-        boolean wasBreached = Boolean.TRUE.equals(vehicle.getGeofenceBreached());
+        actOnTelemetryTransition(vehicleId, transition.get());
+
+        log.info("IoT telemetry updated for vehicle {}: lat={} lng={} locked={} fall={} speed={} panic={} geofenceBreached={}",
+                vehicleId, command.lat(), command.lng(), command.isLocked(), command.fallDetected(),
+                command.speedKmh(), command.panicActive(), transition.get().geofenceBreached());
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * One reading of a telemetry batch.
+     * PUT /api/v1/vehicles/iot-telemetry/batch
+     */
+    private static final int MAX_TELEMETRY_BATCH_SIZE = 1000;
+
+    public record IoTTelemetryBatchEntry(Long vehicleId, IoTTelemetryRequest telemetry) {}
+
+    public record IoTTelemetryBatchResult(Long vehicleId, String status) {}
+
+    @Operation(summary = "Receive IoT telemetry in batch", description = "Internal endpoint called by Lambda bridge with many readings per request")
+    @PutMapping("/iot-telemetry/batch")
+    public ResponseEntity<List<IoTTelemetryBatchResult>> receiveIoTTelemetryBatch(
+            @RequestBody List<IoTTelemetryBatchEntry> body,
+            @RequestHeader(value = "X-IoT-Key", required = false) String iotKey) {
+
+        if (!isValidIoTKey(iotKey)) {
+            log.warn("IoT telemetry batch rejected: invalid or missing X-IoT-Key");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (body == null || body.size() > MAX_TELEMETRY_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // One result per entry, at the entry's index.
+        var results = new ArrayList<IoTTelemetryBatchResult>(Collections.nCopies(body.size(), null));
+        var commands = new ArrayList<RecordTelemetryCommand>(body.size());
+        var positions = new int[body.size()];
+        for (int i = 0; i < body.size(); i++) {
+            var entry = body.get(i);
+            if (entry == null || entry.vehicleId() == null || entry.telemetry() == null) {
+                results.set(i, new IoTTelemetryBatchResult(entry != null ? entry.vehicleId() : null, "INVALID"));
+                continue;
+            }
+            positions[commands.size()] = i;
+            commands.add(toRecordTelemetryCommand(entry.vehicleId(), entry.telemetry()));
+        }
+
+        return ResponseEntity.ok(recordTelemetryBatch(commands, positions, results));
+    }
 
-        vehicle.updateIoTTelemetry(
+    /**
+     * Same as {@link #receiveIoTTelemetryBatch} with the readings sent as
+     * consecutive {@code vehicle id + frame} records, see
+     * {@link RecordTelemetryCommandFromFrameAssembler}.
+     */
+    @Operation(summary = "Receive IoT telemetry in batch (binary frames)", description = "Internal endpoint; compact fixed-layout frames instead of JSON")
+    @PutMapping(value = "/iot-telemetry/batch", consumes = RecordTelemetryCommandFromFrameAssembler.MEDIA_TYPE)
+    public ResponseEntity<List<IoTTelemetryBatchResult>> receiveIoTTelemetryBatchFrames(
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-IoT-Key", required = false) String iotKey) {
+
+        if (!isValidIoTKey(iotKey)) {
+            log.warn("IoT telemetry batch rejected: invalid or missing X-IoT-Key");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        List<RecordTelemetryCommand> commands;
+        try {
+            commands = RecordTelemetryCommandFromFrameAssembler.toCommandsFromBatchFrame(body, MAX_TELEMETRY_BATCH_SIZE);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid telemetry batch frame: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recordTelemetryBatch(commands, IntStream.range(0, commands.size()).toArray(),
+                new ArrayList<>(Collections.nCopies(commands.size(), null))));
+    }
+
+    // Fills results[positions[i]] with the outcome of commands[i].
+    private List<IoTTelemetryBatchResult> recordTelemetryBatch(List<RecordTelemetryCommand> readings,
+            int[] positions, List<IoTTelemetryBatchResult> results) {
+        var commands = readings.stream().map(this::withTrustedTime).toList();
+        var transitions = telemetryIngestionBuffer.recordAll(commands);
+        int applied = 0;
+        for (int i = 0; i < transitions.size(); i++) {
+            Long vehicleId = commands.get(i).vehicleId();
+            var transition = transitions.get(i);
+            if (transition.isEmpty()) {
+                results.set(positions[i], new IoTTelemetryBatchResult(vehicleId, "NOT_FOUND"));
+                continue;
+            }
+            actOnTelemetryTransition(vehicleId, transition.get());
+            results.set(positions[i], new IoTTelemetryBatchResult(vehicleId, "OK"));
+            applied++;
+        }
+
+        log.info("IoT telemetry batch: {} readings, {} applied", results.size(), applied);
+        return results;
+    }
+
+    private boolean isValidIoTKey(String key) {
+        return iotKey != null && !iotKey.isEmpty() && iotKey.equals(key);
+    }
+
+    private boolean isValidServiceKey(String key) {
+        return serviceKey != null && !serviceKey.isEmpty() && serviceKey.equals(key);
+    }
+
+    private static RecordTelemetryCommand toRecordTelemetryCommand(Long vehicleId, IoTTelemetryRequest body) {
+        return new RecordTelemetryCommand(
+                vehicleId,
                 body.deviceId(),
                 body.lat(),
                 body.lng(),
                 Boolean.TRUE.equals(body.fallDetected()),
                 Boolean.TRUE.equals(body.isLocked()),
                 body.speedKmh(),
-                body.panicActive());
-        vehicleRepository.save(vehicle);
+                Boolean.TRUE.equals(body.panicActive()),
+                body.ts() != null ? Instant.ofEpochMilli(body.ts()) : null);
+    }
 
-        boolean nowBreached = Boolean.TRUE.equals(vehicle.getGeofenceBreached());
-        if (!wasBreached && nowBreached && vehicle.getIotDeviceId() != null) {
-            iotCoreService.sendCommand(vehicle.getIotDeviceId(), "LOCK");
-            log.warn("Geofence breached for vehicle {} — LOCK sent to device {}",
-                    vehicleId, vehicle.getIotDeviceId());
+    // The reading time keys the ring, the archive, trips and liveness. A device
+    // without NTP sends epoch 0, and one reading from the future would make every
+    // later one look out of order, so a time outside the skew window is replaced
+    // by the time of arrival.
+    private RecordTelemetryCommand withTrustedTime(RecordTelemetryCommand command) {
+        var recordedAt = command.recordedAt();
+        if (recordedAt == null || Duration.between(recordedAt, Instant.now()).abs().compareTo(maxClockSkew) <= 0) {
+            return command;
         }
+        log.debug("Telemetry time {} of vehicle {} is off the server clock, using the time of arrival",
+                recordedAt, command.vehicleId());
+        return new RecordTelemetryCommand(command.vehicleId(), command.deviceId(), command.lat(), command.lng(),
+                command.fallDetected(), command.isLocked(), command.speedKmh(), command.panicActive());
+    }
 
-        log.info("IoT telemetry updated for vehicle {}: lat={} lng={} locked={} fall={} speed={} panic={} geofenceBreached={}",
-                vehicleId, body.lat(), body.lng(), body.isLocked(), body.fallDetected(),
-                body.speedKmh(), body.panicActive(), nowBreached);
-        return ResponseEntity.ok().build();
+    private void actOnTelemetryTransition(Long vehicleId, TelemetryIngestionBuffer.TelemetryTransition transition) {
+        String deviceId = transition.deviceId();
+        if (transition.geofenceBreachRaised() && deviceId != null) {
+            iotCoreService.sendCommand(deviceId, "LOCK");
+            log.warn("Geofence breached for vehicle {} — LOCK sent to device {}", vehicleId, deviceId);
+        }
+        if (transition.panicRaised()) {
+            log.warn("Panic button pressed on vehicle {} (device {})", vehicleId, deviceId);
+        }
     }
 
-    @Operation(summary = "Set geofence for vehicle", description = "Saves the owner-defined geofence center and radius")
+    @Operation(summary = "Set geofence for vehicle", description = "Saves the owner-defined geofence: a center and radius, or a polygon")
     @PutMapping("/{vehicleId}/geofence")
     public ResponseEntity<VehicleResource> setGeofence(
             @PathVariable Long vehicleId,
@@ -610,30 +1187,54 @@ public class VehicleController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        vehicle.setGeofence(body.centerLat(), body.centerLng(), body.radiusM());
+        if (body.polygon() != null) {
+            Geofence.Polygon polygon;
+            try {
+                polygon = toPolygon(body.polygon());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid geofence polygon for vehicle {}: {}", vehicleId, e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+            vehicle.setGeofence(polygon);
+            log.info("Geofence set for vehicle {}: polygon with {} vertices", vehicleId, polygon.size());
+        } else {
+            vehicle.setGeofence(body.centerLat(), body.centerLng(), body.radiusM());
+            log.info("Geofence set for vehicle {}: center=({},{}) radius={}m",
+                    vehicleId, body.centerLat(), body.centerLng(), body.radiusM());
+        }
         var saved = vehicleRepository.save(vehicle);
-        log.info("Geofence set for vehicle {}: center=({},{}) radius={}m",
-                vehicleId, body.centerLat(), body.centerLng(), body.radiusM());
+        eventPublisher.publishEvent(new VehicleSavedEvent(saved, VehicleSavedEvent.IoTChange.GEOFENCE));
 
-        // Push geofence to the ESP32 so it runs edge Haversine and beeps locally on breach
-        if (vehicle.getIotDeviceId() != null && body.centerLat() != null
+        // Push geofence to the ESP32 so it runs edge Haversine and beeps locally on breach.
+        // The firmware only understands circles; polygon fences are enforced server-side.
+        if (vehicle.getIotDeviceId() != null && body.polygon() == null && body.centerLat() != null
                 && body.centerLng() != null && body.radiusM() != null && body.radiusM() > 0) {
-            try {
-                iotCoreService.sendGeofenceCommand(
-                        vehicle.getIotDeviceId(),
-                        body.centerLat().doubleValue(),
-                        body.centerLng().doubleValue(),
-                        body.radiusM().doubleValue());
-            } catch (Exception e) {
-                log.warn("Could not push geofence to device {}: {}", vehicle.getIotDeviceId(), e.getMessage());
-            }
+            iotCoreService.sendGeofenceCommand(
+                    vehicle.getIotDeviceId(),
+                    body.centerLat().doubleValue(),
+                    body.centerLng().doubleValue(),
+                    body.radiusM().doubleValue());
         }
 
         return ResponseEntity.ok(VehicleResourceFromEntityAssembler.toResourceFromEntity(saved));
     }
 
+    private static Geofence.Polygon toPolygon(List<List<Double>> vertices) {
+        double[] lats = new double[vertices.size()];
+        double[] lngs = new double[vertices.size()];
+        for (int i = 0; i < vertices.size(); i++) {
+            var vertex = vertices.get(i);
+            if (vertex == null || vertex.size() != 2 || vertex.get(0) == null || vertex.get(1) == null) {
+                throw new IllegalArgumentException("vertex " + i + " must be [lat, lng]");
+            }
+            lats[i] = vertex.get(0);
+            lngs[i] = vertex.get(1);
+        }
+        return new Geofence.Polygon(lats, lngs);
+    }
+
     /**
-     * Sends a LOCK command to the ESP32 via AWS IoT Core MQTT.
+     * Queues a LOCK command for the ESP32 via AWS IoT Core MQTT.
      * POST /api/v1/vehicles/{vehicleId}/lock
      */
     @Operation(summary = "Lock vehicle", description = "Sends LOCK command to the IoT device attached to this vehicle")
@@ -658,20 +1259,18 @@ public class VehicleController {
             return ResponseEntity.badRequest().build();
         }
 
-        try {
-            iotCoreService.sendCommand(vehicle.getIotDeviceId(), "LOCK");
-        } catch (Exception e) {
-            log.error("IoT LOCK command failed for vehicle {}: {}", vehicleId, e.getMessage());
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-        }
+        // Queued: the response does not wait for the IoT Core round trip.
+        // Saved as locked right away; rolled back if the command is never delivered.
+        iotCoreService.sendCommand(vehicleId, vehicle.getIotDeviceId(), "LOCK");
         vehicle.setLocked(true);
         var saved = vehicleRepository.save(vehicle);
-        log.info("LOCK sent to device {} (vehicle {})", vehicle.getIotDeviceId(), vehicleId);
+        eventPublisher.publishEvent(new VehicleSavedEvent(saved, VehicleSavedEvent.IoTChange.LOCK_STATE));
+        log.info("LOCK queued for device {} (vehicle {})", vehicle.getIotDeviceId(), vehicleId);
         return ResponseEntity.ok(VehicleResourceFromEntityAssembler.toResourceFromEntity(saved));
     }
 
     /**
-     * Sends an UNLOCK command to the ESP32 via AWS IoT Core MQTT.
+     * Queues an UNLOCK command for the ESP32 via AWS IoT Core MQTT.
      * POST /api/v1/vehicles/{vehicleId}/unlock
      */
     @Operation(summary = "Unlock vehicle", description = "Sends UNLOCK command to the IoT device attached to this vehicle")
@@ -695,44 +1294,275 @@ public class VehicleController {
             return ResponseEntity.badRequest().build();
         }
 
-        try {
-            iotCoreService.sendCommand(vehicle.getIotDeviceId(), "UNLOCK");
-        } catch (Exception e) {
-            log.error("IoT UNLOCK command failed for vehicle {}: {}", vehicleId, e.getMessage());
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-        }
+        // Queued: the response does not wait for the IoT Core round trip.
+        iotCoreService.sendCommand(vehicleId, vehicle.getIotDeviceId(), "UNLOCK");
+        // The live state knows alerts the row does not have yet.
+        boolean hadAlerts = telemetryIngestionBuffer.hasActiveAlerts(vehicleId)
+                .orElseGet(() -> Boolean.TRUE.equals(vehicle.getFallDetected())
+                        || Boolean.TRUE.equals(vehicle.getPanicActive())
+                        || Boolean.TRUE.equals(vehicle.getGeofenceBreached()));
         vehicle.setLocked(false); // also resets fallDetected + panicActive + geofenceBreached
         var saved = vehicleRepository.save(vehicle);
-        log.info("UNLOCK sent to device {} (vehicle {})", vehicle.getIotDeviceId(), vehicleId);
+        eventPublisher.publishEvent(new VehicleSavedEvent(saved, VehicleSavedEvent.IoTChange.LOCK_STATE,
+                VehicleSavedEvent.IoTChange.ALERTS_RESET));
+        if (hadAlerts) {
+            eventPublisher.publishEvent(new VehicleAlertTransitionEvent(vehicleId, saved.getOwnerId(),
+                    saved.getIotDeviceId(), AlertType.ALERTS_RESET, saved.getLat(), saved.getLng(), Instant.now()));
+        }
+        log.info("UNLOCK queued for device {} (vehicle {})", vehicle.getIotDeviceId(), vehicleId);
         return ResponseEntity.ok(VehicleResourceFromEntityAssembler.toResourceFromEntity(saved));
     }
 
+    private static final int MAX_RAW_HISTORY = 500;
+    private static final int MAX_DOWNSAMPLED_HISTORY = 5000;
+    private static final int MAX_RANGE_PAGE = 1000;
+
     /**
-     * GET /api/v1/vehicles/{vehicleId}/telemetry/history?limit=200
-     * Returns the last N telemetry readings from DynamoDB (newest first).
+     * GET /api/v1/vehicles/{vehicleId}/telemetry/history?limit=200[&points=60]
+     * Returns the last N telemetry readings (newest first): recent ones from
+     * the in-memory ring, older ones from DynamoDB. With {@code points}, the
+     * window (up to 5000 readings) is reduced to that many points with LTTB
+     * so the map can draw long tracks cheaply.
+     * <p>
+     * With {@code from} (and optionally {@code to}, default now; ISO-8601 or
+     * epoch millis) it returns that time range instead, oldest first, in pages
+     * of {@code limit} (max 1000). Pass the X-Next-Cursor header as
+     * {@code cursor} to get the next page; it is absent on the last one. When
+     * DynamoDB cannot be read the answer is 503, never a short last page.
+     * </p>
      * Each item: { ts, lat, lng, speed_kmh, is_locked, fall_detected, panic_active }
      */
     @GetMapping("/{vehicleId}/telemetry/history")
-    public ResponseEntity<List<Map<String, Object>>> getTelemetryHistory(
+    public ResponseEntity<List<TelemetryPointResource>> getTelemetryHistory(
             @PathVariable Long vehicleId,
-            @RequestParam(defaultValue = "200") int limit) {
-
-        var items = telemetryHistoryService.getHistory(vehicleId, Math.min(limit, 500));
-        var result = items.stream()
-                .map(item -> {
-                    Map<String, Object> row = new java.util.LinkedHashMap<>();
-                    item.forEach((k, v) -> {
-                        if (v.n() != null)         row.put(k, Double.parseDouble(v.n()));
-                        else if (v.bool() != null) row.put(k, v.bool());
-                        else if (v.s() != null) {
-                            // lat/lng/speed stored as strings by some producers — parse to number
-                            try { row.put(k, Double.parseDouble(v.s())); }
-                            catch (NumberFormatException e) { row.put(k, v.s()); }
-                        }
-                    });
-                    return row;
-                })
+            @RequestParam(defaultValue = "200") int limit,
+            @RequestParam(required = false) Integer points,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor) {
+
+        if (limit < 1 || (points != null && points < 3)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (from != null || cursor != null) {
+            if (from == null || (to != null && to.isBefore(from))) {
+                return ResponseEntity.badRequest().build();
+            }
+            TelemetryHistoryService.TelemetryHistoryPage page;
+            try {
+                page = telemetryHistoryService.getHistoryRange(vehicleId, from.toEpochMilli(),
+                        (to != null ? to : Instant.now()).toEpochMilli(), Math.min(limit, MAX_RANGE_PAGE), cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            } catch (TelemetryHistoryService.HistoryUnavailableException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            var pagePoints = points != null ? TelemetryDownsampler.lttb(page.points(), points) : page.points();
+            var response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header("X-Next-Cursor", page.nextCursor());
+            }
+            return response.body(pagePoints.stream()
+                    .map(TelemetryPointResourceFromValueAssembler::toResourceFromValue)
+                    .collect(Collectors.toList()));
+        }
+
+        var history = points == null
+                ? telemetryHistoryService.getHistory(vehicleId, Math.min(limit, MAX_RAW_HISTORY))
+                : telemetryHistoryService.getHistory(vehicleId, Math.min(limit, MAX_DOWNSAMPLED_HISTORY), points);
+        var result = history.stream()
+                .map(TelemetryPointResourceFromValueAssembler::toResourceFromValue)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * The whole {@code from}..{@code to} range as newline-delimited JSON,
+     * oldest first, written page by page as DynamoDB returns it. If DynamoDB
+     * fails part way the response is aborted rather than ended cleanly, so a
+     * client never takes a cut-off stream for the whole range.
+     */
+    @Operation(summary = "Stream telemetry history", description = "Streams a telemetry time range as NDJSON")
+    @GetMapping(value = "/{vehicleId}/telemetry/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTelemetryHistory(
+            @PathVariable Long vehicleId,
+            @RequestParam Instant from,
+            @RequestParam(required = false) Instant to) {
+
+        long toTs = (to != null ? to : Instant.now()).toEpochMilli();
+        if (toTs < from.toEpochMilli()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> telemetryHistoryService.streamHistoryRange(vehicleId,
+                from.toEpochMilli(), toTs, page -> {
+                    try {
+                        for (var point : page) {
+                            out.write(objectMapper.writeValueAsBytes(
+                                    TelemetryPointResourceFromValueAssembler.toResourceFromValue(point)));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * GET /api/v1/vehicles/{vehicleId}/telemetry/stream
+     * Server-Sent Events stream of live readings ({@code event: telemetry}),
+     * pushed as soon as the ingest endpoints accept them. Owner or admin only.
+     */
+    @Operation(summary = "Stream live telemetry", description = "Server-Sent Events with every telemetry reading of the vehicle")
+    @GetMapping(value = "/{vehicleId}/telemetry/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTelemetry(
+            @PathVariable Long vehicleId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        var vehicle = vehicleQueryService.handle(new GetVehicleByIdQuery(vehicleId));
+        if (vehicle.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Long userId = ((JwtUserDetails) userDetails).getUserId();
+        boolean isAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin && !Objects.equals(vehicle.get().getOwnerId(), userId)) {
+            log.warn("User {} attempted to stream telemetry of vehicle {} owned by {}", userId, vehicleId,
+                    vehicle.get().getOwnerId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(telemetryStreamHub.subscribe(vehicleId));
+    }
+
+    private static final int DEFAULT_TRIP_PAGE = 20;
+    private static final int MAX_TRIP_PAGE = 100;
+
+    /**
+     * GET /api/v1/vehicles/{vehicleId}/trips?size=20[&before=tripId]
+     * Completed trips, newest first, summarised as they happened. Pass the
+     * X-Next-Cursor header as {@code before} to get the next page; it is
+     * absent on the last one. Owner or admin only.
+     */
+    @Operation(summary = "Get vehicle trips", description = "Completed trips with distance, duration and speeds, newest first")
+    @GetMapping("/{vehicleId}/trips")
+    public ResponseEntity<List<TripResource>> getTrips(
+            @PathVariable Long vehicleId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + DEFAULT_TRIP_PAGE) int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        var vehicle = vehicleQueryService.handle(new GetVehicleByIdQuery(vehicleId));
+        if (vehicle.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long userId = ((JwtUserDetails) userDetails).getUserId();
+        boolean isAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin && !Objects.equals(vehicle.get().getOwnerId(), userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        int pageSize = Math.min(size, MAX_TRIP_PAGE);
+        var trips = tripQueryService.handle(new GetTripsByVehicleIdQuery(vehicleId, before, pageSize));
+        var response = ResponseEntity.ok();
+        if (trips.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(trips.get(trips.size() - 1).getId()));
+        }
+        return response.body(trips.stream()
+                .map(TripResourceFromEntityAssembler::toResourceFromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * GET /api/v1/vehicles/{vehicleId}/trips/current
+     * The trip in progress so far (no id yet); 204 when the vehicle is not
+     * on a trip. Owner or admin only.
+     */
+    @Operation(summary = "Get current trip", description = "Running summary of the trip in progress")
+    @GetMapping("/{vehicleId}/trips/current")
+    public ResponseEntity<TripResource> getCurrentTrip(
+            @PathVariable Long vehicleId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        var vehicle = vehicleQueryService.handle(new GetVehicleByIdQuery(vehicleId));
+        if (vehicle.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long userId = ((JwtUserDetails) userDetails).getUserId();
+        boolean isAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin && !Objects.equals(vehicle.get().getOwnerId(), userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return tripQueryService.handle(new GetCurrentTripQuery(vehicleId))
+                .map(trip -> ResponseEntity.ok(TripResourceFromEntityAssembler.toResourceFromEntity(trip)))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    private static final int DEFAULT_ALERT_PAGE = 50;
+    private static final int MAX_ALERT_PAGE = 500;
+
+    /**
+     * GET /api/v1/vehicles/alerts?size=50[&after=alertId]
+     * Fall, panic and geofence alerts of the caller's vehicles (every vehicle
+     * for admins), oldest first. Without {@code after} it returns the latest
+     * {@code size} alerts. X-Next-Cursor is the id of the last alert returned;
+     * pass it as {@code after} to get only newer ones. Alerts show up here a
+     * couple of seconds after the live stream, once no older one can still
+     * commit behind the cursor.
+     */
+    @Operation(summary = "Get alerts", description = "Append-only log of fall, panic and geofence transitions, "
+            + "paged with the X-Next-Cursor header")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alerts found"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/alerts")
+    public ResponseEntity<List<VehicleAlertResource>> getAlerts(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_ALERT_PAGE) int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long userId = ((JwtUserDetails) userDetails).getUserId();
+        boolean isAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+
+        var alerts = vehicleAlertQueryService.handle(
+                new GetAlertsQuery(isAdmin ? null : userId, after, Math.min(size, MAX_ALERT_PAGE)));
+        var response = ResponseEntity.ok();
+        Long cursor = alerts.isEmpty() ? after : alerts.get(alerts.size() - 1).getId();
+        if (cursor != null) {
+            response.header("X-Next-Cursor", String.valueOf(cursor));
+        }
+        return response.body(alerts.stream()
+                .map(VehicleAlertResourceFromEntityAssembler::toResourceFromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * GET /api/v1/vehicles/alerts/stream
+     * Server-Sent Events stream of new alerts ({@code event: alert}, with the
+     * alert id as event id) of the caller's vehicles, every vehicle for
+     * admins. After a reconnect, catch up with GET /alerts from the last
+     * X-Next-Cursor it returned; a live event id may be ahead of an alert that
+     * committed later.
+     */
+    @Operation(summary = "Stream alerts", description = "Server-Sent Events with every new alert of the caller's vehicles")
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAlerts(@AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = ((JwtUserDetails) userDetails).getUserId();
+        boolean isAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        return ResponseEntity.ok(telemetryStreamHub.subscribeAlerts(isAdmin ? null : userId));
+    }
 }
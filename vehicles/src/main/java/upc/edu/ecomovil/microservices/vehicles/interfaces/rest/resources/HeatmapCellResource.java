@@ -0,0 +1,9 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+public record HeatmapCellResource(
+        String geohash,
+        Double lat,
+        Double lng,
+        Integer availableVehicles,
+        Integer recentReservations) {
+}
@@ -0,0 +1,13 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+public record NearbyVehicleResource(
+        Long id,
+        String type,
+        String name,
+        Double priceRent,
+        Double priceSell,
+        String imageUrl,
+        Float lat,
+        Float lng,
+        Double distanceKm) {
+}
@@ -0,0 +1,10 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+import java.time.Instant;
+
+public record OfflineVehicleResource(
+        Long vehicleId,
+        Long ownerId,
+        String iotDeviceId,
+        Instant lastSeen) {
+}
@@ -0,0 +1,17 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Telemetry history item. Field names match the DynamoDB attributes the
+ * dashboard has always received.
+ */
+public record TelemetryPointResource(
+        long ts,
+        Float lat,
+        Float lng,
+        @JsonProperty("speed_kmh") float speedKmh,
+        @JsonProperty("is_locked") boolean isLocked,
+        @JsonProperty("fall_detected") boolean fallDetected,
+        @JsonProperty("panic_active") boolean panicActive) {
+}
@@ -0,0 +1,23 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+import java.time.Instant;
+
+/**
+ * A completed trip, or the one in progress ({@code id} null, {@code endedAt}
+ * is the latest reading).
+ */
+public record TripResource(
+        Long id,
+        Long vehicleId,
+        Instant startedAt,
+        Instant endedAt,
+        Long durationSeconds,
+        Double distanceKm,
+        Double avgSpeedKmh,
+        Float maxSpeedKmh,
+        Integer pointCount,
+        Float startLat,
+        Float startLng,
+        Float endLat,
+        Float endLng) {
+}
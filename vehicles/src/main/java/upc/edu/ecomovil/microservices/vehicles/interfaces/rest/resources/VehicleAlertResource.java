@@ -0,0 +1,14 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+import java.time.Instant;
+
+public record VehicleAlertResource(
+        Long id,
+        Long vehicleId,
+        Long ownerId,
+        String deviceId,
+        String type,
+        Float lat,
+        Float lng,
+        Instant occurredAt) {
+}
@@ -0,0 +1,9 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
+
+public record VehicleClusterResource(
+        Double lat,
+        Double lng,
+        Integer count,
+        Integer availableCount,
+        Long vehicleId) {
+}
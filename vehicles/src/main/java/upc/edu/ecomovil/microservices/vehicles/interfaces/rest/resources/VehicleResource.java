@@ -1,6 +1,7 @@
 package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources;
 
 import java.time.Instant;
+import java.util.List;
 
 public record VehicleResource(
         Long id,
@@ -27,5 +28,7 @@ public record VehicleResource(
         Float geofenceCenterLat,
         Float geofenceCenterLng,
         Integer geofenceRadiusM,
+        // [[lat, lng], ...] when the fence is a polygon
+        List<List<Double>> geofencePolygon,
         Boolean geofenceBreached) {
 }
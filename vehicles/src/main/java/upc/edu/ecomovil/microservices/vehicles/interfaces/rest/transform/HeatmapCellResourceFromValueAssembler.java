@@ -0,0 +1,16 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.geo.DemandHeatmap;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.HeatmapCellResource;
+
+public class HeatmapCellResourceFromValueAssembler {
+
+    public static HeatmapCellResource toResourceFromValue(DemandHeatmap.HeatCell cell) {
+        return new HeatmapCellResource(
+                cell.geohash(),
+                cell.lat(),
+                cell.lng(),
+                cell.availableVehicles(),
+                cell.recentReservations());
+    }
+}
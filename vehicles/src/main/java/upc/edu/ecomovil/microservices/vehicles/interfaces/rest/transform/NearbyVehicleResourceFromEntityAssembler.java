@@ -0,0 +1,21 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.NearbyVehicle;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.NearbyVehicleResource;
+
+public class NearbyVehicleResourceFromEntityAssembler {
+
+    public static NearbyVehicleResource toResourceFromEntity(NearbyVehicle nearby) {
+        var entity = nearby.vehicle();
+        return new NearbyVehicleResource(
+                entity.getId(),
+                entity.getType(),
+                entity.getName(),
+                entity.getPriceRent(),
+                entity.getPriceSell(),
+                entity.getImageUrl(),
+                entity.getLat(),
+                entity.getLng(),
+                nearby.distanceKm());
+    }
+}
@@ -0,0 +1,15 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.DeviceLivenessMonitor;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.OfflineVehicleResource;
+
+public class OfflineVehicleResourceFromValueAssembler {
+
+    public static OfflineVehicleResource toResourceFromValue(DeviceLivenessMonitor.OfflineDevice device) {
+        return new OfflineVehicleResource(
+                device.vehicleId(),
+                device.ownerId(),
+                device.deviceId(),
+                device.lastSeen());
+    }
+}
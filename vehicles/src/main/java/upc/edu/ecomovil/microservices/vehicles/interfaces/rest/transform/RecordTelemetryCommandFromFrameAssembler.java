@@ -0,0 +1,121 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the binary telemetry frame ({@value #MEDIA_TYPE}) that devices and
+ * the Lambda bridge can send instead of JSON.
+ * <p>
+ * A frame is little-endian, so the ESP32 can send a packed struct as is:
+ * <pre>
+ * offset size
+ *  0     1   version (1 or 2)
+ *  1     1   flags: 1 locked, 2 fall detected, 4 panic, 8 has position, 16 has speed
+ *  2     4   lat (float32)
+ *  6     4   lng (float32)
+ * 10     4   speed km/h (float32)
+ * 14     8   version 2 only: reading time, epoch ms (int64), as stored in DynamoDB
+ * 14/22  1   device id length n
+ * 15/23  n   device id (UTF-8)
+ * </pre>
+ * 15 bytes plus the device id (23 with the reading time), against roughly 150
+ * for the JSON body. A version 1 frame, or a version 2 frame whose time is
+ * off the server clock, is stamped with its time of arrival. A
+ * batch is a sequence of {@code vehicle id (int64) + frame} records. Fields
+ * are read straight from the buffer into the command. A frame whose position
+ * or speed is NaN, infinite or off the globe is rejected as malformed.
+ * </p>
+ */
+public class RecordTelemetryCommandFromFrameAssembler {
+
+    public static final String MEDIA_TYPE = "application/vnd.ecomovil.telemetry-frame";
+
+    private static final byte VERSION = 1;
+    private static final byte VERSION_WITH_TIME = 2;
+    private static final int LOCKED = 1;
+    private static final int FALL = 2;
+    private static final int PANIC = 4;
+    private static final int HAS_POSITION = 8;
+    private static final int HAS_SPEED = 16;
+
+    /**
+     * @throws IllegalArgumentException if the body is not exactly one frame
+     */
+    public static RecordTelemetryCommand toCommandFromFrame(Long vehicleId, byte[] body) {
+        var buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        var command = read(vehicleId, buffer);
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after telemetry frame");
+        }
+        return command;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the body is malformed or holds more
+     *                                  than {@code maxEntries} frames
+     */
+    public static List<RecordTelemetryCommand> toCommandsFromBatchFrame(byte[] body, int maxEntries) {
+        var buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        var commands = new ArrayList<RecordTelemetryCommand>(Math.min(body.length / 23 + 1, maxEntries));
+        while (buffer.hasRemaining()) {
+            if (commands.size() == maxEntries) {
+                throw new IllegalArgumentException("More than " + maxEntries + " telemetry frames");
+            }
+            try {
+                commands.add(read(buffer.getLong(), buffer));
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated telemetry frame " + commands.size());
+            }
+        }
+        return commands;
+    }
+
+    private static RecordTelemetryCommand read(Long vehicleId, ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION && version != VERSION_WITH_TIME) {
+                throw new IllegalArgumentException("Unsupported telemetry frame version " + version);
+            }
+            int flags = buffer.get();
+            float lat = buffer.getFloat();
+            float lng = buffer.getFloat();
+            float speed = buffer.getFloat();
+            Instant recordedAt = version == VERSION_WITH_TIME ? Instant.ofEpochMilli(buffer.getLong()) : null;
+            int deviceIdLength = buffer.get() & 0xff;
+            String deviceId = null;
+            if (deviceIdLength > 0) {
+                deviceId = new String(buffer.array(), buffer.position(), deviceIdLength, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + deviceIdLength);
+            }
+            boolean hasPosition = (flags & HAS_POSITION) != 0;
+            boolean hasSpeed = (flags & HAS_SPEED) != 0;
+            if (hasPosition && !(Float.isFinite(lat) && Float.isFinite(lng)
+                    && Math.abs(lat) <= 90 && Math.abs(lng) <= 180)) {
+                throw new IllegalArgumentException("Telemetry frame position out of range: " + lat + ", " + lng);
+            }
+            if (hasSpeed && !Float.isFinite(speed)) {
+                throw new IllegalArgumentException("Telemetry frame speed is not a number: " + speed);
+            }
+            return new RecordTelemetryCommand(
+                    vehicleId,
+                    deviceId,
+                    hasPosition ? lat : null,
+                    hasPosition ? lng : null,
+                    (flags & FALL) != 0,
+                    (flags & LOCKED) != 0,
+                    hasSpeed ? speed : null,
+                    (flags & PANIC) != 0,
+                    recordedAt);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated telemetry frame");
+        }
+    }
+}
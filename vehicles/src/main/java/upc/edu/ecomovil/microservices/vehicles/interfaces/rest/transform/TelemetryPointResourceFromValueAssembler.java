@@ -0,0 +1,18 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.TelemetryPointResource;
+
+public class TelemetryPointResourceFromValueAssembler {
+
+    public static TelemetryPointResource toResourceFromValue(TelemetryPoint point) {
+        return new TelemetryPointResource(
+                point.ts(),
+                point.lat(),
+                point.lng(),
+                point.speedKmh(),
+                point.isLocked(),
+                point.fallDetected(),
+                point.panicActive());
+    }
+}
@@ -0,0 +1,24 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.TripResource;
+
+public class TripResourceFromEntityAssembler {
+
+    public static TripResource toResourceFromEntity(Trip trip) {
+        return new TripResource(
+                trip.getId(),
+                trip.getVehicleId(),
+                trip.getStartedAt(),
+                trip.getEndedAt(),
+                trip.getDurationSeconds(),
+                trip.getDistanceKm(),
+                trip.getAvgSpeedKmh(),
+                trip.getMaxSpeedKmh(),
+                trip.getPointCount(),
+                trip.getStartLat(),
+                trip.getStartLng(),
+                trip.getEndLat(),
+                trip.getEndLng());
+    }
+}
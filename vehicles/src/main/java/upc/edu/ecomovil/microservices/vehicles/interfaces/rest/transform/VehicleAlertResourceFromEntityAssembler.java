@@ -0,0 +1,19 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleAlertResource;
+
+public class VehicleAlertResourceFromEntityAssembler {
+
+    public static VehicleAlertResource toResourceFromEntity(VehicleAlert alert) {
+        return new VehicleAlertResource(
+                alert.getId(),
+                alert.getVehicleId(),
+                alert.getOwnerId(),
+                alert.getDeviceId(),
+                alert.getType().name(),
+                alert.getLat(),
+                alert.getLng(),
+                alert.getOccurredAt());
+    }
+}
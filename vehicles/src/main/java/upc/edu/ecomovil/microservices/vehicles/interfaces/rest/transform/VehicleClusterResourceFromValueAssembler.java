@@ -0,0 +1,16 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.geo.VehicleClusterIndex;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleClusterResource;
+
+public class VehicleClusterResourceFromValueAssembler {
+
+    public static VehicleClusterResource toResourceFromValue(VehicleClusterIndex.Cluster cluster) {
+        return new VehicleClusterResource(
+                cluster.lat(),
+                cluster.lng(),
+                cluster.count(),
+                cluster.available(),
+                cluster.vehicleId());
+    }
+}
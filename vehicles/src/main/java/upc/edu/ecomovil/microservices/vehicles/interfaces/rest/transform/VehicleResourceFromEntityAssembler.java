@@ -1,8 +1,12 @@
 package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
 
 import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.Geofence;
 import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.resources.VehicleResource;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class VehicleResourceFromEntityAssembler {
 
     public static VehicleResource toResourceFromEntity(Vehicle entity) {
@@ -29,6 +33,16 @@ public class VehicleResourceFromEntityAssembler {
                 entity.getGeofenceCenterLat(),
                 entity.getGeofenceCenterLng(),
                 entity.getGeofenceRadiusM(),
+                toVertices(entity.getGeofence()),
                 entity.getGeofenceBreached());
     }
+
+    private static List<List<Double>> toVertices(Geofence geofence) {
+        if (!(geofence instanceof Geofence.Polygon polygon)) return null;
+        var vertices = new ArrayList<List<Double>>(polygon.size());
+        for (int i = 0; i < polygon.size(); i++) {
+            vertices.add(List.of(polygon.latAt(i), polygon.lngAt(i)));
+        }
+        return vertices;
+    }
 }
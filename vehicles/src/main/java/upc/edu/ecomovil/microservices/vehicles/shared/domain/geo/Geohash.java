@@ -0,0 +1,74 @@
+package upc.edu.ecomovil.microservices.vehicles.shared.domain.geo;
+
+/**
+ * Geohash cells as packed bits: a precision-{@code p} hash is the top
+ * {@code 5p} bits, longitude first, so the cell of a coarser precision is a
+ * right shift of a finer one. Converted to the usual base-32 text only for
+ * display.
+ */
+public final class Geohash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static long encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        long bits = 0;
+        for (int i = 0; i < precision * 5; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    bits |= 1;
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /** The cell containing {@code bits} at a coarser precision. */
+    public static long truncate(long bits, int precision, int coarserPrecision) {
+        return bits >>> (5 * (precision - coarserPrecision));
+    }
+
+    public static String toText(long bits, int precision) {
+        var text = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            text[i] = BASE32[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(text);
+    }
+
+    /** Centre of the cell as {lat, lng}. */
+    public static double[] center(long bits, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        int total = precision * 5;
+        for (int i = 0; i < total; i++) {
+            boolean set = ((bits >>> (total - 1 - i)) & 1) != 0;
+            if ((i & 1) == 0) {
+                double mid = (minLng + maxLng) / 2;
+                if (set) minLng = mid; else maxLng = mid;
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (set) minLat = mid; else maxLat = mid;
+            }
+        }
+        return new double[] { (minLat + maxLat) / 2, (minLng + maxLng) / 2 };
+    }
+}
@@ -0,0 +1,25 @@
+package upc.edu.ecomovil.microservices.vehicles.shared.domain.geo;
+
+/**
+ * Great-circle distance on a spherical Earth. Good to a few metres at city
+ * scale, which is all the fleet needs.
+ */
+public final class Haversine {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /** Kilometres covered by one degree of latitude (and of longitude at the equator). */
+    public static final double KM_PER_DEGREE = Math.toRadians(EARTH_RADIUS_KM);
+
+    private Haversine() {
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import upc.edu.ecomovil.microservices.vehicles.application.internal.outboundservices.acl.ExternalUserService;
 import upc.edu.ecomovil.microservices.vehicles.application.internal.outboundservices.acl.ExternalUserService.UserProfileDto;
 import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.CreateVehicleCommand;
@@ -30,6 +31,9 @@ class VehicleCommandServiceImplTest {
     @Mock
     private ExternalUserService externalUserService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private VehicleCommandServiceImpl vehicleCommandService;
 
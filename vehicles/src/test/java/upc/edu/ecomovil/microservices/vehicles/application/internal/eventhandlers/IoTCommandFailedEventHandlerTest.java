@@ -0,0 +1,69 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.eventhandlers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.IoTCommandFailedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IoTCommandFailedEventHandler
+ * Tests that a lock state saved for an undelivered command is rolled back only while it still stands
+ */
+class IoTCommandFailedEventHandlerTest {
+
+    private VehicleRepository vehicleRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private IoTCommandFailedEventHandler handler;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        handler = new IoTCommandFailedEventHandler(vehicleRepository, eventPublisher);
+        vehicle = new Vehicle("scooter", "Xiaomi", 2023, 5, 10.0, 500.0, true, null, -12.12f, -77.03f, "", 1L);
+        ReflectionTestUtils.setField(vehicle, "id", 7L);
+        when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testFailedLock_ShowsTheVehicleUnlockedAgain() {
+        // Given
+        vehicle.setLocked(true);
+
+        // When
+        handler.on(new IoTCommandFailedEvent(7L, "esp32-7", "LOCK", Instant.now()));
+
+        // Then
+        assertFalse(vehicle.getIsLocked());
+        verify(vehicleRepository).save(vehicle);
+        verify(eventPublisher).publishEvent(new VehicleSavedEvent(vehicle, VehicleSavedEvent.IoTChange.LOCK_STATE));
+    }
+
+    @Test
+    void testFailedUnlock_AlreadyReplacedByALockIsLeftAlone() {
+        // Given: a LOCK was saved after the UNLOCK that failed
+        vehicle.setLocked(true);
+
+        // When
+        handler.on(new IoTCommandFailedEvent(7L, "esp32-7", "UNLOCK", Instant.now()));
+        handler.on(new IoTCommandFailedEvent(null, "esp32-7", "GEOFENCE", Instant.now()));
+
+        // Then
+        assertTrue(vehicle.getIsLocked());
+        verify(vehicleRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+}
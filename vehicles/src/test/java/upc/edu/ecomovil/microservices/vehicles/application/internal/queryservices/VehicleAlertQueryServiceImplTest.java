@@ -0,0 +1,79 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.queryservices;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetAlertsQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleAlertRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VehicleAlertQueryServiceImpl
+ * Tests the keyset pages of the alert feed and the settling lag that keeps the cursor safe
+ */
+class VehicleAlertQueryServiceImplTest {
+
+    private VehicleAlertRepository vehicleAlertRepository;
+    private VehicleAlertQueryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        vehicleAlertRepository = mock(VehicleAlertRepository.class);
+        service = new VehicleAlertQueryServiceImpl(vehicleAlertRepository, Duration.ofSeconds(2));
+    }
+
+    private static VehicleAlert alert(long id) {
+        var alert = new VehicleAlert(7L, 3L, "esp32-7", AlertType.PANIC_RAISED, null, null, Instant.now());
+        ReflectionTestUtils.setField(alert, "id", id);
+        return alert;
+    }
+
+    @Test
+    void testHandle_AfterCursorOnlyReadsSettledAlerts() {
+        // Given
+        when(vehicleAlertRepository.findOwnerPageAfterId(eq(3L), eq(10L), any(Date.class), any(Pageable.class)))
+                .thenReturn(List.of(alert(11), alert(12)));
+        var before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // When
+        var alerts = service.handle(new GetAlertsQuery(3L, 10L, 50));
+
+        // Then: alerts of the last 2 s may still have an older id committing behind them
+        assertEquals(List.of(11L, 12L), alerts.stream().map(VehicleAlert::getId).toList());
+        var settledBefore = ArgumentCaptor.forClass(Date.class);
+        var page = ArgumentCaptor.forClass(Pageable.class);
+        verify(vehicleAlertRepository).findOwnerPageAfterId(eq(3L), eq(10L), settledBefore.capture(),
+                page.capture());
+        assertFalse(settledBefore.getValue().toInstant().isAfter(Instant.now().minusSeconds(2)));
+        assertFalse(settledBefore.getValue().toInstant().isBefore(before.minusSeconds(2)));
+        assertEquals(50, page.getValue().getPageSize());
+    }
+
+    @Test
+    void testHandle_WithoutCursorReturnsLatestOldestFirst() {
+        // Given: an admin, every vehicle
+        when(vehicleAlertRepository.findLatest(any(Date.class), any(Pageable.class)))
+                .thenReturn(List.of(alert(30), alert(29), alert(28)));
+
+        // When
+        var alerts = service.handle(new GetAlertsQuery(null, null, 3));
+
+        // Then
+        assertEquals(List.of(28L, 29L, 30L), alerts.stream().map(VehicleAlert::getId).toList());
+        verify(vehicleAlertRepository, never()).findOwnerLatest(any(), any(), any());
+    }
+}
@@ -0,0 +1,89 @@
+package upc.edu.ecomovil.microservices.vehicles.application.internal.queryservices;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.queries.GetNearbyVehiclesQuery;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.NearbyVehicle;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.cache.VehicleCache;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VehicleQueryServiceImpl
+ * Tests the nearby search: its bounding box, radius filter, order and distances
+ */
+class VehicleQueryServiceImplTest {
+
+    private VehicleRepository vehicleRepository;
+    private VehicleQueryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        service = new VehicleQueryServiceImpl(vehicleRepository, mock(EntityManager.class), mock(VehicleCache.class));
+    }
+
+    private static Vehicle vehicle(long id, float lat, float lng) {
+        var vehicle = new Vehicle("bike", "Bike " + id, 2023, 5, 10.0, 500.0, true, null, lat, lng, "City bike", 1L);
+        ReflectionTestUtils.setField(vehicle, "id", id);
+        return vehicle;
+    }
+
+    @Test
+    void testNearby_ReturnsVehiclesWithinRadiusNearestFirstWithDistances() {
+        // Given three vehicles in the box, one of them in a corner outside the circle
+        var near = vehicle(1L, -12.1211f, -77.0297f);
+        var nearer = vehicle(2L, -12.1201f, -77.0290f);
+        var corner = vehicle(3L, -12.1200f + 0.0170f, -77.0290f + 0.0170f);
+        when(vehicleRepository.findAvailableInBoundingBox(anyFloat(), anyFloat(), anyFloat(), anyFloat(), any(), any()))
+                .thenReturn(List.of(near, corner, nearer));
+
+        // When
+        var result = service.handle(new GetNearbyVehiclesQuery(-12.1200, -77.0290, 2.0, null, null, 10));
+
+        // Then
+        assertEquals(List.of(2L, 1L), result.stream().map(r -> r.vehicle().getId()).toList());
+        assertEquals(Haversine.distanceKm(-12.1200, -77.0290, nearer.getLat(), nearer.getLng()),
+                result.get(0).distanceKm());
+        assertEquals(Haversine.distanceKm(-12.1200, -77.0290, near.getLat(), near.getLng()),
+                result.get(1).distanceKm());
+        assertTrue(result.stream().mapToDouble(NearbyVehicle::distanceKm).allMatch(d -> d <= 2.0));
+
+        // When only one is asked for
+        var limited = service.handle(new GetNearbyVehiclesQuery(-12.1200, -77.0290, 2.0, null, null, 1));
+
+        // Then
+        assertEquals(List.of(2L), limited.stream().map(r -> r.vehicle().getId()).toList());
+    }
+
+    @Test
+    void testNearby_BoxCoversTheCircleAwayFromTheEquator() {
+        // Given a 100 km search at 60°N; the circle reaches its widest longitude
+        // slightly north of the centre, at ~(60.012, 11.799), 99.95 km away
+        when(vehicleRepository.findAvailableInBoundingBox(anyFloat(), anyFloat(), anyFloat(), anyFloat(), any(), any()))
+                .thenReturn(List.of());
+
+        // When
+        service.handle(new GetNearbyVehiclesQuery(60.0, 10.0, 100.0, null, null, 10));
+
+        // Then
+        var minLng = ArgumentCaptor.forClass(Float.class);
+        var maxLng = ArgumentCaptor.forClass(Float.class);
+        verify(vehicleRepository).findAvailableInBoundingBox(anyFloat(), anyFloat(), minLng.capture(),
+                maxLng.capture(), any(), any());
+        assertTrue(Haversine.distanceKm(60.0, 10.0, 60.012, 11.798) < 100.0);
+        assertTrue(maxLng.getValue() >= 11.798f, "box must include the circle's easternmost point");
+        assertTrue(minLng.getValue() <= 8.202f, "box must include the circle's westernmost point");
+    }
+}
@@ -0,0 +1,98 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geofence checks per telemetry event: plain Haversine (the previous
+ * implementation) against the precomputed circle and the polygon fence.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.GeofenceBenchmark}
+ * or from the IDE.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+
+    private static final double CENTER_LAT = -12.0464;
+    private static final double CENTER_LNG = -77.0428;
+    private static final int RADIUS_M = 1_000;
+    private static final int POINTS = 4096;
+
+    private final double[] lats = new double[POINTS];
+    private final double[] lngs = new double[POINTS];
+    private Geofence circle;
+    private Geofence polygon;
+
+    @Setup
+    public void setUp() {
+        // Readings scattered over 3x the fence, like a fleet moving around it.
+        var random = new Random(7);
+        double spanDeg = 3.0 * RADIUS_M / (Haversine.KM_PER_DEGREE * 1000);
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = CENTER_LAT + (random.nextDouble() * 2 - 1) * spanDeg;
+            lngs[i] = CENTER_LNG + (random.nextDouble() * 2 - 1) * spanDeg;
+        }
+        circle = new Geofence.Circle(CENTER_LAT, CENTER_LNG, RADIUS_M);
+
+        // 32-gon approximating the same circle.
+        int n = 32;
+        double radiusDeg = RADIUS_M / (Haversine.KM_PER_DEGREE * 1000);
+        double[] pLats = new double[n];
+        double[] pLngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double a = 2 * Math.PI * i / n;
+            pLats[i] = CENTER_LAT + radiusDeg * Math.sin(a);
+            pLngs[i] = CENTER_LNG + radiusDeg * Math.cos(a) / Math.cos(Math.toRadians(CENTER_LAT));
+        }
+        polygon = new Geofence.Polygon(pLats, pLngs);
+    }
+
+    @Benchmark
+    public void haversine(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++) {
+            bh.consume(Haversine.distanceKm(CENTER_LAT, CENTER_LNG, lats[i], lngs[i]) * 1000 > RADIUS_M);
+        }
+    }
+
+    @Benchmark
+    public void circle(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++) {
+            bh.consume(circle.isBreachedBy(lats[i], lngs[i]));
+        }
+    }
+
+    @Benchmark
+    public void polygon(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++) {
+            bh.consume(polygon.isBreachedBy(lats[i], lngs[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GeofenceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects;
+
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Geofence
+ * Tests that the fast circle check agrees with Haversine and the polygon test
+ */
+class GeofenceTest {
+
+    @Test
+    void testCircle_AgreesWithHaversineAroundTheBoundary() {
+        // Given
+        var random = new Random(42);
+        double[][] centers = { { -12.0464, -77.0428 }, { 0, 0 }, { 59.9, 10.7 }, { -45, 179.99 } };
+        int[] radii = { 50, 500, 5_000, 50_000 };
+
+        for (double[] center : centers) {
+            for (int radiusM : radii) {
+                var fence = new Geofence.Circle(center[0], center[1], radiusM);
+                double spanDeg = 2.0 * radiusM / (Haversine.KM_PER_DEGREE * 1000);
+                for (int i = 0; i < 20_000; i++) {
+                    // When
+                    double lat = center[0] + (random.nextDouble() * 2 - 1) * spanDeg;
+                    double lng = center[1] + (random.nextDouble() * 2 - 1) * spanDeg * 2;
+                    boolean expected = Haversine.distanceKm(center[0], center[1], lat, lng) * 1000 > radiusM;
+
+                    // Then
+                    assertEquals(expected, fence.isBreachedBy(lat, lng),
+                            () -> "center=" + center[0] + "," + center[1] + " r=" + radiusM + " at " + lat + "," + lng);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOf_MissingColumnGivesNoFence() {
+        assertNull(Geofence.of(-12f, null, 500));
+        assertNull(Geofence.of(null, null, null, " "));
+        assertInstanceOf(Geofence.Circle.class, Geofence.of(-12f, -77f, 500, null));
+    }
+
+    @Test
+    void testPolygon_ContainsAndBoundingBoxRejection() {
+        // Given: L-shaped fence
+        var fence = Geofence.Polygon.parse("0,0;0,2;1,2;1,1;2,1;2,0");
+
+        // Then
+        assertFalse(fence.isBreachedBy(0.5, 1.5));
+        assertFalse(fence.isBreachedBy(1.5, 0.5));
+        assertTrue(fence.isBreachedBy(1.5, 1.5));
+        assertTrue(fence.isBreachedBy(5, 5));
+        assertTrue(fence.isBreachedBy(-0.1, 0.5));
+    }
+
+    @Test
+    void testPolygon_EncodeRoundTrip() {
+        // Given
+        var fence = new Geofence.Polygon(new double[] { -12.05, -12.04, -12.04 }, new double[] { -77.05, -77.05, -77.03 });
+
+        // When
+        var parsed = Geofence.of(null, null, null, fence.encode());
+
+        // Then
+        assertEquals(fence, parsed);
+    }
+
+    @Test
+    void testPolygon_RejectsTooFewVertices() {
+        assertThrows(IllegalArgumentException.class, () -> Geofence.Polygon.parse("0,0;1,1"));
+    }
+}
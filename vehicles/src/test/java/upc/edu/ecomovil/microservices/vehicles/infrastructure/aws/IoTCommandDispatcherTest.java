@@ -0,0 +1,99 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClient;
+import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+import software.amazon.awssdk.services.iotdataplane.model.PublishResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IoTCommandDispatcher
+ * Tests that pending commands are coalesced, failed publishes retried and dropped ones reported
+ */
+class IoTCommandDispatcherTest {
+
+    private static final String TOPIC = "ecomovil/commands/esp32";
+
+    private IotDataPlaneAsyncClient client;
+    private SimpleMeterRegistry registry;
+    private IoTCommandDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(IotDataPlaneAsyncClient.class);
+        registry = new SimpleMeterRegistry();
+        dispatcher = new IoTCommandDispatcher(client, 3, Duration.ofMillis(1), Duration.ofMillis(5), registry);
+    }
+
+    private static String payloadOf(PublishRequest request) {
+        return request.payload().asString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testDispatch_SupersededCommandsCollapseWhileOneIsInFlight() {
+        // Given: the first LOCK is still in flight
+        var inFlight = new CompletableFuture<PublishResponse>();
+        when(client.publish(any(PublishRequest.class)))
+                .thenReturn(inFlight)
+                .thenReturn(CompletableFuture.completedFuture(PublishResponse.builder().build()));
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.LOCK_STATE, "{\"command\":\"LOCK\"}");
+
+        // When
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.LOCK_STATE, "{\"command\":\"UNLOCK\"}");
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.LOCK_STATE, "{\"command\":\"LOCK\"}");
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.LOCK_STATE, "{\"command\":\"UNLOCK\"}");
+        assertEquals(1, dispatcher.queued("esp32"));
+        inFlight.complete(PublishResponse.builder().build());
+
+        // Then: only the latest intent follows the in-flight command
+        var requests = ArgumentCaptor.forClass(PublishRequest.class);
+        verify(client, times(2)).publish(requests.capture());
+        assertEquals("{\"command\":\"UNLOCK\"}", payloadOf(requests.getAllValues().get(1)));
+        assertEquals(2.0, registry.counter("vehicles.iot.commands.coalesced").count());
+        assertEquals(0, dispatcher.queued("esp32"));
+    }
+
+    @Test
+    void testDispatch_FailedPublishIsRetriedWithBackoff() {
+        // Given: IoT Core fails once, then accepts
+        when(client.publish(any(PublishRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("throttled")))
+                .thenReturn(CompletableFuture.completedFuture(PublishResponse.builder().build()));
+
+        // When
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.GEOFENCE, "{\"command\":\"GEOFENCE\"}");
+
+        // Then
+        verify(client, timeout(1_000).times(2)).publish(any(PublishRequest.class));
+        assertEquals(0.0, registry.counter("vehicles.iot.commands.failed").count());
+    }
+
+    @Test
+    void testDispatch_DroppedCommandRunsItsCallback() {
+        // Given: IoT Core keeps failing
+        when(client.publish(any(PublishRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("unreachable")));
+        var dropped = new AtomicInteger();
+
+        // When
+        dispatcher.dispatch("esp32", TOPIC, IoTCommandDispatcher.Slot.LOCK_STATE, "{\"command\":\"LOCK\"}",
+                dropped::incrementAndGet);
+
+        // Then: called back once, after the last of its 3 attempts
+        verify(client, timeout(1_000).times(3)).publish(any(PublishRequest.class));
+        verify(client, after(100).times(3)).publish(any(PublishRequest.class));
+        assertEquals(1, dropped.get());
+        assertEquals(1.0, registry.counter("vehicles.iot.commands.failed").count());
+    }
+}
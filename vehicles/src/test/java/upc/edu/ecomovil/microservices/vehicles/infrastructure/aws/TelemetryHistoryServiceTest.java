@@ -0,0 +1,212 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryRingBuffer;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryWriteQueue;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive.TelemetryArchive;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TelemetryHistoryService
+ * Tests that recent history comes from memory and only older data from DynamoDB
+ */
+class TelemetryHistoryServiceTest {
+
+    private DynamoDbClient dynamo;
+    private TelemetryRingBuffer ringBuffer;
+    private TelemetryArchive archive;
+    private TelemetryHistoryService service;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = mock(DynamoDbClient.class);
+        ringBuffer = new TelemetryRingBuffer(4, 100, Duration.ofHours(1));
+        archive = new TelemetryArchive(false, archiveDir, 1 << 16, Duration.ofDays(3), Duration.ofMinutes(5),
+                mock(TelemetryWriteQueue.class));
+        service = new TelemetryHistoryService(dynamo, ringBuffer, archive, true);
+    }
+
+    private void ingest(long vehicleId, long ts) {
+        var event = new VehicleTelemetryRecordedEvent(vehicleId, 1L, "esp32", -12.05f, -77.04f, true, false,
+                false, false, 10f, false, Instant.ofEpochMilli(ts));
+        ringBuffer.on(event);
+        archive.on(event);
+    }
+
+    @Test
+    void testGetHistory_OlderPartComesFromArchiveBeforeDynamo() {
+        // Given: the ring kept the last 4 readings, the archive all of this session's
+        archive = new TelemetryArchive(true, archiveDir, 1 << 16, Duration.ofDays(3), Duration.ofMinutes(5),
+                mock(TelemetryWriteQueue.class));
+        service = new TelemetryHistoryService(dynamo, ringBuffer, archive, true);
+        for (long ts = 1_000; ts <= 600_000; ts += 1_000) ingest(7L, ts);
+
+        // When
+        var points = service.getHistory(7L, 500);
+        var range = service.getHistoryRange(7L, 10_000, 20_000, 100, null);
+
+        // Then
+        assertEquals(500, points.size());
+        assertEquals(600_000, points.get(0).ts());
+        assertEquals(101_000, points.get(499).ts());
+        assertEquals(11, range.points().size());
+        assertEquals(10_000, range.points().get(0).ts());
+        verifyNoInteractions(dynamo);
+    }
+
+    @Test
+    void testGetHistory_RecentWindowServedFromMemory() {
+        // Given
+        for (long ts = 1_000; ts <= 6_000; ts += 1_000) ingest(7L, ts);
+
+        // When
+        var points = service.getHistory(7L, 3);
+
+        // Then
+        assertEquals(3, points.size());
+        assertEquals(6_000, points.get(0).ts());
+        assertEquals(4_000, points.get(2).ts());
+        verifyNoInteractions(dynamo);
+    }
+
+    @Test
+    void testGetHistory_OlderPartComesFromDynamo() {
+        // Given: the ring kept 3_000..6_000, DynamoDB has the older reading
+        for (long ts = 1_000; ts <= 6_000; ts += 1_000) ingest(7L, ts);
+        when(dynamo.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder()
+                .items(Map.of("ts", AttributeValue.fromN("2000"), "lat", AttributeValue.fromS("-12.1"),
+                        "is_locked", AttributeValue.fromBool(true)))
+                .count(1)
+                .build());
+
+        // When
+        var points = service.getHistory(7L, 10);
+
+        // Then
+        assertEquals(5, points.size());
+        assertEquals(2_000, points.get(4).ts());
+        assertEquals(-12.1f, points.get(4).lat());
+        assertTrue(points.get(4).isLocked());
+        var request = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamo).query(request.capture());
+        assertEquals("3000", request.getValue().expressionAttributeValues().get(":before").n());
+        assertEquals(6, request.getValue().limit());
+    }
+
+    @Test
+    void testGetHistoryRange_PagesThroughMemoryWithCursor() {
+        // Given
+        for (long ts = 1_000; ts <= 4_000; ts += 1_000) ingest(7L, ts);
+
+        // When
+        var first = service.getHistoryRange(7L, 1_000, 4_000, 3, null);
+        var second = service.getHistoryRange(7L, 1_000, 4_000, 3, first.nextCursor());
+
+        // Then
+        assertEquals(List.of(1_000L, 2_000L, 3_000L), first.points().stream().map(TelemetryPoint::ts).toList());
+        assertNotNull(first.nextCursor());
+        assertEquals(List.of(4_000L), second.points().stream().map(TelemetryPoint::ts).toList());
+        assertNull(second.nextCursor());
+        verifyNoInteractions(dynamo);
+    }
+
+    @Test
+    void testGetHistoryRange_LateReadingFillsItsPlaceInMemory() {
+        // Given: a full ring, then a reading that arrives after a newer one
+        for (long ts : new long[] {1_000, 2_000, 3_000, 5_000}) ingest(7L, ts);
+        ingest(7L, 4_000);
+
+        // When
+        var page = service.getHistoryRange(7L, 2_000, 5_000, 10, null);
+
+        // Then
+        assertEquals(List.of(2_000L, 3_000L, 4_000L, 5_000L), page.points().stream().map(TelemetryPoint::ts).toList());
+        verifyNoInteractions(dynamo);
+    }
+
+    @Test
+    void testGetHistoryRange_UsesBetweenConditionAndLastEvaluatedKey() {
+        // Given: nothing in memory for this vehicle
+        when(dynamo.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder()
+                .items(Map.of("ts", AttributeValue.fromN("1500")), Map.of("ts", AttributeValue.fromN("1600")))
+                .lastEvaluatedKey(Map.of("vehicle_id", AttributeValue.fromN("9"), "ts", AttributeValue.fromN("1600")))
+                .build());
+
+        // When
+        var page = service.getHistoryRange(9L, 1_000, 5_000, 2, null);
+
+        // Then
+        var request = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamo).query(request.capture());
+        assertEquals("vehicle_id = :vid AND ts BETWEEN :from AND :to", request.getValue().keyConditionExpression());
+        assertTrue(request.getValue().scanIndexForward());
+        assertEquals(2, page.points().size());
+        assertNotNull(page.nextCursor());
+
+        // And the cursor resumes right after the last item
+        service.getHistoryRange(9L, 1_000, 5_000, 2, page.nextCursor());
+        verify(dynamo, times(2)).query(request.capture());
+        assertEquals("1601", request.getValue().expressionAttributeValues().get(":from").n());
+    }
+
+    @Test
+    void testServeLocalOff_ReadsEverythingFromDynamo() {
+        // Given: another instance may have ingested readings this one never saw
+        service = new TelemetryHistoryService(dynamo, ringBuffer, archive, false);
+        for (long ts = 1_000; ts <= 4_000; ts += 1_000) ingest(7L, ts);
+        when(dynamo.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().build());
+
+        // When
+        service.getHistory(7L, 3);
+        service.getHistoryRange(7L, 1_000, 4_000, 3, null);
+
+        // Then
+        verify(dynamo, times(2)).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void testGetHistoryRange_DynamoFailureIsNotAnEmptyLastPage() {
+        // Given
+        when(dynamo.query(any(QueryRequest.class)))
+                .thenThrow(DynamoDbException.builder().message("Throughput exceeded").build());
+
+        // Then
+        assertThrows(TelemetryHistoryService.HistoryUnavailableException.class,
+                () -> service.getHistoryRange(9L, 1_000, 5_000, 2, null));
+        assertThrows(TelemetryHistoryService.HistoryUnavailableException.class,
+                () -> service.streamHistoryRange(9L, 1_000, 5_000, page -> fail("no page expected")));
+    }
+
+    @Test
+    void testGetHistoryRange_RejectsCursorOfAnotherVehicle() {
+        // Given
+        for (long ts = 1_000; ts <= 4_000; ts += 1_000) ingest(7L, ts);
+        var cursor = service.getHistoryRange(7L, 1_000, 4_000, 1, null).nextCursor();
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> service.getHistoryRange(8L, 1_000, 4_000, 1, cursor));
+        assertThrows(IllegalArgumentException.class, () -> service.getHistoryRange(7L, 1_000, 4_000, 1, "%%%"));
+    }
+}
@@ -0,0 +1,53 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.aws;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VidTagStripper
+ * Checks that streamed replies come out as the whole-reply regex would strip them
+ */
+class VidTagStripperTest {
+
+    private static final String REPLY = "Te recomiendo la Urbana [vid:3], S/450 [oferta] y la [vid:12] [vid:x] [vid:";
+
+    @Test
+    void testAccept_SameResultForEverySplitOfTheReply() {
+        String expected = REPLY.replaceAll("\\[vid:\\d+\\]", "");
+        for (int a = 0; a <= REPLY.length(); a++) {
+            for (int b = a; b <= REPLY.length(); b++) {
+                // Given
+                var stripper = new VidTagStripper();
+
+                // When
+                String first = stripper.accept(REPLY.substring(0, a));
+                String second = stripper.accept(REPLY.substring(a, b));
+                String third = stripper.accept(REPLY.substring(b));
+                String shown = first + second + third + stripper.finish();
+
+                // Then
+                assertEquals(expected, shown, "split at " + a + ", " + b);
+                assertEquals(Set.of(3L, 12L), stripper.vehicleIds());
+                assertFalse(second.contains("[vid:1"), "tag fragment shown at " + a + ", " + b);
+            }
+        }
+    }
+
+    @Test
+    void testAccept_HoldsBackOnlyWhatCouldStillBeATag() {
+        // Given
+        var stripper = new VidTagStripper();
+
+        // When / Then
+        assertEquals("Hola ", stripper.accept("Hola [vi"));
+        assertEquals("", stripper.accept("d:4"));
+        assertEquals(" listo", stripper.accept("] listo"));
+        assertEquals("[video] ", stripper.accept("[video] "));
+        assertEquals("", stripper.finish());
+        assertEquals(List.of(4L), List.copyOf(stripper.vehicleIds()));
+    }
+}
@@ -0,0 +1,147 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Haversine;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ChatCandidateSnapshot
+ * Checks budget cut-offs and nearest selection against a brute-force sort of the same vehicles
+ */
+class ChatCandidateSnapshotTest {
+
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private ChatCandidateSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // 300 vehicles over Lima priced S/100-1100, every fourth one rented out
+        Random random = new Random(11);
+        for (long id = 1; id <= 300; id++) {
+            double price = 100 + random.nextInt(1000);
+            var vehicle = new Vehicle("bike", "Bike " + id, 2023, 5, 10.0, price, id % 4 != 0, null,
+                    -12.15f + random.nextFloat() * 0.2f, -77.10f + random.nextFloat() * 0.2f, "City bike", 1L);
+            ReflectionTestUtils.setField(vehicle, "id", id);
+            vehicles.add(vehicle);
+        }
+        var repository = mock(VehicleRepository.class);
+        when(repository.findAllByIsAvailable(true))
+                .thenReturn(vehicles.stream().filter(Vehicle::getIsAvailable).toList());
+        snapshot = new ChatCandidateSnapshot(repository);
+        snapshot.load();
+    }
+
+    private static List<Long> ids(List<ChatCandidateSnapshot.Candidate> candidates) {
+        return candidates.stream().map(c -> c.vehicle().getId()).toList();
+    }
+
+    @Test
+    void testCheapestAndNearest_MatchBruteForce() {
+        var available = vehicles.stream().filter(Vehicle::getIsAvailable).toList();
+        for (Double budget : new Double[] { null, 50.0, 300.0, 700.0 }) {
+            var within = budget == null ? available : available.stream()
+                    .filter(v -> v.getPriceSell() <= budget).toList();
+            var pool = within.isEmpty() ? available : within;
+
+            // When
+            var cheapest = snapshot.cheapest(budget, 3);
+            var nearest = snapshot.nearest(-12.05, -77.04, budget, 3);
+
+            // Then
+            var expectedCheapest = pool.stream()
+                    .sorted(Comparator.comparing(Vehicle::getPriceSell).thenComparing(Vehicle::getId))
+                    .limit(3).map(Vehicle::getId).toList();
+            var expectedNearest = pool.stream()
+                    .sorted(Comparator.comparingDouble(v -> Haversine.distanceKm(-12.05, -77.04, v.getLat(), v.getLng())))
+                    .limit(3).map(Vehicle::getId).toList();
+            assertEquals(expectedCheapest, ids(cheapest), "cheapest, budget " + budget);
+            assertEquals(expectedNearest, ids(nearest), "nearest, budget " + budget);
+        }
+    }
+
+    @Test
+    void testEvents_SwapInANewSnapshot() {
+        // Given
+        long version = snapshot.version();
+        int size = snapshot.size();
+        var cheapestId = ids(snapshot.cheapest(null, 1)).get(0);
+        var cheapest = vehicles.get((int) (cheapestId - 1));
+
+        // When the cheapest vehicle is rented out
+        cheapest.updateAvailability(false);
+        snapshot.on(new VehicleSavedEvent(cheapest));
+
+        // Then
+        assertEquals(size - 1, snapshot.size());
+        assertTrue(snapshot.version() > version);
+        assertNotEquals(cheapestId, ids(snapshot.cheapest(null, 1)).get(0));
+
+        // When another vehicle reports a position next to the user, then telemetry is flushed
+        long far = ids(snapshot.cheapest(null, 1)).get(0);
+        snapshot.on(new VehicleTelemetryRecordedEvent(far, 1L, "esp32", -12.0500f, -77.0400f, true, false,
+                false, false, 0f, false, Instant.now()));
+        long beforeFlush = snapshot.version();
+        long catalogVersion = snapshot.catalogVersion();
+        snapshot.on(new VehicleTelemetryFlushedEvent(List.of(far)));
+
+        // Then
+        assertTrue(snapshot.version() > beforeFlush);
+        assertEquals(catalogVersion, snapshot.catalogVersion(), "positions alone leave the catalog as it was");
+        assertEquals(far, ids(snapshot.nearest(-12.05, -77.04, null, 1)).get(0));
+    }
+
+    @Test
+    void testSavedEvent_BumpsCatalogVersionOnlyForCatalogFields() {
+        // Given
+        long catalogVersion = snapshot.catalogVersion();
+        var cheapestId = ids(snapshot.cheapest(null, 1)).get(0);
+        var cheapest = vehicles.get((int) (cheapestId - 1));
+
+        // When only the description changes
+        cheapest.updateDescription("Recién revisada");
+        snapshot.on(new VehicleSavedEvent(cheapest));
+
+        // Then the new vehicle is served under the same catalog version
+        assertEquals(catalogVersion, snapshot.catalogVersion());
+        assertEquals("Recién revisada", snapshot.cheapest(null, 1).get(0).vehicle().getDescription());
+
+        // When its price changes
+        cheapest.updatePrices(10.0, 5_000.0);
+        snapshot.on(new VehicleSavedEvent(cheapest));
+
+        // Then
+        assertTrue(snapshot.catalogVersion() > catalogVersion);
+        assertNotEquals(cheapestId, ids(snapshot.cheapest(null, 1)).get(0));
+    }
+
+    @Test
+    void testSavedEvent_UnavailableVehicleOutsideTheSnapshotChangesNothing() {
+        // Given: vehicle 4 is rented out
+        long version = snapshot.version();
+        long catalogVersion = snapshot.catalogVersion();
+
+        // When
+        vehicles.get(3).updateDescription("Sigue alquilada");
+        snapshot.on(new VehicleSavedEvent(vehicles.get(3)));
+
+        // Then
+        assertEquals(version, snapshot.version());
+        assertEquals(catalogVersion, snapshot.catalogVersion());
+    }
+}
@@ -0,0 +1,70 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.chat.ChatModel;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChatReplyCache
+ * Tests which prompts share a cached reply and that a new catalog version misses
+ */
+class ChatReplyCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatReplyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ChatReplyCache(100, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    void testKey_SharedOnlyByEquivalentPrompts() {
+        // Given
+        var history = List.of(new ChatModel.ChatTurn("user", "hola"),
+                new ChatModel.ChatTurn("assistant", "¿Qué vehículo buscas?"));
+        var key = ChatReplyCache.key("Quiero una bici  barata", "Ana", List.of(3L, 1L), history, 7);
+
+        // When / Then
+        assertEquals(key, ChatReplyCache.key(" quiero una BICI barata!! ", "ana", List.of(3L, 1L), history, 7));
+        assertNotEquals(key, ChatReplyCache.key("quiero una bici barata", "Ana", List.of(1L, 3L), history, 7));
+        assertNotEquals(key, ChatReplyCache.key("quiero una bici barata", "Ana", List.of(3L, 1L), history, 8));
+        assertNotEquals(key, ChatReplyCache.key("quiero una bici barata", "Ana", List.of(3L, 1L), null, 7));
+        assertNotEquals(key, ChatReplyCache.key("quiero una bici barata", "Ana", List.of(3L, 1L),
+                List.of(new ChatModel.ChatTurn("user", "hol"),
+                        new ChatModel.ChatTurn("assistant", "a¿Qué vehículo buscas?")), 7));
+        assertNotEquals(key, ChatReplyCache.key("quiero una bici barata", "Luis", List.of(3L, 1L), history, 7));
+    }
+
+    @Test
+    void testGet_CountsHitsAndMissesOnNewCatalogVersion() {
+        // Given
+        var key = ChatReplyCache.key("hola", null, List.of(), null, 1);
+        assertTrue(cache.get(key).isEmpty());
+        cache.put(key, "¡Hola! ¿Qué tipo de vehículo buscas?");
+
+        // When
+        var hit = cache.get(key);
+
+        // Then
+        assertEquals("¡Hola! ¿Qué tipo de vehículo buscas?", hit.orElseThrow());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "chat-replies").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "chat-replies").tag("result", "miss")
+                .functionCounter().count());
+
+        // When the catalog changes
+        var newCatalog = ChatReplyCache.key("hola", null, List.of(), null, 2);
+
+        // Then
+        assertTrue(cache.get(newCatalog).isEmpty());
+        assertTrue(cache.get(key).isPresent(), "older entries are not invalidated, only unreachable");
+    }
+}
@@ -0,0 +1,107 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VehicleCache
+ * Tests read-through loading, that misses are not cached and the invalidating events
+ */
+class VehicleCacheTest {
+
+    private final Map<Long, Vehicle> database = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private VehicleCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VehicleCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        database.put(1L, vehicle(1L));
+        database.put(2L, vehicle(2L));
+    }
+
+    private static Vehicle vehicle(long id) {
+        var vehicle = new Vehicle("bike", "Bike " + id, 2023, 5, 10.0, 500.0, true, null, -12.12f, -77.03f,
+                "City bike", 1L);
+        ReflectionTestUtils.setField(vehicle, "id", id);
+        return vehicle;
+    }
+
+    private Optional<Vehicle> get(Long vehicleId) {
+        return cache.get(vehicleId, id -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(database.get(id));
+        });
+    }
+
+    @Test
+    void testGet_LoadsOnceAndServesTheCachedVehicle() {
+        // When
+        var first = get(1L);
+        var second = get(1L);
+
+        // Then
+        assertSame(first.orElseThrow(), second.orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_DoesNotCacheMisses() {
+        // Given
+        assertTrue(get(3L).isEmpty());
+
+        // When the vehicle is created afterwards
+        database.put(3L, vehicle(3L));
+
+        // Then
+        assertEquals(3L, get(3L).orElseThrow().getId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testEvents_DropOnlyTheVehiclesTheyName() {
+        // Given
+        get(1L);
+        get(2L);
+
+        // When saved
+        var saved = vehicle(1L);
+        saved.updateDescription("Nueva");
+        database.put(1L, saved);
+        cache.on(new VehicleSavedEvent(saved));
+
+        // Then
+        assertEquals("Nueva", get(1L).orElseThrow().getDescription());
+        get(2L);
+        assertEquals(3, loads.get(), "vehicle 2 is still cached");
+
+        // When telemetry of vehicle 2 is flushed
+        cache.on(new VehicleTelemetryFlushedEvent(List.of(2L)));
+        get(2L);
+
+        // Then
+        assertEquals(4, loads.get());
+
+        // When vehicle 1 is deleted
+        database.remove(1L);
+        cache.on(new VehicleDeletedEvent(1L));
+
+        // Then
+        assertTrue(get(1L).isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChatBulkhead
+ * Tests the concurrency limit and the busy answers for a full or slow queue
+ */
+class ChatBulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatBulkhead bulkhead;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new ChatBulkhead(2, 1, Duration.ofMillis(200), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    private String slowCall() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "reply";
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("vehicles.chat.bulkhead.rejected").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void testSubmit_AnswersBusyWhenFullOrWaitingTooLong() throws Exception {
+        // Given both slots taken
+        var first = bulkhead.submit(this::slowCall, () -> "busy");
+        var second = bulkhead.submit(this::slowCall, () -> "busy");
+
+        // When one more waits in line and another finds the line full
+        var queued = bulkhead.submit(this::slowCall, () -> "busy");
+        var overflow = bulkhead.submit(this::slowCall, () -> "busy");
+
+        // Then
+        assertEquals("busy", overflow.getNow(null), "full line is answered at once");
+        assertEquals(1.0, rejected("queue-full"));
+        assertEquals("busy", queued.get(2, TimeUnit.SECONDS));
+        assertEquals(1.0, rejected("queue-timeout"));
+        assertEquals(2, bulkhead.active());
+
+        // When the running calls finish
+        release.countDown();
+
+        // Then
+        assertEquals("reply", first.get(2, TimeUnit.SECONDS));
+        assertEquals("reply", second.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmit_NeverRunsMoreThanTheLimit() throws Exception {
+        // Given
+        var wide = new ChatBulkhead(3, 100, Duration.ofSeconds(5), meterRegistry);
+        var running = new AtomicInteger();
+        var peak = new AtomicInteger();
+
+        // When
+        var calls = new CompletableFuture<?>[30];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = wide.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return "reply";
+            }, () -> "busy");
+        }
+        CompletableFuture.allOf(calls).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(3, peak.get());
+        for (var call : calls) {
+            assertEquals("reply", call.getNow(null));
+        }
+        wide.shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChatSessionStore
+ * Tests session reuse, the bounded turn window and the carried-over budget
+ */
+class ChatSessionStoreTest {
+
+    private ChatSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ChatSessionStore(100, Duration.ofMinutes(30), 4, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testOpen_ReusesKnownSessionsAndSeedsNewOnes() {
+        // Given a client that still sends its history
+        var history = List.of(new ChatModel.ChatTurn("user", "tengo 500 soles"),
+                new ChatModel.ChatTurn("assistant", "Te recomiendo la Urbana."));
+
+        // When
+        var session = store.open(null, () -> history, () -> 500.0);
+        var again = store.open(session.id(), () -> fail("history of a live session is not read"), () -> null);
+        var unknown = store.open("expired-id", List::of, () -> null);
+
+        // Then
+        assertSame(session, again);
+        assertEquals(history, session.turns());
+        assertEquals(500.0, session.budget());
+        assertNotEquals(session.id(), unknown.id());
+        assertTrue(unknown.turns().isEmpty());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testRecord_KeepsLatestTurnsAndLastBudget() {
+        // Given
+        var session = store.open(null, List::of, () -> null);
+
+        // When
+        session.record("quiero una bici de 300 soles", "Te recomiendo la Urbana.", 300.0);
+        session.record("otra", "Te recomiendo la Montañera.", null);
+        session.record("y un scooter?", "Te recomiendo el Xiaomi.", null);
+
+        // Then
+        assertEquals(300.0, session.budget(), "budget carries over turns that don't mention one");
+        assertEquals(List.of("otra", "Te recomiendo la Montañera.", "y un scooter?", "Te recomiendo el Xiaomi."),
+                session.turns().stream().map(ChatModel.ChatTurn::text).toList());
+        assertEquals("user", session.turns().get(0).role());
+    }
+
+    @Test
+    void testTurns_AlwaysStartWithAUserTurn() {
+        // Given an odd window and a client history that starts with the greeting
+        var oddStore = new ChatSessionStore(100, Duration.ofMinutes(30), 3, new SimpleMeterRegistry());
+        var history = List.of(new ChatModel.ChatTurn("assistant", "Hola, ¿qué buscas?"),
+                new ChatModel.ChatTurn("user", "una bici"),
+                new ChatModel.ChatTurn("assistant", "Te recomiendo la Urbana."));
+
+        // When
+        var session = oddStore.open(null, () -> history, () -> null);
+        var seeded = session.turns();
+        session.record("y un scooter?", "Te recomiendo el Xiaomi.", null);
+
+        // Then
+        assertEquals(List.of("una bici", "Te recomiendo la Urbana."),
+                seeded.stream().map(ChatModel.ChatTurn::text).toList());
+        assertEquals(List.of("y un scooter?", "Te recomiendo el Xiaomi."),
+                session.turns().stream().map(ChatModel.ChatTurn::text).toList(),
+                "the reply is dropped with its question, not kept alone");
+    }
+}
@@ -0,0 +1,90 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleReservedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.shared.domain.geo.Geohash;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for DemandHeatmap
+ * Tests the incremental availability counters and the sliding reservation window
+ */
+class DemandHeatmapTest {
+
+    private final AtomicLong now = new AtomicLong(Instant.parse("2025-06-01T12:00:00Z").toEpochMilli());
+    private DemandHeatmap heatmap;
+
+    @BeforeEach
+    void setUp() {
+        heatmap = new DemandHeatmap(mock(VehicleRepository.class), Duration.ofHours(24), now::get);
+    }
+
+    @Test
+    void testCells_TrackAvailableVehiclesAsTheyMove() {
+        // Given two available vehicles in Miraflores and one rented out
+        heatmap.put(1L, -12.1211f, -77.0297f, true);
+        heatmap.put(2L, -12.1213f, -77.0299f, true);
+        heatmap.put(3L, -12.1212f, -77.0298f, false);
+        String miraflores = Geohash.toText(Geohash.encode(-12.1211, -77.0297, 5), 5);
+
+        // When
+        var before = heatmap.cells(5);
+
+        // Then
+        assertEquals(1, before.size());
+        assertEquals(miraflores, before.get(0).geohash());
+        assertEquals(2, before.get(0).availableVehicles());
+
+        // When vehicle 2 rides to Callao and vehicle 1 is deleted
+        heatmap.put(2L, -12.0560f, -77.1180f, true);
+        heatmap.remove(1L);
+
+        // Then
+        var after = heatmap.cells(5);
+        assertEquals(1, after.size());
+        assertNotEquals(miraflores, after.get(0).geohash());
+        assertEquals(1, after.get(0).availableVehicles());
+        assertEquals("ezs42", Geohash.toText(Geohash.encode(42.6, -5.6, 5), 5));
+    }
+
+    @Test
+    void testCells_ReservationsAgeOutOfTheWindow() {
+        // Given a vehicle reserved twice, 20 hours apart
+        heatmap.put(1L, -12.1211f, -77.0297f, false);
+        heatmap.on(new VehicleReservedEvent(1L, 100L, Instant.ofEpochMilli(now.get())));
+        now.addAndGet(Duration.ofHours(20).toMillis());
+        heatmap.on(new VehicleReservedEvent(1L, 101L, Instant.ofEpochMilli(now.get())));
+
+        // When
+        var withinWindow = heatmap.cells(DemandHeatmap.MAX_PRECISION);
+        now.addAndGet(Duration.ofHours(6).toMillis());
+        var afterFirstExpired = heatmap.cells(DemandHeatmap.MIN_PRECISION);
+
+        // Then
+        assertEquals(2, withinWindow.get(0).recentReservations());
+        assertEquals(0, withinWindow.get(0).availableVehicles());
+        assertEquals(1, afterFirstExpired.get(0).recentReservations());
+        assertThrows(IllegalArgumentException.class, () -> heatmap.cells(DemandHeatmap.MAX_PRECISION + 1));
+    }
+
+    @Test
+    void testOn_CountsARetriedReservationOnce() {
+        // Given
+        heatmap.put(1L, -12.1211f, -77.0297f, false);
+
+        // When the reservations service reports reservation 100 twice
+        heatmap.on(new VehicleReservedEvent(1L, 100L, Instant.ofEpochMilli(now.get())));
+        heatmap.on(new VehicleReservedEvent(1L, 100L, Instant.ofEpochMilli(now.get())));
+
+        // Then
+        assertEquals(1, heatmap.cells(DemandHeatmap.MAX_PRECISION).get(0).recentReservations());
+    }
+}
@@ -0,0 +1,100 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for VehicleClusterIndex
+ * Checks the incrementally maintained clusters against the vehicles' last positions
+ */
+class VehicleClusterIndexTest {
+
+    private VehicleClusterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VehicleClusterIndex(mock(VehicleRepository.class));
+    }
+
+    @Test
+    void testClusters_StayConsistentAfterMovesAndRemovals() {
+        // Given 300 vehicles over Lima, then moved, re-flagged and some removed
+        Random random = new Random(7);
+        Map<Long, float[]> positions = new HashMap<>();
+        Map<Long, Boolean> available = new HashMap<>();
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 300; id++) {
+                float lat = -12.15f + random.nextFloat() * 0.2f;
+                float lng = -77.10f + random.nextFloat() * 0.2f;
+                boolean isAvailable = random.nextBoolean();
+                positions.put(id, new float[] { lat, lng });
+                available.put(id, isAvailable);
+                index.put(id, lat, lng, isAvailable);
+            }
+        }
+        for (long id = 1; id <= 300; id += 4) {
+            positions.remove(id);
+            available.remove(id);
+            index.remove(id);
+        }
+        long expectedAvailable = available.values().stream().filter(Boolean::booleanValue).count();
+
+        for (int zoom = 0; zoom <= VehicleClusterIndex.MAX_ZOOM; zoom++) {
+            // When
+            var clusters = index.clusters(-90, -180, 90, 180, zoom);
+
+            // Then
+            assertEquals(positions.size(), clusters.stream().mapToInt(VehicleClusterIndex.Cluster::count).sum(),
+                    "vehicles at zoom " + zoom);
+            assertEquals(expectedAvailable, clusters.stream().mapToInt(VehicleClusterIndex.Cluster::available).sum(),
+                    "available at zoom " + zoom);
+            for (var cluster : clusters) {
+                if (cluster.count() == 1) {
+                    float[] position = positions.get(cluster.vehicleId());
+                    assertNotNull(position, "single cluster names a live vehicle");
+                    assertEquals(position[0], cluster.lat(), 1e-4);
+                    assertEquals(position[1], cluster.lng(), 1e-4);
+                } else {
+                    assertNull(cluster.vehicleId());
+                }
+            }
+        }
+        assertEquals(1, index.clusters(-90, -180, 90, 180, 0).size(), "whole city in one cluster at zoom 0");
+    }
+
+    @Test
+    void testClusters_FollowMovingVehicleAndFilterByBbox() {
+        // Given two vehicles in Miraflores and one in San Isidro
+        index.put(1L, -12.1211f, -77.0297f, true);
+        index.put(2L, -12.1213f, -77.0299f, false);
+        index.put(3L, -12.0970f, -77.0365f, true);
+
+        // When
+        var miraflores = index.clusters(-12.13, -77.04, -12.11, -77.02, 14);
+
+        // Then
+        assertEquals(1, miraflores.size());
+        assertEquals(2, miraflores.get(0).count());
+        assertEquals(1, miraflores.get(0).available());
+        assertEquals(-12.1212, miraflores.get(0).lat(), 1e-4);
+
+        // When vehicle 2 rides to San Isidro
+        index.put(2L, -12.0971f, -77.0366f, false);
+
+        // Then
+        var afterRide = index.clusters(-12.13, -77.04, -12.11, -77.02, 14);
+        assertEquals(1, afterRide.size());
+        assertEquals(1L, afterRide.get(0).vehicleId());
+        var sanIsidro = index.clusters(-12.10, -77.04, -12.09, -77.03, 14);
+        assertEquals(2, sanIsidro.stream().mapToInt(VehicleClusterIndex.Cluster::count).sum());
+        assertEquals(3, index.size());
+    }
+}
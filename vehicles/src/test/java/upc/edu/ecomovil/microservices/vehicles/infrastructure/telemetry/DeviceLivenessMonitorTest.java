@@ -0,0 +1,93 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleConnectivityChangedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DeviceLivenessMonitor
+ * Tests offline and back-online transitions driven by the timing wheel
+ */
+class DeviceLivenessMonitorTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private ApplicationEventPublisher eventPublisher;
+    private DeviceLivenessMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        // 8 buckets of 1 s: a 60 s timeout needs several revolutions
+        monitor = new DeviceLivenessMonitor(mock(VehicleRepository.class), eventPublisher, Duration.ofSeconds(60),
+                1_000, 8, new SimpleMeterRegistry(), now::get);
+    }
+
+    private void report(long vehicleId) {
+        monitor.on(new VehicleTelemetryRecordedEvent(vehicleId, 3L, "esp32-" + vehicleId, -12.05f, -77.04f, true,
+                false, false, false, 0f, false, Instant.ofEpochMilli(now.get())));
+    }
+
+    private void advance(long ms) {
+        for (long step = 0; step < ms; step += 1_000) {
+            now.addAndGet(1_000);
+            monitor.tick();
+        }
+    }
+
+    @Test
+    void testTick_SilentDeviceGoesOfflineReportingOneDoesNot() {
+        // Given
+        report(1L);
+        report(2L);
+
+        // When: vehicle 2 keeps reporting every 30 s, vehicle 1 goes silent
+        advance(30_000);
+        report(2L);
+        advance(30_000);
+        report(2L);
+        advance(1_000);
+
+        // Then
+        var offline = monitor.offlineDevices();
+        assertEquals(1, offline.size());
+        assertEquals(1L, offline.get(0).vehicleId());
+        assertEquals("esp32-1", offline.get(0).deviceId());
+        var event = ArgumentCaptor.forClass(VehicleConnectivityChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertFalse(event.getValue().online());
+        assertEquals(1L, event.getValue().vehicleId());
+    }
+
+    @Test
+    void testOn_OfflineDeviceComesBackOnline() {
+        // Given
+        report(1L);
+        advance(61_000);
+        assertEquals(1, monitor.offlineCount());
+
+        // When
+        report(1L);
+
+        // Then
+        assertEquals(0, monitor.offlineCount());
+        var events = ArgumentCaptor.forClass(VehicleConnectivityChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertTrue(events.getAllValues().get(1).online());
+
+        // And it is watched again
+        advance(61_000);
+        assertEquals(1, monitor.offlineCount());
+    }
+}
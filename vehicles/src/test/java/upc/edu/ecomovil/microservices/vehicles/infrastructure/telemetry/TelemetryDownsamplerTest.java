@@ -0,0 +1,62 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.TelemetryPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TelemetryDownsampler
+ * Tests LTTB point budget, endpoints and preservation of sharp turns
+ */
+class TelemetryDownsamplerTest {
+
+    private static TelemetryPoint at(long ts, double lat, double lng) {
+        return new TelemetryPoint(ts, (float) lat, (float) lng, 10f, false, false, false);
+    }
+
+    @Test
+    void testLttb_KeepsEndpointsAndBudget() {
+        // Given
+        var track = new ArrayList<TelemetryPoint>();
+        for (int i = 0; i < 1000; i++) track.add(at(i, -12.0 + i * 1e-5, -77.0 + Math.sin(i / 50.0) * 1e-3));
+
+        // When
+        var sampled = TelemetryDownsampler.lttb(track, 50);
+
+        // Then
+        assertEquals(50, sampled.size());
+        assertSame(track.get(0), sampled.get(0));
+        assertSame(track.get(999), sampled.get(49));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i).ts() > sampled.get(i - 1).ts());
+        }
+    }
+
+    @Test
+    void testLttb_PreservesSharpTurn() {
+        // Given: straight north, a 90 degree turn at index 500, then straight east
+        var track = new ArrayList<TelemetryPoint>();
+        for (int i = 0; i <= 500; i++) track.add(at(i, -12.0 + i * 1e-5, -77.0));
+        for (int i = 1; i <= 500; i++) track.add(at(500 + i, -12.0 + 500 * 1e-5, -77.0 + i * 1e-5));
+
+        // When
+        var sampled = TelemetryDownsampler.lttb(track, 10);
+
+        // Then
+        assertTrue(sampled.stream().anyMatch(p -> Math.abs(p.ts() - 500) <= 2), "turn point kept");
+    }
+
+    @Test
+    void testLttb_SmallInputAndPositionlessReadingsUnchanged() {
+        // Given
+        var track = List.of(at(1, 0, 0), new TelemetryPoint(2, null, null, 0f, true, false, false), at(3, 1, 1));
+
+        // Then
+        assertSame(track, TelemetryDownsampler.lttb(track, 5));
+        assertEquals(3, TelemetryDownsampler.lttb(new ArrayList<>(track), 3).size());
+    }
+}
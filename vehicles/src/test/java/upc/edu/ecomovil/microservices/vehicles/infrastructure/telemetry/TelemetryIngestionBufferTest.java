@@ -0,0 +1,294 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryFlushedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository.VehicleTelemetryState;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleTelemetryRepository.TelemetryUpdate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TelemetryIngestionBuffer
+ * Tests per-vehicle coalescing and the transitions reported to the caller
+ */
+class TelemetryIngestionBufferTest {
+
+    private VehicleRepository vehicleRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private TelemetryIngestionBuffer buffer;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        buffer = new TelemetryIngestionBuffer(vehicleRepository, eventPublisher);
+
+        vehicle = new Vehicle("bike", "Urbana", 2023, 5, 10.0, 500.0,
+                true, null, -12.0464f, -77.0428f, "City bike", 1L);
+        ReflectionTestUtils.setField(vehicle, "id", 7L);
+        // 500 m fence around the starting point
+        vehicle.setGeofence(-12.0464f, -77.0428f, 500);
+        when(vehicleRepository.findTelemetryStateById(7L)).thenReturn(Optional.of(stateOf(vehicle)));
+        when(vehicleRepository.updateTelemetry(anyList())).thenAnswer(inv -> {
+            var counts = new int[((List<?>) inv.getArgument(0)).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    private static VehicleTelemetryState stateOf(Vehicle v) {
+        return new VehicleTelemetryState() {
+            public Long getId() { return v.getId(); }
+            public Long getOwnerId() { return v.getOwnerId(); }
+            public Boolean getIsAvailable() { return v.getIsAvailable(); }
+            public String getIotDeviceId() { return v.getIotDeviceId(); }
+            public Float getLat() { return v.getLat(); }
+            public Float getLng() { return v.getLng(); }
+            public Boolean getIsLocked() { return v.getIsLocked(); }
+            public Boolean getFallDetected() { return v.getFallDetected(); }
+            public Boolean getPanicActive() { return v.getPanicActive(); }
+            public Float getSpeedKmh() { return v.getSpeedKmh(); }
+            public Instant getLastIotUpdate() { return v.getLastIotUpdate(); }
+            public Float getGeofenceCenterLat() { return v.getGeofenceCenterLat(); }
+            public Float getGeofenceCenterLng() { return v.getGeofenceCenterLng(); }
+            public Integer getGeofenceRadiusM() { return v.getGeofenceRadiusM(); }
+            public String getGeofencePolygon() { return v.getGeofencePolygon(); }
+            public Boolean getGeofenceBreached() { return v.getGeofenceBreached(); }
+        };
+    }
+
+    private static RecordTelemetryCommand reading(float lat, float lng, boolean panic) {
+        return new RecordTelemetryCommand(7L, "esp32-7", lat, lng, false, false, 12f, panic);
+    }
+
+    @Test
+    void testRecord_UnknownVehicle_ReturnsEmpty() {
+        // Given
+        when(vehicleRepository.findTelemetryStateById(99L)).thenReturn(Optional.empty());
+
+        // When
+        var result = buffer.record(new RecordTelemetryCommand(99L, "x", 0f, 0f, false, false, 0f, false));
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testRecord_BreachAndPanicRaisedOnlyOnTransition() {
+        // When
+        var inside = buffer.record(reading(-12.0464f, -77.0428f, false)).orElseThrow();
+        var outside = buffer.record(reading(-12.0600f, -77.0428f, true)).orElseThrow();
+        var stillOutside = buffer.record(reading(-12.0610f, -77.0428f, true)).orElseThrow();
+
+        // Then
+        assertFalse(inside.geofenceBreachRaised());
+        assertTrue(outside.geofenceBreachRaised());
+        assertTrue(outside.panicRaised());
+        assertFalse(stillOutside.geofenceBreachRaised());
+        assertFalse(stillOutside.panicRaised());
+        assertTrue(stillOutside.geofenceBreached());
+        assertEquals("esp32-7", stillOutside.deviceId());
+        verify(vehicleRepository, times(1)).findTelemetryStateById(7L);
+        verify(vehicleRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testRecord_PublishesAlertTransitions() {
+        // When
+        buffer.record(reading(-12.0464f, -77.0428f, false));
+        buffer.record(reading(-12.0600f, -77.0428f, true));
+        buffer.record(new RecordTelemetryCommand(7L, "esp32-7", -12.0464f, -77.0428f, true, false, 0f, false));
+        buffer.record(new RecordTelemetryCommand(7L, "esp32-7", -12.0464f, -77.0428f, true, false, 0f, false));
+
+        // Then
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        var alerts = events.getAllValues().stream()
+                .filter(VehicleAlertTransitionEvent.class::isInstance)
+                .map(VehicleAlertTransitionEvent.class::cast)
+                .toList();
+        assertEquals(List.of(AlertType.PANIC_RAISED, AlertType.GEOFENCE_BREACHED, AlertType.FALL_DETECTED,
+                AlertType.GEOFENCE_RETURNED), alerts.stream().map(VehicleAlertTransitionEvent::type).toList());
+        assertEquals(-12.0600f, alerts.get(1).lat());
+        assertEquals(1L, alerts.get(1).ownerId());
+    }
+
+    @Test
+    void testRecord_KeysReadingByProducerTimestamp() {
+        // Given
+        var recordedAt = Instant.parse("2026-01-15T10:00:00Z");
+
+        // When
+        buffer.record(new RecordTelemetryCommand(7L, "esp32-7", -12.0464f, -77.0428f, false, false, 12f, false,
+                recordedAt));
+
+        // Then
+        var event = ArgumentCaptor.forClass(VehicleTelemetryRecordedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(recordedAt, event.getValue().recordedAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_CoalescesReadingsIntoOneRowPerVehicle() {
+        // Given
+        buffer.record(reading(-12.0464f, -77.0428f, false));
+        buffer.record(reading(-12.0470f, -77.0430f, false));
+        buffer.record(reading(-12.0480f, -77.0440f, false));
+
+        // When
+        buffer.flush();
+        buffer.flush();
+
+        // Then
+        ArgumentCaptor<List<TelemetryUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(vehicleRepository, times(1)).updateTelemetry(updates.capture());
+        assertEquals(1, updates.getValue().size());
+        TelemetryUpdate update = updates.getValue().get(0);
+        assertEquals(-12.0480f, update.lat());
+        assertEquals(7L, update.vehicleId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_BadRowDoesNotHoldBackTheFleet() {
+        // Given vehicle 8 with a device id the column cannot hold
+        var other = new Vehicle("scooter", "Xiaomi", 2024, 5, 15.0, 900.0,
+                true, null, -12.1000f, -77.0300f, "Scooter", 2L);
+        ReflectionTestUtils.setField(other, "id", 8L);
+        when(vehicleRepository.findTelemetryStateById(8L)).thenReturn(Optional.of(stateOf(other)));
+        when(vehicleRepository.updateTelemetry(anyList())).thenAnswer(inv -> {
+            List<TelemetryUpdate> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(u -> u.vehicleId() == 8L)) {
+                throw new DataIntegrityViolationException("Data too long for column 'iot_device_id'");
+            }
+            return new int[] { 1 };
+        });
+        buffer.record(reading(-12.0464f, -77.0428f, false));
+        buffer.record(new RecordTelemetryCommand(8L, "x".repeat(300), -12.1000f, -77.0300f, false, false, 0f, false));
+
+        // When
+        buffer.flush();
+        buffer.flush();
+
+        // Then vehicle 7 is written, vehicle 8 is dropped instead of retried forever
+        ArgumentCaptor<List<TelemetryUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(vehicleRepository, times(3)).updateTelemetry(updates.capture());
+        assertEquals(2, updates.getAllValues().get(0).size());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        assertEquals(List.of(new VehicleTelemetryFlushedEvent(List.of(7L))), events.getAllValues().stream()
+                .filter(VehicleTelemetryFlushedEvent.class::isInstance).toList());
+    }
+
+    @Test
+    void testFlush_DatabaseDown_RetriesNextInterval() {
+        // Given
+        when(vehicleRepository.updateTelemetry(anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("Connection refused"))
+                .thenReturn(new int[] { 1 });
+        buffer.record(reading(-12.0464f, -77.0428f, false));
+
+        // When
+        buffer.flush();
+        buffer.flush();
+
+        // Then
+        verify(vehicleRepository, times(2)).updateTelemetry(anyList());
+        verify(eventPublisher).publishEvent(new VehicleTelemetryFlushedEvent(List.of(7L)));
+    }
+
+    @Test
+    void testSavedEvent_RefreshesGeofence() {
+        // Given
+        buffer.record(reading(-12.0464f, -77.0428f, false));
+        vehicle.setGeofence(-12.0464f, -77.0428f, 5000);
+
+        // When
+        buffer.on(new VehicleSavedEvent(vehicle, VehicleSavedEvent.IoTChange.GEOFENCE));
+        var result = buffer.record(reading(-12.0600f, -77.0428f, false)).orElseThrow();
+
+        // Then
+        assertFalse(result.geofenceBreached());
+        verify(vehicleRepository, never()).updateTelemetry(anyList());
+        verify(vehicleRepository, times(1)).findTelemetryStateById(7L);
+    }
+
+    @Test
+    void testSavedEvent_StaleEntityKeepsLiveAlerts() {
+        // Given: panic and breach known only in memory
+        buffer.record(reading(-12.0600f, -77.0428f, true));
+
+        // When: a profile edit saves the entity it read before that reading
+        vehicle.updateDescription("Nueva descripción");
+        buffer.on(new VehicleSavedEvent(vehicle));
+        var result = buffer.record(reading(-12.0600f, -77.0428f, true)).orElseThrow();
+        buffer.flush();
+
+        // Then: nothing is raised twice and the flush still writes the alerts
+        assertFalse(result.panicRaised());
+        assertFalse(result.geofenceBreachRaised());
+        var update = ArgumentCaptor.forClass(List.class);
+        verify(vehicleRepository).updateTelemetry(update.capture());
+        var written = (TelemetryUpdate) update.getValue().get(0);
+        assertTrue(written.panicActive());
+        assertTrue(written.geofenceBreached());
+    }
+
+    @Test
+    void testSavedEvent_UnlockResetsAlerts() {
+        // Given
+        buffer.record(reading(-12.0600f, -77.0428f, true));
+
+        // When
+        vehicle.setLocked(false);
+        buffer.on(new VehicleSavedEvent(vehicle, VehicleSavedEvent.IoTChange.LOCK_STATE,
+                VehicleSavedEvent.IoTChange.ALERTS_RESET));
+        var result = buffer.record(reading(-12.0600f, -77.0428f, true)).orElseThrow();
+
+        // Then: the next reading raises them again
+        assertTrue(result.panicRaised());
+        assertTrue(result.geofenceBreachRaised());
+    }
+
+    @Test
+    void testRecordAll_LoadsColdVehiclesOnceAndReportsUnknown() {
+        // Given
+        when(vehicleRepository.findTelemetryStatesByIdIn(List.of(7L, 99L))).thenReturn(List.of(stateOf(vehicle)));
+        var unknown = new RecordTelemetryCommand(99L, "x", 0f, 0f, false, false, 0f, false);
+
+        // When
+        var results = buffer.recordAll(List.of(
+                reading(-12.0464f, -77.0428f, false), unknown, reading(-12.0600f, -77.0428f, false)));
+
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isPresent());
+        assertTrue(results.get(1).isEmpty());
+        assertTrue(results.get(2).orElseThrow().geofenceBreachRaised());
+        verify(vehicleRepository, times(1)).findTelemetryStatesByIdIn(List.of(7L, 99L));
+        verify(vehicleRepository, never()).findTelemetryStateById(anyLong());
+    }
+}
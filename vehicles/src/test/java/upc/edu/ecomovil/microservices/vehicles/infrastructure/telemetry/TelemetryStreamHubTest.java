@@ -0,0 +1,90 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleDeletedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TelemetryStreamHub
+ * Tests subscriber bookkeeping and that publishing never blocks the caller
+ */
+class TelemetryStreamHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TelemetryStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new TelemetryStreamHub(4, Duration.ofMinutes(1), 1, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private static VehicleTelemetryRecordedEvent reading(long vehicleId) {
+        return new VehicleTelemetryRecordedEvent(vehicleId, 1L, "esp32", -12.05f, -77.04f, true, false,
+                false, false, 10f, false, Instant.now());
+    }
+
+    @Test
+    void testSubscribe_TracksSubscribersPerVehicle() {
+        // When
+        hub.subscribe(7L);
+        hub.subscribe(7L);
+        hub.subscribe(8L);
+
+        // Then
+        assertEquals(2, hub.subscriberCount(7L));
+        assertEquals(1, hub.subscriberCount(8L));
+        assertEquals(3.0, meterRegistry.get("vehicles.telemetry.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testDeletedEvent_ClosesStreamsOfThatVehicle() {
+        // Given
+        hub.subscribe(7L);
+        hub.subscribe(8L);
+        for (int i = 0; i < 100; i++) {
+            hub.on(reading(7L));
+        }
+
+        // When
+        hub.on(new VehicleDeletedEvent(7L));
+
+        // Then
+        assertEquals(0, hub.subscriberCount(7L));
+        assertEquals(1, hub.subscriberCount(8L));
+        assertEquals(1.0, meterRegistry.get("vehicles.telemetry.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testAlertSubscriptions_CountedApartFromVehicleStreams() {
+        // Given an owner stream and an admin stream
+        hub.subscribeAlerts(1L);
+        hub.subscribeAlerts(null);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            hub.on(new VehicleAlertRecordedEvent((long) i, 7L, 1L, "esp32", AlertType.PANIC_RAISED, -12.05f,
+                    -77.04f, Instant.now()));
+        }
+        hub.on(new VehicleDeletedEvent(7L));
+
+        // Then
+        assertEquals(0, hub.subscriberCount(7L));
+        assertEquals(2.0, meterRegistry.get("vehicles.telemetry.stream.subscribers").gauge().value());
+    }
+}
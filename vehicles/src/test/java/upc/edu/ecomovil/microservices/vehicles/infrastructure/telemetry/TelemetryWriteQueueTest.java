@@ -0,0 +1,53 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TelemetryWriteQueue
+ * Tests that a full queue makes the submitter wait instead of writing out of order
+ */
+class TelemetryWriteQueueTest {
+
+    @Test
+    void testSubmit_FullQueueWaitsAndKeepsOrder() throws Exception {
+        // Given: the writer busy with the first write and the one queue slot taken
+        var meterRegistry = new SimpleMeterRegistry();
+        var queue = new TelemetryWriteQueue(1, meterRegistry);
+        var written = new CopyOnWriteArrayList<Integer>();
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        queue.submit(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(1);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queue.submit(() -> written.add(2));
+
+        // When
+        var third = CompletableFuture.runAsync(() -> queue.submit(() -> written.add(3)));
+
+        // Then: the third submitter waits instead of writing ahead of the second
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        assertTrue(written.isEmpty());
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        queue.shutdown();
+        assertEquals(List.of(1, 2, 3), written);
+        assertEquals(1.0, meterRegistry.get("vehicles.telemetry.writes.blocked").counter().count());
+    }
+}
@@ -0,0 +1,104 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Trip;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleConnectivityChangedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleTelemetryRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.TripRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TripTracker
+ * Tests that trips are aggregated from readings and saved when they end
+ */
+class TripTrackerTest {
+
+    // ~111 m of latitude
+    private static final float STEP = 0.001f;
+
+    private TripRepository tripRepository;
+    private TelemetryWriteQueue writeQueue;
+    private TripTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tripRepository = mock(TripRepository.class);
+        when(tripRepository.save(any(Trip.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        writeQueue = mock(TelemetryWriteQueue.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(writeQueue).submit(any());
+        tracker = new TripTracker(tripRepository, writeQueue, 50, Duration.ofSeconds(30), Duration.ofMinutes(15));
+    }
+
+    private void report(long ts, float lat, boolean locked, float speed) {
+        tracker.on(new VehicleTelemetryRecordedEvent(5L, 3L, "esp32", lat, -77.04f, false, locked, false, false,
+                speed, false, Instant.ofEpochMilli(ts)));
+    }
+
+    @Test
+    void testLockedReading_SavesTripWithDistanceAndSpeeds() {
+        // Given: 10 readings 10 s apart, ~111 m each, with a GPS jump in the middle
+        for (int i = 0; i < 10; i++) {
+            report(i * 10_000L, -12f + i * STEP, false, 10f + i);
+        }
+        report(95_000L, -11f, false, 12f); // 110 km away: a jump, not movement
+
+        // When
+        report(100_000L, -12f + 10 * STEP, true, 0f);
+
+        // Then
+        var trip = ArgumentCaptor.forClass(Trip.class);
+        verify(tripRepository).save(trip.capture());
+        assertEquals(5L, trip.getValue().getVehicleId());
+        assertEquals(100, trip.getValue().getDurationSeconds());
+        assertEquals(1.11, trip.getValue().getDistanceKm(), 0.01);
+        assertEquals(19f, trip.getValue().getMaxSpeedKmh());
+        assertEquals(40.0, trip.getValue().getAvgSpeedKmh(), 0.5);
+        assertEquals(12, trip.getValue().getPointCount());
+        assertTrue(tracker.current(5L).isEmpty());
+    }
+
+    @Test
+    void testDeviceOffline_EndsTripAndAParkedOneIsNotSaved() {
+        // Given: a parked but unlocked vehicle with a metre of GPS noise
+        for (int i = 0; i < 20; i++) {
+            report(i * 5_000L, -12f + (i % 2) * 0.00001f, false, 0f);
+        }
+        assertEquals(0.0, tracker.current(5L).orElseThrow().getDistanceKm());
+
+        // When
+        tracker.on(new VehicleConnectivityChangedEvent(5L, 3L, "esp32", false, Instant.ofEpochMilli(95_000L)));
+
+        // Then
+        verify(tripRepository, never()).save(any(Trip.class));
+        assertTrue(tracker.current(5L).isEmpty());
+    }
+
+    @Test
+    void testIdleVehicle_EndsTripAtItsLastMovement() {
+        // Given: a 60 s ride, then 20 minutes parked and unlocked, still reporting
+        for (int i = 0; i <= 6; i++) {
+            report(i * 10_000L, -12f + i * STEP, false, 12f);
+        }
+        for (long ts = 120_000L; ts <= 1_260_000L; ts += 60_000L) {
+            report(ts, -12f + 6 * STEP, false, 0f);
+        }
+
+        // Then the ride was saved as it stood when the vehicle stopped
+        var trip = ArgumentCaptor.forClass(Trip.class);
+        verify(tripRepository).save(trip.capture());
+        assertEquals(60, trip.getValue().getDurationSeconds());
+        assertEquals(0.67, trip.getValue().getDistanceKm(), 0.01);
+        assertEquals(0.0, tracker.current(5L).orElseThrow().getDistanceKm(), "parked readings open a new trip");
+    }
+}
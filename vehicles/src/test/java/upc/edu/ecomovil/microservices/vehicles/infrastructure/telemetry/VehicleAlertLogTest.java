@@ -0,0 +1,89 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.VehicleAlert;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertRecordedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleAlertRepository;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VehicleAlertLog
+ * Tests that transitions are written through the write queue and announced with their log id
+ */
+class VehicleAlertLogTest {
+
+    private VehicleAlertRepository vehicleAlertRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private TelemetryWriteQueue writeQueue;
+    private VehicleAlertLog alertLog;
+
+    @BeforeEach
+    void setUp() {
+        vehicleAlertRepository = mock(VehicleAlertRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        writeQueue = mock(TelemetryWriteQueue.class);
+        alertLog = new VehicleAlertLog(vehicleAlertRepository, eventPublisher, writeQueue);
+    }
+
+    private static VehicleAlertTransitionEvent transition(AlertType type) {
+        return new VehicleAlertTransitionEvent(7L, 3L, "esp32-7", type, -12.05f, -77.04f,
+                Instant.parse("2026-01-15T10:00:00Z"));
+    }
+
+    private void runQueuedWrites() {
+        var write = ArgumentCaptor.forClass(Runnable.class);
+        verify(writeQueue, atLeastOnce()).submit(write.capture());
+        write.getAllValues().forEach(Runnable::run);
+    }
+
+    @Test
+    void testOn_WritesOffTheCallerAndPublishesLogId() {
+        // Given
+        when(vehicleAlertRepository.save(any(VehicleAlert.class))).thenAnswer(invocation -> {
+            VehicleAlert alert = invocation.getArgument(0);
+            ReflectionTestUtils.setField(alert, "id", 42L);
+            return alert;
+        });
+
+        // When
+        alertLog.on(transition(AlertType.ALERTS_RESET));
+
+        // Then: nothing is written until the queue runs it
+        verifyNoInteractions(vehicleAlertRepository, eventPublisher);
+        runQueuedWrites();
+        var saved = ArgumentCaptor.forClass(VehicleAlert.class);
+        verify(vehicleAlertRepository).save(saved.capture());
+        assertEquals(AlertType.ALERTS_RESET, saved.getValue().getType());
+        assertEquals(3L, saved.getValue().getOwnerId());
+        var recorded = ArgumentCaptor.forClass(VehicleAlertRecordedEvent.class);
+        verify(eventPublisher).publishEvent(recorded.capture());
+        assertEquals(42L, recorded.getValue().id());
+        assertEquals(AlertType.ALERTS_RESET, recorded.getValue().type());
+    }
+
+    @Test
+    void testOn_FailedWriteIsNotAnnounced() {
+        // Given
+        when(vehicleAlertRepository.save(any(VehicleAlert.class)))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When
+        alertLog.on(transition(AlertType.PANIC_RAISED));
+        runQueuedWrites();
+
+        // Then
+        verifyNoInteractions(eventPublisher);
+    }
+}
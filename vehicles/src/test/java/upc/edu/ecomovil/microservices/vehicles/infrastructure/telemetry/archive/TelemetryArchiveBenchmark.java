@@ -0,0 +1,91 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archive block encoding and scan throughput in readings per microsecond, on
+ * a simulated ride: 1 s reporting with jitter, a GPS track, speed changes and
+ * a few flag changes. Prints the resulting bytes per reading against the 21
+ * bytes of the uncompressed ring arrays.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive.TelemetryArchiveBenchmark}
+ * or from the IDE.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryArchiveBenchmark {
+
+    private static final int POINTS = TelemetryArchive.BLOCK_POINTS;
+
+    private final long[] ts = new long[POINTS];
+    private final float[] lat = new float[POINTS];
+    private final float[] lng = new float[POINTS];
+    private final float[] speed = new float[POINTS];
+    private final byte[] flags = new byte[POINTS];
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(7);
+        long t = 1_700_000_000_000L;
+        float la = -12.0464f;
+        float ln = -77.0428f;
+        float sp = 0;
+        for (int i = 0; i < POINTS; i++) {
+            t += 1_000 + random.nextInt(40) - 20;
+            sp = Math.max(0, Math.min(25, sp + random.nextInt(5) - 2));
+            la += sp * 2.5e-6f * (random.nextFloat() - 0.3f);
+            ln += sp * 2.5e-6f * (random.nextFloat() - 0.3f);
+            ts[i] = t;
+            lat[i] = la;
+            lng[i] = ln;
+            speed[i] = sp;
+            flags[i] = (byte) (i < 10 || i > POINTS - 10 ? TelemetryBlockCodec.LOCKED : 0);
+        }
+        payload = TelemetryBlockCodec.encode(ts, lat, lng, speed, flags, POINTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public byte[] encode() {
+        return TelemetryBlockCodec.encode(ts, lat, lng, speed, flags, POINTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void scan(Blackhole bh) {
+        TelemetryBlockCodec.decode(payload, POINTS, (t, la, ln, sp, fl) -> bh.consume(la + ln + sp));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var state = new TelemetryArchiveBenchmark();
+        state.setUp();
+        System.out.printf("%d readings -> %d bytes (%.2f bytes/reading, 21 uncompressed)%n",
+                POINTS, state.payload.length, (double) state.payload.length / POINTS);
+        new Runner(new OptionsBuilder().include(TelemetryArchiveBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryWriteQueue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TelemetryArchive
+ * Tests that sealed blocks survive a restart and coverage stays within a session
+ */
+class TelemetryArchiveTest {
+
+    private static final int SEGMENT_BYTES = 1 << 16;
+
+    @TempDir
+    Path dir;
+
+    private TelemetryWriteQueue writeQueue;
+
+    @BeforeEach
+    void setUp() {
+        // Queued writes run at once, so blocks are sealed as soon as they fill up
+        writeQueue = mock(TelemetryWriteQueue.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(writeQueue).submit(any());
+    }
+
+    private TelemetryArchive open() {
+        return new TelemetryArchive(true, dir, SEGMENT_BYTES, Duration.ofDays(3), Duration.ofMinutes(5), writeQueue);
+    }
+
+    private static void ingest(TelemetryArchive archive, long vehicleId, long fromTs, long toTs) {
+        for (long ts = fromTs; ts <= toTs; ts += 1_000) {
+            archive.append(vehicleId, ts, -12.05f, -77.04f + ts * 1e-9f, 12f, TelemetryBlockCodec.LOCKED);
+        }
+    }
+
+    @Test
+    void testRestart_RebuildsIndexAndStartsNewSession() {
+        // Given: 1_000 readings archived, then a clean shutdown
+        var archive = open();
+        ingest(archive, 7L, 1_000, 1_000_000);
+        archive.close();
+
+        // When
+        var reopened = open();
+        ingest(reopened, 7L, 2_000_000, 2_010_000);
+
+        // Then: the old session is served back, the gap between sessions is not claimed
+        var points = reopened.range(7L, 1_000, 1_000_000, 5_000);
+        assertEquals(1_000, points.size());
+        assertEquals(1_000, points.get(0).ts());
+        assertTrue(points.get(999).isLocked());
+        assertTrue(reopened.covers(7L, 500_000, 1_000_000));
+        assertFalse(reopened.covers(7L, 500_000, 2_005_000));
+        assertTrue(reopened.covers(7L, 2_000_000, Long.MAX_VALUE));
+        assertEquals(2_000_000, reopened.newest(7L, 100, Long.MAX_VALUE).completeFrom());
+    }
+
+    @Test
+    void testRestart_TornTailIsIgnored() throws Exception {
+        // Given: two sealed blocks, the second one corrupted as if the write was cut short
+        var archive = open();
+        ingest(archive, 7L, 1_000, (TelemetryArchive.BLOCK_POINTS * 2) * 1_000L);
+        archive.close();
+        long[] footprint = archive.footprint();
+        try (var file = new RandomAccessFile(dir.resolve("segment-00000000.tlm").toFile(), "rw")) {
+            file.seek(footprint[0] - 10);
+            file.write(0x5A);
+        }
+
+        // When
+        var reopened = open();
+
+        // Then
+        assertEquals(TelemetryArchive.BLOCK_POINTS, reopened.footprint()[1]);
+        assertEquals(TelemetryArchive.BLOCK_POINTS, reopened.range(7L, 0, Long.MAX_VALUE, 10_000).size());
+    }
+
+    @Test
+    void testNewestAndRange_StopAtTheLimitAcrossBlocks() {
+        // Given: two sealed blocks and an open one
+        var archive = open();
+        int readings = TelemetryArchive.BLOCK_POINTS * 2 + 10;
+        ingest(archive, 7L, 1_000, readings * 1_000L);
+
+        // When
+        var newest = archive.newest(7L, 20, (readings - 5) * 1_000L).points();
+        var range = archive.range(7L, 250_000, Long.MAX_VALUE, 10);
+
+        // Then: newest first across the open and the last sealed block, oldest first within the range
+        assertEquals(20, newest.size());
+        assertEquals((readings - 6) * 1_000L, newest.get(0).ts());
+        assertEquals((readings - 25) * 1_000L, newest.get(19).ts());
+        assertEquals(10, range.size());
+        assertEquals(250_000, range.get(0).ts());
+        assertEquals(259_000, range.get(9).ts());
+    }
+}
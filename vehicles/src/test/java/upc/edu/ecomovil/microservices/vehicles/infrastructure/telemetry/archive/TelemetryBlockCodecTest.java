@@ -0,0 +1,81 @@
+package upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TelemetryBlockCodec
+ * Tests that blocks decode to exactly what was encoded and stay small
+ */
+class TelemetryBlockCodecTest {
+
+    private record Reading(long ts, float lat, float lng, float speed, byte flags) {
+    }
+
+    @Test
+    void testRoundTrip_IrregularReadings() {
+        // Given: jittered intervals, a long gap, missing positions and flag changes
+        int n = 200;
+        long[] ts = new long[n];
+        float[] lat = new float[n];
+        float[] lng = new float[n];
+        float[] speed = new float[n];
+        byte[] flags = new byte[n];
+        long t = 1_700_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            t += i == 100 ? 86_400_000L : 1_000 + (i % 7) * 37;
+            ts[i] = t;
+            lat[i] = i % 50 == 0 ? Float.NaN : -12.05f + i * 0.00013f;
+            lng[i] = i % 50 == 0 ? Float.NaN : -77.04f - i * 0.00007f;
+            speed[i] = (i / 10) * 2.5f;
+            flags[i] = (byte) (i > 150 ? TelemetryBlockCodec.LOCKED | TelemetryBlockCodec.PANIC : 0);
+        }
+
+        // When
+        byte[] payload = TelemetryBlockCodec.encode(ts, lat, lng, speed, flags, n);
+        var decoded = new ArrayList<Reading>();
+        TelemetryBlockCodec.decode(payload, n, (a, b, c, d, e) -> decoded.add(new Reading(a, b, c, d, e)));
+
+        // Then
+        assertEquals(n, decoded.size());
+        for (int i = 0; i < n; i++) {
+            var r = decoded.get(i);
+            assertEquals(ts[i], r.ts());
+            assertEquals(Float.floatToRawIntBits(lat[i]), Float.floatToRawIntBits(r.lat()));
+            assertEquals(Float.floatToRawIntBits(lng[i]), Float.floatToRawIntBits(r.lng()));
+            assertEquals(speed[i], r.speed());
+            assertEquals(flags[i], r.flags());
+        }
+    }
+
+    @Test
+    void testEncode_ParkedVehicleCostsAboutOneByte() {
+        // Given: a locked vehicle reporting every 5 s without moving
+        int n = 256;
+        long[] ts = new long[n];
+        float[] lat = new float[n];
+        float[] lng = new float[n];
+        float[] speed = new float[n];
+        byte[] flags = new byte[n];
+        for (int i = 0; i < n; i++) {
+            ts[i] = 1_700_000_000_000L + i * 5_000L;
+            lat[i] = -12.05f;
+            lng[i] = -77.04f;
+            flags[i] = TelemetryBlockCodec.LOCKED;
+        }
+
+        // When
+        byte[] payload = TelemetryBlockCodec.encode(ts, lat, lng, speed, flags, n);
+
+        // Then: 5 bits per reading after the first
+        assertTrue(payload.length < n, "payload was " + payload.length + " bytes");
+        var decoded = new ArrayList<Long>();
+        TelemetryBlockCodec.decode(payload, n, (a, b, c, d, e) -> decoded.add(a));
+        assertEquals(List.of(ts[0], ts[1]), decoded.subList(0, 2));
+        assertEquals(ts[n - 1], decoded.get(n - 1));
+    }
+}
@@ -0,0 +1,203 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.aggregates.Vehicle;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleAlertTransitionEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.events.VehicleSavedEvent;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.valueobjects.AlertType;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.aws.IoTCoreService;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.persistence.jpa.repositories.VehicleRepository;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.security.JwtUserDetails;
+import upc.edu.ecomovil.microservices.vehicles.infrastructure.telemetry.TelemetryIngestionBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VehicleController
+ * Tests the lock/unlock and IoT ingest endpoints against mocked collaborators
+ */
+class VehicleControllerTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private IoTCoreService iotCoreService;
+
+    @Mock
+    private TelemetryIngestionBuffer telemetryIngestionBuffer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private VehicleController controller;
+
+    private Vehicle vehicle;
+    private JwtUserDetails owner;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        vehicle = new Vehicle("bike", "Urbana", 2023, 5, 10.0, 500.0,
+                true, null, -12.0464f, -77.0428f, "City bike", 1L);
+        ReflectionTestUtils.setField(vehicle, "id", 7L);
+        vehicle.updateIoTTelemetry("esp32-7", -12.0464f, -77.0428f, false, true, 0f, false);
+        owner = new JwtUserDetails("ana", 1L, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        controller = new VehicleController(null, null, vehicleRepository, null, null, null, null, null,
+                iotCoreService, null, null, null, null, eventPublisher, telemetryIngestionBuffer, null, null, null,
+                null, null, null, "iot-secret", "service-secret", Duration.ofMinutes(5));
+    }
+
+    private static VehicleController.IoTTelemetryRequest reading() {
+        return new VehicleController.IoTTelemetryRequest("esp32", -12.0464f, -77.0428f, false, false, 12f, false, null);
+    }
+
+    private static VehicleController.IoTTelemetryRequest readingAt(long ts) {
+        return new VehicleController.IoTTelemetryRequest("esp32", -12.0464f, -77.0428f, false, false, 12f, false, ts);
+    }
+
+    private static byte[] frameAt(long ts) {
+        return ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 2).put((byte) 8).putFloat(-12.0464f).putFloat(-77.0428f).putFloat(0f)
+                .putLong(ts).put((byte) 1).put((byte) 'a')
+                .array();
+    }
+
+    private List<Instant> recordedTimes(int readings) {
+        var commands = ArgumentCaptor.forClass(RecordTelemetryCommand.class);
+        verify(telemetryIngestionBuffer, times(readings)).record(commands.capture());
+        return commands.getAllValues().stream().map(RecordTelemetryCommand::recordedAt).toList();
+    }
+
+    private List<Object> publishedEvents() {
+        var events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        return events.getAllValues();
+    }
+
+    @Test
+    void testUnlock_ResetsAlertsKnownOnlyToTheLiveState() {
+        // Given: a panic reported but not flushed to the row yet
+        when(telemetryIngestionBuffer.hasActiveAlerts(7L)).thenReturn(Optional.of(true));
+
+        // When
+        var response = controller.unlockVehicle(7L, owner);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        verify(iotCoreService).sendCommand(7L, "esp32-7", "UNLOCK");
+        var events = publishedEvents();
+        assertEquals(new VehicleSavedEvent(vehicle, VehicleSavedEvent.IoTChange.LOCK_STATE,
+                VehicleSavedEvent.IoTChange.ALERTS_RESET), events.get(0));
+        var reset = (VehicleAlertTransitionEvent) events.get(1);
+        assertEquals(AlertType.ALERTS_RESET, reset.type());
+        assertEquals(7L, reset.vehicleId());
+        assertEquals(1L, reset.ownerId());
+    }
+
+    @Test
+    void testUnlock_WithoutAlertsLogsNoReset() {
+        // Given: the vehicle has not reported since startup and its row is clean
+        when(telemetryIngestionBuffer.hasActiveAlerts(7L)).thenReturn(Optional.empty());
+
+        // When
+        controller.unlockVehicle(7L, owner);
+
+        // Then
+        assertTrue(publishedEvents().stream().noneMatch(VehicleAlertTransitionEvent.class::isInstance));
+    }
+
+    @Test
+    void testTelemetryBatch_ResultsFollowTheInputOrder() {
+        // Given: vehicle 8 is unknown and the second entry carries no reading
+        when(telemetryIngestionBuffer.recordAll(any())).thenAnswer(invocation -> {
+            List<RecordTelemetryCommand> commands = invocation.getArgument(0);
+            return commands.stream()
+                    .map(c -> c.vehicleId() == 8L ? Optional.<TelemetryIngestionBuffer.TelemetryTransition>empty()
+                            : Optional.of(new TelemetryIngestionBuffer.TelemetryTransition("esp32", false, false,
+                                    false)))
+                    .toList();
+        });
+        var body = List.of(
+                new VehicleController.IoTTelemetryBatchEntry(7L, reading()),
+                new VehicleController.IoTTelemetryBatchEntry(9L, null),
+                new VehicleController.IoTTelemetryBatchEntry(8L, reading()),
+                new VehicleController.IoTTelemetryBatchEntry(7L, reading()));
+
+        // When
+        var response = controller.receiveIoTTelemetryBatch(body, "iot-secret");
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(
+                new VehicleController.IoTTelemetryBatchResult(7L, "OK"),
+                new VehicleController.IoTTelemetryBatchResult(9L, "INVALID"),
+                new VehicleController.IoTTelemetryBatchResult(8L, "NOT_FOUND"),
+                new VehicleController.IoTTelemetryBatchResult(7L, "OK")), response.getBody());
+    }
+
+    @Test
+    void testTelemetryBatch_RejectsAWrongKeyAndOversizedBatches() {
+        // When / Then
+        assertEquals(401, controller.receiveIoTTelemetryBatch(List.of(), "wrong").getStatusCode().value());
+        var unconfigured = new VehicleController(null, null, vehicleRepository, null, null, null, null, null,
+                iotCoreService, null, null, null, null, eventPublisher, telemetryIngestionBuffer, null, null, null,
+                null, null, null, "", "", Duration.ofMinutes(5));
+        assertEquals(401, unconfigured.receiveIoTTelemetryBatch(List.of(), "").getStatusCode().value(),
+                "an unset IOT_KEY accepts no key");
+        var tooMany = Collections.nCopies(1001, new VehicleController.IoTTelemetryBatchEntry(7L, reading()));
+        assertEquals(400, controller.receiveIoTTelemetryBatch(tooMany, "iot-secret").getStatusCode().value());
+        verifyNoInteractions(telemetryIngestionBuffer);
+    }
+
+    @Test
+    void testTelemetry_JsonTimeOffTheServerClockIsReplacedByArrival() {
+        // Given
+        when(telemetryIngestionBuffer.record(any())).thenReturn(Optional.empty());
+        long recent = System.currentTimeMillis() - 1_000;
+
+        // When: a recent reading, one from a device without NTP and one from the future
+        controller.receiveIoTTelemetry(7L, readingAt(recent), "iot-secret");
+        controller.receiveIoTTelemetry(7L, readingAt(0L), "iot-secret");
+        controller.receiveIoTTelemetry(7L, readingAt(recent + Duration.ofDays(1).toMillis()), "iot-secret");
+
+        // Then
+        assertEquals(Arrays.asList(Instant.ofEpochMilli(recent), null, null), recordedTimes(3));
+    }
+
+    @Test
+    void testTelemetry_FrameTimeOffTheServerClockIsReplacedByArrival() {
+        // Given
+        when(telemetryIngestionBuffer.record(any())).thenReturn(Optional.empty());
+        long recent = System.currentTimeMillis() - 1_000;
+
+        // When
+        controller.receiveIoTTelemetryFrame(7L, frameAt(recent), "iot-secret");
+        controller.receiveIoTTelemetryFrame(7L, frameAt(0L), "iot-secret");
+        controller.receiveIoTTelemetryFrame(7L, frameAt(recent + Duration.ofDays(1).toMillis()), "iot-secret");
+
+        // Then
+        assertEquals(Arrays.asList(Instant.ofEpochMilli(recent), null, null), recordedTimes(3));
+    }
+}
@@ -0,0 +1,108 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordTelemetryCommandFromFrameAssembler
+ * Tests decoding of single and batched binary telemetry frames
+ */
+class RecordTelemetryCommandFromFrameAssemblerTest {
+
+    static byte[] frame(Long vehicleId, int flags, float lat, float lng, float speed, String deviceId) {
+        byte[] id = deviceId.getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocate((vehicleId != null ? 8 : 0) + 15 + id.length).order(ByteOrder.LITTLE_ENDIAN);
+        if (vehicleId != null) buffer.putLong(vehicleId);
+        buffer.put((byte) 1).put((byte) flags).putFloat(lat).putFloat(lng).putFloat(speed)
+                .put((byte) id.length).put(id);
+        return buffer.array();
+    }
+
+    @Test
+    void testToCommandFromFrame_DecodesAllFields() {
+        // Given: locked + panic, with position and speed
+        byte[] body = frame(null, 1 | 4 | 8 | 16, -12.05f, -77.04f, 17.5f, "esp32-01");
+
+        // When
+        var command = RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, body);
+
+        // Then
+        assertEquals(9L, command.vehicleId());
+        assertEquals("esp32-01", command.deviceId());
+        assertEquals(-12.05f, command.lat());
+        assertEquals(-77.04f, command.lng());
+        assertEquals(17.5f, command.speedKmh());
+        assertTrue(command.isLocked());
+        assertTrue(command.panicActive());
+        assertFalse(command.fallDetected());
+    }
+
+    @Test
+    void testToCommandFromFrame_Version2CarriesReadingTime() {
+        // Given
+        byte[] id = "esp32-01".getBytes(StandardCharsets.UTF_8);
+        byte[] body = ByteBuffer.allocate(23 + id.length).order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 2).put((byte) (8 | 16)).putFloat(-12.05f).putFloat(-77.04f).putFloat(17.5f)
+                .putLong(1_768_471_200_000L).put((byte) id.length).put(id)
+                .array();
+
+        // When
+        var command = RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, body);
+
+        // Then
+        assertEquals(Instant.ofEpochMilli(1_768_471_200_000L), command.recordedAt());
+        assertEquals("esp32-01", command.deviceId());
+        assertNull(RecordTelemetryCommandFromFrameAssembler
+                .toCommandFromFrame(9L, frame(null, 8, -12.05f, -77.04f, 0f, "a")).recordedAt());
+    }
+
+    @Test
+    void testToCommandsFromBatchFrame_DecodesRecordsAndRejectsTruncation() {
+        // Given: the second reading has no GPS fix
+        byte[] first = frame(1L, 8, -12.05f, -77.04f, 0f, "a");
+        byte[] second = frame(2L, 2, 0f, 0f, 0f, "");
+        byte[] body = ByteBuffer.allocate(first.length + second.length).put(first).put(second).array();
+
+        // When
+        var commands = RecordTelemetryCommandFromFrameAssembler.toCommandsFromBatchFrame(body, 10);
+
+        // Then
+        assertEquals(2, commands.size());
+        assertEquals(2L, commands.get(1).vehicleId());
+        assertNull(commands.get(1).lat());
+        assertNull(commands.get(1).deviceId());
+        assertTrue(commands.get(1).fallDetected());
+        byte[] truncated = Arrays.copyOf(body, body.length - 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordTelemetryCommandFromFrameAssembler.toCommandsFromBatchFrame(truncated, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordTelemetryCommandFromFrameAssembler.toCommandsFromBatchFrame(body, 1));
+    }
+
+    @Test
+    void testToCommandFromFrame_RejectsNonFiniteOrOffGlobeValues() {
+        // Given
+        byte[] nanLat = frame(null, 8 | 16, Float.NaN, -77.04f, 10f, "esp32-01");
+        byte[] offGlobe = frame(null, 8 | 16, -12.05f, 200f, 10f, "esp32-01");
+        byte[] infiniteSpeed = frame(null, 8 | 16, -12.05f, -77.04f, Float.POSITIVE_INFINITY, "esp32-01");
+        byte[] noFix = frame(null, 0, Float.NaN, Float.NaN, Float.NaN, "esp32-01");
+
+        // When / Then: the flags say which values count
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, nanLat));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, offGlobe));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, infiniteSpeed));
+        var command = RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(9L, noFix);
+        assertNull(command.lat());
+        assertNull(command.speedKmh());
+    }
+}
@@ -0,0 +1,82 @@
+package upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import upc.edu.ecomovil.microservices.vehicles.domain.model.commands.RecordTelemetryCommand;
+import upc.edu.ecomovil.microservices.vehicles.interfaces.rest.VehicleController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One telemetry reading from request bytes to {@link RecordTelemetryCommand}:
+ * the JSON body through Jackson (what Spring does for the JSON endpoint)
+ * against the binary frame. Prints the size of both bodies.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=upc.edu.ecomovil.microservices.vehicles.interfaces.rest.transform.TelemetryFrameBenchmark}
+ * or from the IDE.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryFrameBenchmark {
+
+    private static final String JSON = "{\"deviceId\":\"esp32-0042\",\"lat\":-12.046374,\"lng\":-77.042793,"
+            + "\"fallDetected\":false,\"isLocked\":true,\"speedKmh\":14.25,\"panicActive\":false}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        json = JSON.getBytes(StandardCharsets.UTF_8);
+        byte[] id = "esp32-0042".getBytes(StandardCharsets.UTF_8);
+        frame = ByteBuffer.allocate(15 + id.length).order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 1).put((byte) (1 | 8 | 16))
+                .putFloat(-12.046374f).putFloat(-77.042793f).putFloat(14.25f)
+                .put((byte) id.length).put(id)
+                .array();
+    }
+
+    @Benchmark
+    public RecordTelemetryCommand json() throws IOException {
+        var body = objectMapper.readValue(json, VehicleController.IoTTelemetryRequest.class);
+        return new RecordTelemetryCommand(42L, body.deviceId(), body.lat(), body.lng(),
+                Boolean.TRUE.equals(body.fallDetected()), Boolean.TRUE.equals(body.isLocked()),
+                body.speedKmh(), Boolean.TRUE.equals(body.panicActive()));
+    }
+
+    @Benchmark
+    public RecordTelemetryCommand frame() {
+        return RecordTelemetryCommandFromFrameAssembler.toCommandFromFrame(42L, frame);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var state = new TelemetryFrameBenchmark();
+        state.setUp();
+        System.out.printf("JSON body %d bytes, frame %d bytes%n", state.json.length, state.frame.length);
+        new Runner(new OptionsBuilder().include(TelemetryFrameBenchmark.class.getSimpleName()).build()).run();
+    }
+}